@@ -0,0 +1,81 @@
+package com.example.currency_exchange.filter;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Latency distribution of a ~55 KB JSON response with LoggingFilter off and on; compare the p0.99 rows. The filter
+ * only keeps a bounded prefix and formats off the request thread, so the two should stay close.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingFilterBenchmark {
+
+    @Param({"false", "true"})
+    private boolean filtered;
+
+    private final Logger filterLogger = (Logger) LoggerFactory.getLogger(LoggingFilter.class);
+    private LoggingFilter filter;
+    private MockMvc mvc;
+
+    @RestController
+    static class RatesController {
+        private final List<Map<String, String>> rates = new ArrayList<>();
+
+        RatesController() {
+            for (int i = 0; i < 500; i++) {
+                rates.add(Map.of("base_currency", "EUR", "quote_currency", "USD",
+                        "close_time", "2025-11-01T00:00:00", "average_bid", "1.0850000000", "average_ask", "1.0852000000"));
+            }
+        }
+
+        @GetMapping("/rates")
+        List<Map<String, String>> rates() {
+            return rates;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        // the log lines themselves are not what is measured, keep them off the console
+        filterLogger.setLevel(Level.INFO);
+        filterLogger.setAdditive(false);
+        if (filtered) {
+            filter = new LoggingFilter(1.0, List.of(), List.of(), 4096, 10_000);
+            mvc = MockMvcBuilders.standaloneSetup(new RatesController()).addFilters(filter).build();
+        } else {
+            mvc = MockMvcBuilders.standaloneSetup(new RatesController()).build();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (filter != null) {
+            filter.destroy();
+        }
+        filterLogger.setAdditive(true);
+    }
+
+    @Benchmark
+    public MvcResult rates() throws Exception {
+        return mvc.perform(get("/rates")).andReturn();
+    }
+}
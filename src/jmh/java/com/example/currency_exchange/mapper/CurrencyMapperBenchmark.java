@@ -0,0 +1,40 @@
+package com.example.currency_exchange.mapper;
+
+import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
+import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.util.FixedPoint;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurrencyMapperBenchmark {
+
+    private final CurrencyMapper mapper = new CurrencyMapperImpl();
+    private final CurrencyExchangeRate entity = new CurrencyExchangeRate();
+
+    @Setup
+    public void setUp() {
+        entity.setId(1L);
+        entity.setBaseCurrency("EUR");
+        entity.setQuoteCurrency("USD");
+        entity.setUpdateTime(LocalDateTime.of(2025, 11, 6, 12, 30));
+        entity.setAverageBid(FixedPoint.parse("1.0850100000"));
+        entity.setAverageAsk(FixedPoint.parse("1.0852300000"));
+        entity.setHighBid(FixedPoint.parse("1.0900400000"));
+        entity.setHighAsk(FixedPoint.parse("1.0902700000"));
+        entity.setLowBid(FixedPoint.parse("1.0800200000"));
+        entity.setLowAsk(FixedPoint.parse("1.0802100000"));
+    }
+
+    @Benchmark
+    public CurrencyExchangeRateDto toDto() {
+        return mapper.toDto(entity);
+    }
+}
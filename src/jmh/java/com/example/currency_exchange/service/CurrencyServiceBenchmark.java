@@ -0,0 +1,82 @@
+package com.example.currency_exchange.service;
+
+import com.example.currency_exchange.CurrencyExchangeApplication;
+import com.example.currency_exchange.cache.RateCache;
+import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
+import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.util.FixedPoint;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CurrencyService#getExchangeRate} against the application context on an in-memory H2, both served from
+ * the rate cache and loaded from the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurrencyServiceBenchmark {
+
+    private static final String BASE = "EUR";
+
+    @Param({"100", "10000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private CurrencyService currencyService;
+    private RateCache rateCache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SpringApplication.run(CurrencyExchangeApplication.class,
+                "--spring.main.web-application-type=none",
+                "--spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.h2.console.enabled=false",
+                "--spring.devtools.restart.enabled=false",
+                "--logging.level.root=WARN");
+        currencyService = context.getBean(CurrencyService.class);
+        rateCache = context.getBean(RateCache.class);
+
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+        List<CurrencyExchangeRate> seed = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            CurrencyExchangeRate rate = new CurrencyExchangeRate();
+            rate.setBaseCurrency(BASE);
+            rate.setQuoteCurrency(CurrencyService.QUOTE_CURRENCY);
+            rate.setUpdateTime(start.plusMinutes(i));
+            rate.setAverageBid(FixedPoint.parse("1.0850000000"));
+            rate.setAverageAsk(FixedPoint.parse("1.0852000000"));
+            rate.setHighBid(FixedPoint.parse("1.0900000000"));
+            rate.setHighAsk(FixedPoint.parse("1.0902000000"));
+            rate.setLowBid(FixedPoint.parse("1.0800000000"));
+            rate.setLowAsk(FixedPoint.parse("1.0802000000"));
+            seed.add(rate);
+        }
+        currencyService.addExchangeRates(seed);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<CurrencyExchangeRateDto> getExchangeRate_cached() {
+        return currencyService.getExchangeRate(BASE);
+    }
+
+    @Benchmark
+    public List<CurrencyExchangeRateDto> getExchangeRate_database() {
+        rateCache.invalidateSeries(BASE);
+        return currencyService.getExchangeRate(BASE);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.currency_exchange.service;
+
+import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
+import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The FXDS row to entity conversion the sync job runs for every fetched row: instant parsing plus six
+ * {@link com.example.currency_exchange.util.FixedPoint} prices parsed from strings; {@link #bigDecimalFromString} is
+ * one price the way it was parsed before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateConversionBenchmark {
+
+    private final CurrencyExchangeRateDto dto = CurrencyExchangeRateDto.builder()
+            .baseCurrency("EUR")
+            .quoteCurrency("USD")
+            .closeTime("2025-11-06T12:30:00Z")
+            .averageBid("1.08501")
+            .averageAsk("1.08523")
+            .highBid("1.09004")
+            .highAsk("1.09027")
+            .lowBid("1.08002")
+            .lowAsk("1.08021")
+            .build();
+
+    @Benchmark
+    public CurrencyExchangeRate getCurrencyExchangeRate() {
+        return CurrencyService.getCurrencyExchangeRate(dto);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalFromString() {
+        return new BigDecimal(dto.getAverageBid());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.currency_exchange.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The hand-rolled parser against the strict {@link DateTimeFormatter} it replaced, on valid and invalid input.
+ * Run with {@code -prof gc} to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckDateUtilBenchmark {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter
+            .ofPattern("uuuu/MM/dd HH:mm:ss")
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    private final String valid = "2025/11/01 12:34:56";
+    // rejected only by the calendar check, so the whole value is read before failing
+    private final String invalid = "2025/02/30 12:34:56";
+
+    @Benchmark
+    public LocalDateTime parseOrNull_valid() {
+        return CheckDateUtil.parseOrNull(valid);
+    }
+
+    @Benchmark
+    public LocalDateTime parseOrNull_invalid() {
+        return CheckDateUtil.parseOrNull(invalid);
+    }
+
+    @Benchmark
+    public boolean isValid_valid() {
+        return CheckDateUtil.isValid(valid);
+    }
+
+    @Benchmark
+    public LocalDateTime parse() {
+        return CheckDateUtil.parse(valid);
+    }
+
+    @Benchmark
+    public LocalDateTime formatter_valid() {
+        return LocalDateTime.parse(valid, FORMATTER);
+    }
+
+    @Benchmark
+    public LocalDateTime formatter_invalid() {
+        try {
+            return LocalDateTime.parse(invalid, FORMATTER);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
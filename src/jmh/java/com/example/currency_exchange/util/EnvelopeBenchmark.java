@@ -0,0 +1,45 @@
+package com.example.currency_exchange.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.security.KeyPair;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envelope encrypt/decrypt by payload size. The RSA key wrap is a fixed cost per envelope, so time per op should
+ * grow with size at AES speed once payloads are past a few KiB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnvelopeBenchmark {
+
+    @Param({"1024", "1048576", "16777216"})
+    private int size;
+
+    private KeyPair keyPair;
+    private byte[] plaintext;
+    private byte[] envelope;
+
+    @Setup
+    public void setUp() {
+        keyPair = RSAUtil.generateKeyPair(2048);
+        plaintext = new byte[size];
+        new Random(1).nextBytes(plaintext);
+        envelope = RSAUtil.envelopeEncrypt(plaintext, keyPair.getPublic());
+    }
+
+    @Benchmark
+    public byte[] envelopeEncrypt() {
+        return RSAUtil.envelopeEncrypt(plaintext, keyPair.getPublic());
+    }
+
+    @Benchmark
+    public byte[] envelopeDecrypt() {
+        return RSAUtil.envelopeDecrypt(envelope, keyPair.getPrivate());
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.currency_exchange.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FixedPoint} against the {@link BigDecimal} operations it replaces: parsing an FXDS price, turning a price
+ * the JDBC driver read into its JSON text, and a rollup mean. The read benchmarks build a fresh {@link BigDecimal}
+ * each call, as the driver does per row, so neither side prints a cached string. Run with {@code -prof gc} to
+ * compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixedPointBenchmark {
+
+    private final String price = "26123.45678";
+    private final long column = FixedPoint.parse(price);
+    private final long sum = FixedPoint.parse("182864.1974635");
+    private final BigDecimal decimalSum = FixedPoint.toBigDecimal(sum);
+    private final long count = 7;
+
+    @Benchmark
+    public long parse() {
+        return FixedPoint.parse(price);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalParse() {
+        return new BigDecimal(price).setScale(FixedPoint.SCALE, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public String readAndFormat() {
+        return FixedPoint.format(FixedPoint.valueOf(BigDecimal.valueOf(column, FixedPoint.SCALE)));
+    }
+
+    @Benchmark
+    public String bigDecimalReadAndFormat() {
+        return BigDecimal.valueOf(column, FixedPoint.SCALE).toString();
+    }
+
+    @Benchmark
+    public String meanAndFormat() {
+        return FixedPoint.format(FixedPoint.mean(sum, count));
+    }
+
+    @Benchmark
+    public String bigDecimalMeanAndFormat() {
+        return decimalSum.divide(BigDecimal.valueOf(count), FixedPoint.SCALE, RoundingMode.HALF_UP).toString();
+    }
+}
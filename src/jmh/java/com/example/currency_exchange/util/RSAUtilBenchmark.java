@@ -0,0 +1,79 @@
+package com.example.currency_exchange.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Cipher;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RSAUtilBenchmark {
+
+    private PublicKey publicKey;
+    private PrivateKey privateKey;
+    private String publicKeyBase64;
+    private String privateKeyBase64;
+    private String cipherText;
+
+    @Setup
+    public void setUp() {
+        KeyPair keyPair = RSAUtil.generateKeyPair(2048);
+        publicKey = keyPair.getPublic();
+        privateKey = keyPair.getPrivate();
+        publicKeyBase64 = RSAUtil.publicKeyToBase64(publicKey);
+        privateKeyBase64 = RSAUtil.privateKeyToBase64(privateKey);
+        cipherText = RSAUtil.encrypt("EUR", publicKey);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return RSAUtil.encrypt("EUR", publicKey);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return RSAUtil.decrypt(cipherText, privateKey);
+    }
+
+    @Benchmark
+    public PublicKey publicKeyFromBase64() {
+        return RSAUtil.publicKeyFromBase64(publicKeyBase64);
+    }
+
+    @Benchmark
+    public PrivateKey privateKeyFromBase64() {
+        return RSAUtil.privateKeyFromBase64(privateKeyBase64);
+    }
+
+    /**
+     * What the encrypted-currency-code endpoint did per request before: decode the key, new Cipher, init, decrypt.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public String endpointDecrypt_before() throws Exception {
+        PrivateKey key = RSAUtil.privateKeyFromBase64(privateKeyBase64);
+        Cipher cipher = Cipher.getInstance("RSA/ECB/OAEPWithSHA-256AndMGF1Padding");
+        cipher.init(Cipher.DECRYPT_MODE, key);
+        return new String(cipher.doFinal(Base64.getDecoder().decode(cipherText)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The endpoint now: the key parsed once at generation, only the cipher is made per call.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public String endpointDecrypt_after() {
+        return RSAUtil.decrypt(cipherText, privateKey);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.currency_exchange.cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers in-memory index and cache changes until the surrounding transaction commits, so a rolled back write never shows
+ * up; outside a transaction the change is applied right away.
+ * <p>
+ * The committed transaction's resources are still bound while the change runs, so a change that writes to the database
+ * must start its own transaction.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
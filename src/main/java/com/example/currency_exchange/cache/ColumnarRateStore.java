@@ -0,0 +1,513 @@
+package com.example.currency_exchange.cache;
+
+import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
+import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.repo.CurrencyRepos;
+import com.example.currency_exchange.util.FixedPoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Full rate history of the configured currencies in primitive columns, so range, as-of and page reads of those
+ * currencies never reach the database and walk the series without allocating per row.
+ * <p>
+ * Each currency is one immutable {@link Series}: update times as UTC epoch millis and the six prices as
+ * {@link FixedPoint} longs, with {@link #NULL} for a missing price. Columns live on the heap, or in direct buffers
+ * with {@code currency.columnar.off-heap}.
+ * <p>
+ * Series are loaded at startup in keyset-paged chunks and replaced after every committed write; appending newer
+ * rows reuses the spare column capacity, any other change copies. Readers lease a series and close it when done;
+ * off the heap, the columns of a replaced series nobody leases any more are kept and written by the next copy, so
+ * rewrites alternate between two sets of direct buffers instead of leaving each old set for the garbage collector.
+ * A currency whose rows cannot be held exactly (a sub-millisecond time, or a price equal to {@link #NULL}) is
+ * dropped, and its reads go to the database.
+ */
+@Slf4j
+@Component
+public class ColumnarRateStore implements InitializingBean {
+
+    public static final long NULL = Long.MIN_VALUE;
+
+    private static final int LOAD_CHUNK = 10_000;
+    private static final int COLUMNS = 7;
+    private static final int TIME = 0;
+    private static final int AVERAGE_BID = 1;
+    private static final int AVERAGE_ASK = 2;
+    private static final int HIGH_BID = 3;
+    private static final int HIGH_ASK = 4;
+    private static final int LOW_BID = 5;
+    private static final int LOW_ASK = 6;
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final CurrencyRepos currencyRepos;
+    private final Set<String> currencies;
+    private final boolean offHeap;
+    private final ConcurrentHashMap<String, Series> series = new ConcurrentHashMap<>();
+
+    public ColumnarRateStore(CurrencyRepos currencyRepos,
+                             @Value("${currency.columnar.currencies:${currency.sync.currencies:VND,EUR}}") List<String> currencies,
+                             @Value("${currency.columnar.off-heap:false}") boolean offHeap) {
+        this.currencyRepos = currencyRepos;
+        this.currencies = new LinkedHashSet<>(currencies);
+        this.currencies.remove("");
+        this.offHeap = offHeap;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        for (String currency : currencies) {
+            Series loaded = load(currency);
+            if (loaded != null) {
+                series.put(currency, loaded);
+                log.info("Loaded {} rates of {} into columnar store", loaded.size(), currency);
+            }
+        }
+    }
+
+    /**
+     * Returns the current series of the currency, leased until closed, or null if it is not held here. The series
+     * never changes and its columns are not reused while it is leased, so indexes found in it stay valid until then.
+     */
+    public Series acquire(String baseCurrency) {
+        while (true) {
+            Series current = series.get(baseCurrency);
+            if (current == null || current.lease()) {
+                return current;
+            }
+            // replaced and released since it was read; its successor is in the map already
+        }
+    }
+
+    /**
+     * Records inserted or updated rates once the surrounding transaction commits; rates of currencies that are
+     * not held here are ignored.
+     */
+    public void offerAll(Collection<CurrencyExchangeRate> rates) {
+        Map<String, List<long[]>> rows = new HashMap<>();
+        for (CurrencyExchangeRate rate : rates) {
+            if (series.containsKey(rate.getBaseCurrency())) {
+                rows.computeIfAbsent(rate.getBaseCurrency(), k -> new ArrayList<>()).add(toRow(rate));
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        AfterCommit.run(() -> rows.forEach((base, changed) -> {
+            if (changed.contains(null)) {
+                Series dropped = series.remove(base);
+                if (dropped != null) {
+                    dropped.close();
+                }
+                log.warn("Dropped {} from columnar store, a rate cannot be held exactly", base);
+                return;
+            }
+            changed.sort(Comparator.comparingLong(row -> row[TIME]));
+            replace(base, current -> current.upsert(changed));
+        }));
+    }
+
+    /**
+     * Records that the rate of the currency at the given time was deleted.
+     */
+    public void removed(String baseCurrency, LocalDateTime updateTime) {
+        if (series.containsKey(baseCurrency)) {
+            AfterCommit.run(() -> replace(baseCurrency, current -> current.remove(toEpochMillis(updateTime))));
+        }
+    }
+
+    /**
+     * Records that every rate of the currency was deleted; it stays held, empty.
+     */
+    public void removedCurrency(String baseCurrency) {
+        if (series.containsKey(baseCurrency)) {
+            AfterCommit.run(() -> replace(baseCurrency, Series::cleared));
+        }
+    }
+
+    // the store's lease on a replaced series is given up once the map no longer hands it out
+    private void replace(String baseCurrency, UnaryOperator<Series> change) {
+        Series[] replaced = new Series[1];
+        series.computeIfPresent(baseCurrency, (k, current) -> {
+            Series next = change.apply(current);
+            if (next != current) {
+                replaced[0] = current;
+            }
+            return next;
+        });
+        if (replaced[0] != null) {
+            replaced[0].close();
+        }
+    }
+
+    private Series load(String currency) {
+        List<long[]> rows = new ArrayList<>();
+        List<CurrencyExchangeRate> chunk = currencyRepos.findPage(currency, MIN_TIME, MAX_TIME, Limit.of(LOAD_CHUNK));
+        while (!chunk.isEmpty()) {
+            for (CurrencyExchangeRate rate : chunk) {
+                long[] row = toRow(rate);
+                if (row == null) {
+                    log.warn("Not holding {} in columnar store, a rate cannot be held exactly", currency);
+                    return null;
+                }
+                rows.add(row);
+            }
+            LocalDateTime last = chunk.get(chunk.size() - 1).getUpdateTime();
+            chunk = chunk.size() < LOAD_CHUNK ? List.of()
+                    : currencyRepos.findPageAfter(currency, last, MAX_TIME, Limit.of(LOAD_CHUNK));
+        }
+        return Series.empty(new Pool(offHeap)).upsert(rows);
+    }
+
+    /**
+     * Returns the rate as {time, averageBid, averageAsk, highBid, highAsk, lowBid, lowAsk}, or null if it cannot
+     * be held exactly.
+     */
+    private static long[] toRow(CurrencyExchangeRate rate) {
+        LocalDateTime time = rate.getUpdateTime();
+        if (time.getNano() % 1_000_000 != 0) {
+            return null;
+        }
+        try {
+            return new long[]{toEpochMillis(time),
+                    toScaled(rate.getAverageBid()), toScaled(rate.getAverageAsk()),
+                    toScaled(rate.getHighBid()), toScaled(rate.getHighAsk()),
+                    toScaled(rate.getLowBid()), toScaled(rate.getLowAsk())};
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the {@link FixedPoint} price, or {@link #NULL} for a missing one.
+     *
+     * @throws ArithmeticException if it is the one value that stands for {@link #NULL}
+     */
+    static long toScaled(Long price) {
+        if (price == null) {
+            return NULL;
+        }
+        if (price == NULL) {
+            throw new ArithmeticException("out of range");
+        }
+        return price;
+    }
+
+    /**
+     * Formats a scaled price the way a price read from the database prints, or returns null for {@link #NULL}.
+     */
+    public static String format(long scaled) {
+        return scaled == NULL ? null : FixedPoint.format(scaled);
+    }
+
+    public static long toEpochMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Returns the smallest epoch millis at or after the time, for searching series whose times are whole millis.
+     */
+    public static long toEpochMillisCeiling(LocalDateTime time) {
+        return toEpochMillis(time) + (time.getNano() % 1_000_000 == 0 ? 0 : 1);
+    }
+
+    public static LocalDateTime toTime(long epochMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000L),
+                (int) Math.floorMod(epochMillis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * One currency's rates, oldest first, as read-only primitive columns. Close it when done reading.
+     */
+    public static final class Series implements AutoCloseable {
+
+        private final Columns columns;
+        private final LongBuffer[] buffers;
+        private final int size;
+        // the store's own lease plus one per reader; at zero the series is gone and its columns can be reused
+        private final AtomicInteger leases = new AtomicInteger(1);
+        // softly held, so a full history kept off the heap is not pinned on it as DTOs under memory pressure
+        private volatile SoftReference<List<CurrencyExchangeRateDto>> dtos;
+
+        private Series(Columns columns, int size) {
+            this.columns = columns;
+            this.buffers = columns.buffers;
+            this.size = size;
+            columns.snapshots.incrementAndGet();
+        }
+
+        static Series empty(Pool pool) {
+            return new Series(pool.allocate(0), 0);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the whole series as DTOs, built by the given function on the first call for this snapshot and
+         * shared by later calls until the series is replaced.
+         */
+        public List<CurrencyExchangeRateDto> dtos(Function<Series, List<CurrencyExchangeRateDto>> build) {
+            SoftReference<List<CurrencyExchangeRateDto>> cached = dtos;
+            List<CurrencyExchangeRateDto> result = cached == null ? null : cached.get();
+            if (result == null) {
+                result = build.apply(this);
+                dtos = new SoftReference<>(result);
+            }
+            return result;
+        }
+
+        /**
+         * Returns the index of the first rate at or after the given epoch millis, or {@link #size()} if none.
+         */
+        public int lowerBound(long epochMillis) {
+            LongBuffer times = buffers[TIME];
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (times.get(mid) < epochMillis) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        public long time(int index) {
+            return buffers[TIME].get(index);
+        }
+
+        public long averageBid(int index) {
+            return buffers[AVERAGE_BID].get(index);
+        }
+
+        public long averageAsk(int index) {
+            return buffers[AVERAGE_ASK].get(index);
+        }
+
+        public long highBid(int index) {
+            return buffers[HIGH_BID].get(index);
+        }
+
+        public long highAsk(int index) {
+            return buffers[HIGH_ASK].get(index);
+        }
+
+        public long lowBid(int index) {
+            return buffers[LOW_BID].get(index);
+        }
+
+        public long lowAsk(int index) {
+            return buffers[LOW_ASK].get(index);
+        }
+
+        /**
+         * Gives up the lease taken by {@link ColumnarRateStore#acquire}.
+         */
+        @Override
+        public void close() {
+            if (leases.decrementAndGet() == 0) {
+                columns.release();
+            }
+        }
+
+        private boolean lease() {
+            int current;
+            do {
+                current = leases.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!leases.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        // whether both read the same buffers, as an append and its source do or a rewrite into reused columns
+        boolean sharesColumnsWith(Series other) {
+            return buffers == other.buffers;
+        }
+
+        /**
+         * Returns a series with the given rows, sorted by time, inserted or overwriting the rows at equal times.
+         */
+        Series upsert(List<long[]> rows) {
+            if (rows.isEmpty()) {
+                return this;
+            }
+            int capacity = buffers[TIME].capacity();
+            if (size == 0 || rows.get(0)[TIME] > time(size - 1)) {
+                int newSize = size + distinctTimes(rows);
+                // appending after the newest row: older snapshots never read past their own size
+                Columns target = newSize <= capacity ? columns : copy(Math.max(newSize, capacity * 2));
+                int at = size;
+                for (long[] row : rows) {
+                    at = put(target.buffers, at, row);
+                }
+                return new Series(target, newSize);
+            }
+            int needed = size + rows.size();
+            Columns target = columns.pool.allocate(needed <= capacity ? capacity : Math.max(needed, capacity * 2));
+            int at = 0;
+            int i = 0;
+            for (long[] row : rows) {
+                while (i < size && time(i) < row[TIME]) {
+                    at = copyRow(target.buffers, at, i++);
+                }
+                if (i < size && time(i) == row[TIME]) {
+                    i++;
+                }
+                at = put(target.buffers, at, row);
+            }
+            while (i < size) {
+                at = copyRow(target.buffers, at, i++);
+            }
+            return new Series(target, at);
+        }
+
+        /**
+         * Returns a series without the rate at the given time.
+         */
+        Series remove(long epochMillis) {
+            int index = lowerBound(epochMillis);
+            if (index == size || time(index) != epochMillis) {
+                return this;
+            }
+            Columns target = columns.pool.allocate(buffers[TIME].capacity());
+            int at = 0;
+            for (int i = 0; i < size; i++) {
+                if (i != index) {
+                    at = copyRow(target.buffers, at, i);
+                }
+            }
+            return new Series(target, at);
+        }
+
+        /**
+         * Returns an empty series drawing on the same pool.
+         */
+        Series cleared() {
+            return empty(columns.pool);
+        }
+
+        private static int distinctTimes(List<long[]> sortedRows) {
+            int distinct = 0;
+            long previous = 0;
+            for (long[] row : sortedRows) {
+                if (distinct == 0 || row[TIME] != previous) {
+                    distinct++;
+                }
+                previous = row[TIME];
+            }
+            return distinct;
+        }
+
+        // a row repeating the previous time overwrites it
+        private static int put(LongBuffer[] target, int at, long[] row) {
+            int index = at > 0 && target[TIME].get(at - 1) == row[TIME] ? at - 1 : at;
+            for (int c = 0; c < COLUMNS; c++) {
+                target[c].put(index, row[c]);
+            }
+            return index + 1;
+        }
+
+        private int copyRow(LongBuffer[] target, int at, int index) {
+            for (int c = 0; c < COLUMNS; c++) {
+                target[c].put(at, buffers[c].get(index));
+            }
+            return at + 1;
+        }
+
+        private Columns copy(int capacity) {
+            Columns target = columns.pool.allocate(capacity);
+            for (int i = 0; i < size; i++) {
+                copyRow(target.buffers, i, i);
+            }
+            return target;
+        }
+    }
+
+    /**
+     * Column buffers, shared by a series and the snapshots appended from it; back to the pool with the last of them.
+     */
+    private static final class Columns {
+
+        private final LongBuffer[] buffers;
+        private final Pool pool;
+        private final AtomicInteger snapshots = new AtomicInteger();
+
+        private Columns(LongBuffer[] buffers, Pool pool) {
+            this.buffers = buffers;
+            this.pool = pool;
+        }
+
+        private void release() {
+            if (snapshots.decrementAndGet() == 0) {
+                pool.recycle(buffers);
+            }
+        }
+    }
+
+    /**
+     * Allocates one currency's columns. Off the heap it keeps the last released set and hands it out again when it
+     * is large enough; heap columns are left to the garbage collector.
+     */
+    private static final class Pool {
+
+        private final boolean offHeap;
+        private final AtomicReference<LongBuffer[]> spare = new AtomicReference<>();
+
+        Pool(boolean offHeap) {
+            this.offHeap = offHeap;
+        }
+
+        private Columns allocate(int capacity) {
+            LongBuffer[] buffers = spare.getAndSet(null);
+            if (buffers == null || buffers[TIME].capacity() < capacity) {
+                buffers = allocateBuffers(capacity, offHeap);
+            }
+            return new Columns(buffers, this);
+        }
+
+        private void recycle(LongBuffer[] buffers) {
+            if (offHeap) {
+                spare.set(buffers);
+            }
+        }
+
+        private static LongBuffer[] allocateBuffers(int capacity, boolean offHeap) {
+            LongBuffer[] columns = new LongBuffer[COLUMNS];
+            for (int c = 0; c < COLUMNS; c++) {
+                columns[c] = offHeap
+                        ? ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer()
+                        : LongBuffer.allocate(capacity);
+            }
+            return columns;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.currency_exchange.cache;
+
+import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight cache in front of the FXDS upstream, keyed by (baseCurrency, startDate, endDate).
+ * <p>
+ * Concurrent callers with the same key share one in-flight request; the completed response is then served
+ * for a short TTL. Failed requests are dropped right away so the next caller retries.
+ */
+@Component
+public class FxdsResponseCache {
+
+    private final AsyncCache<Key, List<CurrencyExchangeRateDto>> responses;
+
+    public FxdsResponseCache(@Value("${fxds.cache.max-entries:1000}") long maxEntries,
+                             @Value("${fxds.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Returns the in-flight or cached response for the key, starting the loader only when there is neither.
+     * The list is shared between callers and therefore unmodifiable.
+     */
+    public CompletableFuture<List<CurrencyExchangeRateDto>> get(String baseCurrency, LocalDate startDate, LocalDate endDate,
+                                                                Supplier<CompletableFuture<List<CurrencyExchangeRateDto>>> loader) {
+        // each caller gets its own copy, so one caller cancelling does not cancel the shared request
+        return responses.get(new Key(baseCurrency, startDate, endDate),
+                (key, executor) -> loader.get().thenApply(Collections::unmodifiableList)).copy();
+    }
+
+    public long estimatedSize() {
+        return responses.synchronous().estimatedSize();
+    }
+
+    private record Key(String baseCurrency, LocalDate startDate, LocalDate endDate) {
+    }
+}
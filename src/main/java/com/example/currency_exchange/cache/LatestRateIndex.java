@@ -0,0 +1,127 @@
+package com.example.currency_exchange.cache;
+
+import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
+import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.mapper.CurrencyMapper;
+import com.example.currency_exchange.repo.CurrencyRepos;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The newest rate of every base currency, held in memory so "current rate" reads never reach the database.
+ * <p>
+ * Loaded once at startup with a single grouped query, then kept current by {@code CurrencyService} writes, which
+ * all sync, bulk and FXDS ingestion goes through. Changes made inside a transaction are applied after it commits,
+ * so a rolled back write never shows up here. Each currency's entry is replaced atomically.
+ */
+@Component
+public class LatestRateIndex implements InitializingBean {
+
+    private final CurrencyRepos currencyRepos;
+    private final CurrencyMapper mapper;
+    private final ConcurrentHashMap<String, Snapshot> latest = new ConcurrentHashMap<>();
+
+    public LatestRateIndex(CurrencyRepos currencyRepos, CurrencyMapper mapper) {
+        this.currencyRepos = currencyRepos;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        rebuild();
+    }
+
+    /**
+     * Reloads every currency's newest rate from the database.
+     */
+    public void rebuild() {
+        List<CurrencyExchangeRate> rows = currencyRepos.findLatestOfEachCurrency();
+        latest.keySet().retainAll(rows.stream().map(CurrencyExchangeRate::getBaseCurrency).toList());
+        rows.forEach(row -> latest.put(row.getBaseCurrency(), toSnapshot(row)));
+    }
+
+    /**
+     * Returns the newest rate of the currency, or null if it has none.
+     */
+    public CurrencyExchangeRateDto get(String baseCurrency) {
+        Snapshot snapshot = latest.get(baseCurrency);
+        return snapshot == null ? null : snapshot.rate();
+    }
+
+    /**
+     * Returns the newest rate of every currency, ordered by base currency.
+     */
+    public List<CurrencyExchangeRateDto> getAll() {
+        List<CurrencyExchangeRateDto> result = new ArrayList<>(latest.size());
+        latest.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> result.add(e.getValue().rate()));
+        return result;
+    }
+
+    /**
+     * Records an inserted or updated rate; it becomes the latest if it is at least as new as the current one.
+     */
+    public void offer(CurrencyExchangeRate rate) {
+        offerAll(List.of(rate));
+    }
+
+    /**
+     * Same as {@link #offer} for a batch: only the newest rate of each currency in it is kept and mapped.
+     */
+    public void offerAll(Collection<CurrencyExchangeRate> rates) {
+        if (rates.isEmpty()) {
+            return;
+        }
+        Map<String, CurrencyExchangeRate> newest = new HashMap<>();
+        for (CurrencyExchangeRate rate : rates) {
+            newest.merge(rate.getBaseCurrency(), rate, (a, b) -> b.getUpdateTime().isBefore(a.getUpdateTime()) ? a : b);
+        }
+        Map<String, Snapshot> candidates = new HashMap<>(newest.size());
+        newest.forEach((base, rate) -> candidates.put(base, toSnapshot(rate)));
+        AfterCommit.run(() -> candidates.forEach((base, candidate) -> latest.merge(base, candidate,
+                (current, offered) -> offered.updateTime().isBefore(current.updateTime()) ? current : offered)));
+    }
+
+    /**
+     * Records that the rate of the currency at the given time was deleted; if it was the latest, the next newest
+     * is loaded from the database. The query runs outside the map, and its result only replaces the deleted entry,
+     * so a newer rate offered meanwhile is kept.
+     */
+    public void removed(String baseCurrency, LocalDateTime updateTime) {
+        AfterCommit.run(() -> {
+            Snapshot current = latest.get(baseCurrency);
+            if (current == null || !current.updateTime().equals(updateTime)) {
+                return;
+            }
+            List<CurrencyExchangeRate> rows = currencyRepos.findLatestByCurrencyCodes(List.of(baseCurrency));
+            if (rows.isEmpty()) {
+                latest.remove(baseCurrency, current);
+            } else {
+                latest.replace(baseCurrency, current, toSnapshot(rows.get(0)));
+            }
+        });
+    }
+
+    /**
+     * Records that every rate of the currency was deleted.
+     */
+    public void removedCurrency(String baseCurrency) {
+        AfterCommit.run(() -> latest.remove(baseCurrency));
+    }
+
+    private Snapshot toSnapshot(CurrencyExchangeRate rate) {
+        return new Snapshot(rate.getUpdateTime(), mapper.toDto(rate));
+    }
+
+    private record Snapshot(LocalDateTime updateTime, CurrencyExchangeRateDto rate) {
+    }
+}
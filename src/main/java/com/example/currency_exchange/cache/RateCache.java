@@ -0,0 +1,102 @@
+package com.example.currency_exchange.cache;
+
+import com.example.currency_exchange.dto.CacheStatsResponse;
+import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Read-through cache in front of the exchange rate lookups.
+ * <p>
+ * Single rates are cached by (baseCurrency, updateTime), full series by baseCurrency.
+ * Series are weighed by row count so one large currency cannot push out everything else.
+ * <p>
+ * Invalidations called inside a transaction take effect once it commits. Dropping entries earlier would let a reader
+ * that misses in the meantime load the pre-commit rows and cache them for the whole TTL; dropped after the commit,
+ * any such entry goes with them.
+ */
+@Component
+public class RateCache {
+
+    private final Cache<PointKey, CurrencyExchangeRateDto> points;
+    private final Cache<String, List<CurrencyExchangeRateDto>> series;
+
+    public RateCache(@Value("${currency.cache.max-points:10000}") long maxPoints,
+                     @Value("${currency.cache.max-series-rows:200000}") long maxSeriesRows,
+                     @Value("${currency.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.points = Caffeine.newBuilder()
+                .maximumSize(maxPoints)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.series = Caffeine.newBuilder()
+                .maximumWeight(maxSeriesRows)
+                .<String, List<CurrencyExchangeRateDto>>weigher((base, rows) -> Math.max(1, rows.size()))
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached rate or computes it with the loader. A null result is not cached.
+     */
+    public CurrencyExchangeRateDto getPoint(String baseCurrency, LocalDateTime updateTime,
+                                            Function<PointKey, CurrencyExchangeRateDto> loader) {
+        return points.get(new PointKey(baseCurrency, updateTime), loader);
+    }
+
+    /**
+     * Returns the cached series or computes it with the loader. A null result is not cached.
+     */
+    public List<CurrencyExchangeRateDto> getSeries(String baseCurrency,
+                                                   Function<String, List<CurrencyExchangeRateDto>> loader) {
+        return series.get(baseCurrency, loader);
+    }
+
+    /**
+     * Drops the single rate at the given time and the series it belongs to.
+     */
+    public void invalidate(String baseCurrency, LocalDateTime updateTime) {
+        AfterCommit.run(() -> {
+            points.invalidate(new PointKey(baseCurrency, updateTime));
+            series.invalidate(baseCurrency);
+        });
+    }
+
+    /**
+     * Drops the cached series of the given base currency. Enough after pure inserts, as missing rates are never cached.
+     */
+    public void invalidateSeries(String baseCurrency) {
+        AfterCommit.run(() -> series.invalidate(baseCurrency));
+    }
+
+    /**
+     * Drops every cached entry of the given base currency.
+     */
+    public void invalidateCurrency(String baseCurrency) {
+        AfterCommit.run(() -> {
+            series.invalidate(baseCurrency);
+            points.asMap().keySet().removeIf(key -> key.baseCurrency().equals(baseCurrency));
+        });
+    }
+
+    public CacheStatsResponse stats() {
+        return new CacheStatsResponse(toEntry(points.stats(), points.estimatedSize()),
+                toEntry(series.stats(), series.estimatedSize()));
+    }
+
+    private static CacheStatsResponse.Entry toEntry(CacheStats stats, long size) {
+        return new CacheStatsResponse.Entry(stats.hitCount(), stats.missCount(), stats.evictionCount(), size);
+    }
+
+    public record PointKey(String baseCurrency, LocalDateTime updateTime) {
+    }
+}
@@ -1,20 +1,86 @@
 package com.example.currency_exchange.config;
 
 import com.example.currency_exchange.interceptor.LoggingClientHttpRequestInterceptor;
+import com.example.currency_exchange.interceptor.LoggingExchangeFilterFunction;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.BufferingClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.http.converter.json.JacksonJsonHttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class HttpClientConfig {
+
+    @Value("${fxds.http.max-connections:50}")
+    private int maxConnections = 50;
+
+    @Value("${fxds.http.connect-timeout-ms:3000}")
+    private int connectTimeoutMs = 3000;
+
+    @Value("${fxds.http.read-timeout-ms:10000}")
+    private int readTimeoutMs = 10000;
+
+    @Value("${fxds.http.max-idle-seconds:30}")
+    private int maxIdleSeconds = 30;
+
     @Bean
     public RestTemplate restTemplate() {
+        // the JDK client keeps connections alive in its own pool and negotiates HTTP/2 when the server offers it
+        java.net.http.HttpClient httpClient = java.net.http.HttpClient.newBuilder()
+                .version(java.net.http.HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
         RestTemplate restTemplate = new RestTemplate();
         restTemplate.getMessageConverters().add(new JacksonJsonHttpMessageConverter());
-        restTemplate.setRequestFactory(new BufferingClientHttpRequestFactory(restTemplate.getRequestFactory()));
+        // no BufferingClientHttpRequestFactory: the logging interceptor tees the body instead of reading it twice
+        restTemplate.setRequestFactory(requestFactory);
         restTemplate.getInterceptors().add(new LoggingClientHttpRequestInterceptor());
         return restTemplate;
     }
+
+    /**
+     * Keep-alive connection pool of the FXDS WebClient, disposed with the context so a refresh or a test context
+     * does not leave its connections and eviction task behind.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider fxdsConnectionProvider() {
+        return ConnectionProvider.builder("fxds")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(readTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(maxIdleSeconds))
+                .evictInBackground(Duration.ofSeconds(maxIdleSeconds))
+                .build();
+    }
+
+    /**
+     * Non-blocking client for the FXDS upstream: pooled keep-alive connections, HTTP/2 over TLS with HTTP/1.1 fallback,
+     * and connect/response timeouts so a slow upstream cannot hold a connection forever. Built from Boot's
+     * {@link WebClient.Builder} when the context provides one, so its codecs and observation settings apply.
+     */
+    @Bean
+    public WebClient webClient(ObjectProvider<WebClient.Builder> builder, ConnectionProvider fxdsConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(fxdsConnectionProvider)
+                .protocol(HttpProtocol.H2, HttpProtocol.HTTP11)
+                .keepAlive(true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(readTimeoutMs));
+        return builder.getIfAvailable(WebClient::builder)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(new LoggingExchangeFilterFunction())
+                .build();
+    }
 }
@@ -1,13 +1,26 @@
 package com.example.currency_exchange.controller;
 
+import com.example.currency_exchange.dto.AsOfQuery;
+import com.example.currency_exchange.dto.BulkIngestResponse;
+import com.example.currency_exchange.dto.CacheStatsResponse;
+import com.example.currency_exchange.dto.CrossRateMatrixResponse;
 import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
 import com.example.currency_exchange.dto.EncryptResponse;
 import com.example.currency_exchange.dto.PublicKeyResponse;
 import com.example.currency_exchange.dto.RateDto;
+import com.example.currency_exchange.dto.RatePageResponse;
+import com.example.currency_exchange.dto.RateRollupDto;
 import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.entity.RollupResolution;
+import com.example.currency_exchange.service.BulkIngestService;
+import com.example.currency_exchange.service.CrossRateService;
 import com.example.currency_exchange.service.CurrencyClientService;
 import com.example.currency_exchange.service.CurrencyService;
+import com.example.currency_exchange.service.FxdsRateService;
+import com.example.currency_exchange.service.RollupService;
+import com.example.currency_exchange.service.RsaKeyringService;
 import com.example.currency_exchange.util.CheckDateUtil;
+import com.example.currency_exchange.util.Downsampler;
 import com.example.currency_exchange.util.RSAUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -15,84 +28,227 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.LocaleResolver;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.json.JsonMapper;
 
-import java.security.KeyPair;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.PublicKey;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("currency")
 public class CurrencyController {
 
+    public static final String PUBLIC_KEY_HEADER = "X-Public-Key";
+
     @Autowired
     CurrencyService currencyService;
 
     @Autowired
     CurrencyClientService clientService;
 
+    @Autowired
+    FxdsRateService fxdsRateService;
+
+    @Autowired
+    BulkIngestService bulkIngestService;
+
     @Autowired
     MessageSource messageSource;
 
     @Autowired
     LocaleResolver localeResolver;
 
-    private volatile String lastPrivateKeyBase64;
+    @Autowired
+    JsonMapper jsonMapper;
+
+    @Autowired
+    RsaKeyringService rsaKeyringService;
+
+    @Autowired
+    RollupService rollupService;
+
+    @Autowired
+    CrossRateService crossRateService;
 
     @PostMapping("/add-exchange-rate")
     public void addExchangeRate(@RequestParam String currencyCode, @RequestParam String update_time, @RequestBody RateDto rate) {
-        if (!CheckDateUtil.isValid(update_time)) {
-            throw new IllegalArgumentException(messageSource.getMessage("wrongDateFormat", null, LocaleContextHolder.getLocale()));
-        }
-        currencyService.addExchangeRate(currencyCode, update_time, rate);
+        currencyService.addExchangeRate(currencyCode, parseDateTime(update_time), rate);
+    }
+
+    @PostMapping(value = "/bulk-add-exchange-rate",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BulkIngestResponse bulkAddExchangeRate(InputStream body) {
+        return bulkIngestService.ingest(body);
     }
 
+    /**
+     * With maxPoints, a long history is reduced to at most that many rows for charting (see {@link Downsampler}).
+     */
     @GetMapping("/get-exchange-rate")
-    public List<CurrencyExchangeRateDto> getExchangeRateList(@RequestParam String currencyCode) {
-        return currencyService.getExchangeRate(currencyCode);
+    public List<CurrencyExchangeRateDto> getExchangeRateList(@RequestParam String currencyCode,
+                                                             @RequestParam(required = false) Integer maxPoints,
+                                                             @RequestParam(defaultValue = "LTTB") Downsampler.Mode downsample) {
+        return getExchangeRates(currencyCode, maxPoints, downsample);
+    }
+
+    /**
+     * Same rates as /get-exchange-rate, returned as an RSA+AES envelope (see {@link RSAUtil#envelopeEncrypt})
+     * under the base64 public key the client sends in the X-Public-Key header.
+     */
+    @GetMapping(value = "/get-exchange-rate", headers = PUBLIC_KEY_HEADER, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public StreamingResponseBody getEncryptedExchangeRateList(@RequestParam String currencyCode,
+                                                              @RequestParam(required = false) Integer maxPoints,
+                                                              @RequestParam(defaultValue = "LTTB") Downsampler.Mode downsample,
+                                                              @RequestHeader(PUBLIC_KEY_HEADER) String publicKeyBase64) {
+        // resolve the key and check the currency before the response is committed, so those failures still get an
+        // error response; the rows themselves are encrypted as they are read
+        PublicKey publicKey = parsePublicKey(publicKeyBase64);
+        currencyService.getLatestExchangeRate(currencyCode);
+        return out -> {
+            try (OutputStream envelope = RSAUtil.envelopeEncrypt(StreamUtils.nonClosing(out), publicKey)) {
+                writeExchangeRates(envelope, currencyCode, maxPoints, downsample);
+            }
+        };
+    }
+
+    @GetMapping(value = "/latest", params = "currencyCode")
+    public CurrencyExchangeRateDto getLatestExchangeRate(@RequestParam String currencyCode) {
+        return currencyService.getLatestExchangeRate(currencyCode);
+    }
+
+    @GetMapping("/latest")
+    public List<CurrencyExchangeRateDto> getLatestExchangeRates() {
+        return currencyService.getLatestExchangeRates();
+    }
+
+    @GetMapping(value = "/get-exchange-rate/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamExchangeRateList(@RequestParam String currencyCode,
+                                                        @RequestParam(required = false) Integer maxPoints,
+                                                        @RequestParam(defaultValue = "LTTB") Downsampler.Mode downsample) {
+        // an unknown currency fails here, while an error response can still be sent, as /get-exchange-rate does
+        currencyService.getLatestExchangeRate(currencyCode);
+        return out -> writeExchangeRates(out, currencyCode, maxPoints, downsample);
+    }
+
+    private void writeExchangeRates(OutputStream out, String currencyCode, Integer maxPoints, Downsampler.Mode downsample) {
+        writeJsonArray(out, writer -> {
+            if (maxPoints == null) {
+                currencyService.forEachExchangeRate(currencyCode, writer);
+            } else {
+                currencyService.forEachExchangeRate(currencyCode, maxPoints, downsample, writer);
+            }
+        });
+    }
+
+    // writes each row the source hands over as soon as it is produced
+    private void writeJsonArray(OutputStream out, Consumer<Consumer<CurrencyExchangeRateDto>> source) {
+        try (JsonGenerator generator = jsonMapper.createGenerator(out)) {
+            generator.writeStartArray();
+            source.accept(dto -> jsonMapper.writeValue(generator, dto));
+            generator.writeEndArray();
+        }
+    }
+
+    @GetMapping("/get-exchange-rate/page")
+    public RatePageResponse getExchangeRatePage(@RequestParam String currencyCode,
+                                                @RequestParam(required = false) String from,
+                                                @RequestParam(required = false) String to,
+                                                @RequestParam(defaultValue = "100") int limit,
+                                                @RequestParam(required = false) String cursor) {
+        return currencyService.getExchangeRatePage(currencyCode,
+                from == null ? null : parseDateTime(from),
+                to == null ? null : parseDateTime(to),
+                limit, cursor);
+    }
+
+    @GetMapping("/get-exchange-rate/rollup")
+    public List<RateRollupDto> getExchangeRateRollup(@RequestParam String currencyCode,
+                                                     @RequestParam(defaultValue = "DAY") RollupResolution resolution,
+                                                     @RequestParam(required = false) String from,
+                                                     @RequestParam(required = false) String to) {
+        return rollupService.getRollups(currencyCode, resolution,
+                from == null ? null : parseDateTime(from),
+                to == null ? null : parseDateTime(to));
     }
 
     @GetMapping("/get-exchange-rate-at-time")
     public CurrencyExchangeRateDto getExchangeRateAtTime(@RequestParam String currencyCode, @RequestParam String time) {
-        if (!CheckDateUtil.isValid(time)) {
-            throw new IllegalArgumentException(messageSource.getMessage("wrongDateFormat", null, LocaleContextHolder.getLocale()));
-        }
-        return currencyService.getExchangeRateAtTime(currencyCode, time);
+        return currencyService.getExchangeRateAtTime(currencyCode, parseDateTime(time));
+    }
+
+    @GetMapping("/get-exchange-rate-as-of")
+    public CurrencyExchangeRateDto getExchangeRateAsOf(@RequestParam String currencyCode, @RequestParam String time,
+                                                       @RequestParam(defaultValue = "FLOOR") CurrencyService.AsOfMode mode) {
+        return currencyService.getExchangeRateAsOf(currencyCode, parseDateTime(time), mode);
+    }
+
+    /**
+     * Many as-of lookups in one call, answered in request order; see {@link CurrencyService#getExchangeRatesAsOf}.
+     */
+    @PostMapping("/get-exchange-rate-as-of/batch")
+    public List<CurrencyExchangeRateDto> getExchangeRatesAsOf(@RequestBody List<AsOfQuery> queries,
+                                                              @RequestParam(defaultValue = "FLOOR") CurrencyService.AsOfMode mode) {
+        List<CurrencyService.AsOfKey> keys = queries.stream()
+                .map(query -> new CurrencyService.AsOfKey(query.getCurrencyCode(), parseDateTime(query.getTime())))
+                .toList();
+        return currencyService.getExchangeRatesAsOf(keys, mode);
+    }
+
+    @GetMapping(value = "/get-cross-rate", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody getCrossRates(@RequestParam String currencyCode,
+                                               @RequestParam String quoteCurrencyCode,
+                                               @RequestParam(required = false) String from,
+                                               @RequestParam(required = false) String to) {
+        LocalDateTime fromTime = from == null ? null : parseDateTime(from);
+        LocalDateTime toTime = to == null ? null : parseDateTime(to);
+        // a bad pair fails here, while an error response can still be sent
+        crossRateService.checkPair(currencyCode, quoteCurrencyCode);
+        return out -> writeJsonArray(out, writer ->
+                crossRateService.forEachCrossRate(currencyCode, quoteCurrencyCode, fromTime, toTime, writer));
+    }
+
+    @GetMapping("/get-cross-rate-at-time")
+    public CurrencyExchangeRateDto getCrossRateAtTime(@RequestParam String currencyCode,
+                                                      @RequestParam String quoteCurrencyCode,
+                                                      @RequestParam String time) {
+        return crossRateService.getCrossRateAtTime(currencyCode, quoteCurrencyCode, parseDateTime(time));
+    }
+
+    @GetMapping("/get-cross-rate/matrix")
+    public CrossRateMatrixResponse getCrossRateMatrix() {
+        return crossRateService.getLatestMatrix();
     }
 
     @PostMapping("/modify-exchange-rate")
     public CurrencyExchangeRate modifyExchangeRate(@RequestParam String currencyCode, @RequestParam String update_time, @RequestBody RateDto rate) {
-        if (!CheckDateUtil.isValid(update_time)) {
-            throw new IllegalArgumentException(messageSource.getMessage("wrongDateFormat", null, LocaleContextHolder.getLocale()));
-        }
-        return currencyService.updateExchangeRate(currencyCode, update_time, rate);
+        return currencyService.updateExchangeRate(currencyCode, parseDateTime(update_time), rate);
     }
 
     @GetMapping(value = "/get-fxds-exchange-rate", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<CurrencyExchangeRateDto> getFxdsExchangeRateList(@RequestParam String currencyCode, @RequestParam String updateTime) {
-        if (!CheckDateUtil.isValid(updateTime)) {
-            throw new IllegalArgumentException(messageSource.getMessage("wrongDateFormat", null, LocaleContextHolder.getLocale()));
-        }
-        DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss");
-        LocalDate startDate = LocalDate.parse(updateTime, FMT);
-        LocalDate endDate = LocalDate.parse(updateTime, FMT).plusDays(1);
+    public CompletableFuture<List<CurrencyExchangeRateDto>> getFxdsExchangeRateList(@RequestParam String currencyCode, @RequestParam String updateTime) {
+        LocalDate startDate = parseDateTime(updateTime).toLocalDate();
+        LocalDate endDate = startDate.plusDays(1);
 
-        return clientService.getCurrencyExchangeRates(currencyCode, startDate, endDate);
+        return fxdsRateService.getExchangeRates(currencyCode, startDate, endDate);
 
     }
 
     @GetMapping(value = "/call-fxds-exchange-rate", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<CurrencyExchangeRateDto> callFxdsExchangeRateList(@RequestParam String currencyCode, @RequestParam String startDate, String endDate) {
-        if (!CheckDateUtil.isValid(startDate) || !CheckDateUtil.isValid(endDate)) {
-            throw new IllegalArgumentException(messageSource.getMessage("wrongDateFormat", null, LocaleContextHolder.getLocale()));
-        }
-        DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss");
-        LocalDate start = LocalDate.parse(startDate, FMT);
-        LocalDate end = LocalDate.parse(endDate, FMT);
-        return clientService.getCurrencyExchangeRates(currencyCode, start, end);
+    public CompletableFuture<List<CurrencyExchangeRateDto>> callFxdsExchangeRateList(@RequestParam String currencyCode, @RequestParam String startDate, String endDate) {
+        LocalDate start = parseDateTime(startDate).toLocalDate();
+        LocalDate end = parseDateTime(endDate).toLocalDate();
+        return clientService.getCurrencyExchangeRatesAsync(currencyCode, start, end);
     }
 
     @DeleteMapping("/delete-exchange-rate")
@@ -102,7 +258,7 @@ public class CurrencyController {
 
     @DeleteMapping("/delete-exchange-rate-at-time")
     public void deleteExchangeRateAtTime(@RequestParam String currencyCode, @RequestParam String update_time) {
-        currencyService.deleteExchangeRateAtTime(currencyCode, update_time);
+        currencyService.deleteExchangeRateAtTime(currencyCode, parseDateTime(update_time));
     }
 
     @GetMapping("/rsa/encrypt")
@@ -111,16 +267,21 @@ public class CurrencyController {
     }
 
     @GetMapping("/get-exchange-rate-with-encrypt-currency-code")
-    public List<CurrencyExchangeRateDto> rsaDecrypt(@RequestBody String cipher) {
-        String currencyCode = RSAUtil.decrypt(cipher, RSAUtil.privateKeyFromBase64(lastPrivateKeyBase64));
+    public List<CurrencyExchangeRateDto> rsaDecrypt(@RequestBody String cipher, @RequestParam(required = false) String keyId) {
+        // a missing keyId is rejected by the keyring with a localised message rather than by binding
+        String currencyCode = rsaKeyringService.decrypt(keyId, cipher);
         return currencyService.getExchangeRate(currencyCode);
     }
 
     @GetMapping("/rsa/generate")
     public PublicKeyResponse rsaGenerate() {
-        KeyPair kp = RSAUtil.generateKeyPair(2048);
-        lastPrivateKeyBase64 = RSAUtil.privateKeyToBase64(kp.getPrivate());
-        return new PublicKeyResponse(RSAUtil.publicKeyToBase64(kp.getPublic()));
+        RsaKeyringService.IssuedKey key = rsaKeyringService.issue();
+        return new PublicKeyResponse(key.publicKeyBase64(), key.keyId());
+    }
+
+    @GetMapping("/cache-stats")
+    public CacheStatsResponse getCacheStats() {
+        return currencyService.getCacheStats();
     }
 
     @PostMapping("/change-locale")
@@ -129,4 +290,29 @@ public class CurrencyController {
         localeResolver.setLocale(request, response, loc);
     }
 
+    private List<CurrencyExchangeRateDto> getExchangeRates(String currencyCode, Integer maxPoints, Downsampler.Mode downsample) {
+        return maxPoints == null
+                ? currencyService.getExchangeRate(currencyCode)
+                : currencyService.getExchangeRate(currencyCode, maxPoints, downsample);
+    }
+
+    /**
+     * Validates and parses a yyyy/MM/dd HH:mm:ss request value in one pass; the parsed value is what reaches the service.
+     */
+    private LocalDateTime parseDateTime(String value) {
+        LocalDateTime dateTime = CheckDateUtil.parseOrNull(value);
+        if (dateTime == null) {
+            throw new IllegalArgumentException(messageSource.getMessage("wrongDateFormat", null, LocaleContextHolder.getLocale()));
+        }
+        return dateTime;
+    }
+
+    private PublicKey parsePublicKey(String base64) {
+        PublicKey publicKey = RSAUtil.publicKeyFromBase64OrNull(base64);
+        if (publicKey == null) {
+            throw new IllegalArgumentException(messageSource.getMessage("rsaPublicKeyInvalid", null, LocaleContextHolder.getLocale()));
+        }
+        return publicKey;
+    }
+
 }
@@ -0,0 +1,20 @@
+package com.example.currency_exchange.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AsOfQuery {
+
+    @JsonProperty("currencyCode")
+    private String currencyCode;
+
+    @JsonProperty("time")
+    private String time;
+}
@@ -0,0 +1,56 @@
+package com.example.currency_exchange.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class BulkIngestResponse {
+
+    @JsonProperty("inserted")
+    private int inserted;
+
+    @JsonProperty("skipped")
+    private int skipped;
+
+    @JsonProperty("failed")
+    private int failed;
+
+    /**
+     * Set when the body stopped being readable; the chunks listed before it were still processed.
+     */
+    @JsonProperty("error")
+    private String error;
+
+    @JsonProperty("chunks")
+    private List<ChunkResult> chunks = new ArrayList<>();
+
+    public void addChunk(ChunkResult chunk) {
+        chunks.add(chunk);
+        inserted += chunk.getInserted();
+        skipped += chunk.getSkipped();
+        failed += chunk.getFailed();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ChunkResult {
+        @JsonProperty("chunk")
+        private int chunk;
+
+        @JsonProperty("inserted")
+        private int inserted;
+
+        @JsonProperty("skipped")
+        private int skipped;
+
+        @JsonProperty("failed")
+        private int failed;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.currency_exchange.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRateEntry {
+
+    @JsonProperty("currencyCode")
+    private String currencyCode;
+
+    @JsonProperty("update_time")
+    private String updateTime;
+
+    @JsonProperty("rate")
+    private RateDto rate;
+}
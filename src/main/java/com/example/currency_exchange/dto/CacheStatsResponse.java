@@ -0,0 +1,32 @@
+package com.example.currency_exchange.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CacheStatsResponse {
+
+    @JsonProperty("rate_at_time")
+    private Entry rateAtTime;
+
+    @JsonProperty("rate_series")
+    private Entry rateSeries;
+
+    @Data
+    @AllArgsConstructor
+    public static class Entry {
+        @JsonProperty("hit_count")
+        private long hitCount;
+
+        @JsonProperty("miss_count")
+        private long missCount;
+
+        @JsonProperty("eviction_count")
+        private long evictionCount;
+
+        @JsonProperty("size")
+        private long size;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.currency_exchange.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CrossRateMatrixResponse {
+
+    @JsonProperty("currencies")
+    private List<String> currencies;
+
+    // base currency -> quote currency -> latest cross rate
+    @JsonProperty("rates")
+    private Map<String, Map<String, CurrencyExchangeRateDto>> rates;
+}
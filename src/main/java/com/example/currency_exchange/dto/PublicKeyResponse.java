@@ -7,4 +7,5 @@ import lombok.Data;
 @Data
 public class PublicKeyResponse {
     public String publicKey;
+    public String keyId;
 }
@@ -0,0 +1,21 @@
+package com.example.currency_exchange.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RatePageResponse {
+
+    @JsonProperty("items")
+    private List<CurrencyExchangeRateDto> items;
+
+    // opaque, pass back as cursor to get the next page; null on the last page
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+}
@@ -0,0 +1,66 @@
+package com.example.currency_exchange.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RateRollupDto {
+
+    @JsonProperty("base_currency")
+    private String baseCurrency;
+
+    @JsonProperty("quote_currency")
+    private String quoteCurrency;
+
+    @JsonProperty("resolution")
+    private String resolution;
+
+    @JsonProperty("bucket_start")
+    private String bucketStart;
+
+    @JsonProperty("open_time")
+    private String openTime;
+
+    @JsonProperty("open_bid")
+    private String openBid;
+
+    @JsonProperty("open_ask")
+    private String openAsk;
+
+    @JsonProperty("close_time")
+    private String closeTime;
+
+    @JsonProperty("close_bid")
+    private String closeBid;
+
+    @JsonProperty("close_ask")
+    private String closeAsk;
+
+    @JsonProperty("low_bid")
+    private String lowBid;
+
+    @JsonProperty("low_ask")
+    private String lowAsk;
+
+    @JsonProperty("high_bid")
+    private String highBid;
+
+    @JsonProperty("high_ask")
+    private String highAsk;
+
+    // mean of the bucket's average_bid / average_ask
+    @JsonProperty("average_bid")
+    private String averageBid;
+
+    @JsonProperty("average_ask")
+    private String averageAsk;
+
+    @JsonProperty("count")
+    private long count;
+}
@@ -3,15 +3,18 @@ package com.example.currency_exchange.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+/**
+ * One base→USD rate. Prices are {@link com.example.currency_exchange.util.FixedPoint} longs.
+ */
 @Entity
 @Table(name = "currency_exchange_rate")
 @Data
 public class CurrencyExchangeRate {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "currency_exchange_rate_seq")
+    @SequenceGenerator(name = "currency_exchange_rate_seq", sequenceName = "currency_exchange_rate_seq", allocationSize = 500)
     @Column(name = "id", nullable = false)
     private Long id;
 
@@ -25,21 +28,27 @@ public class CurrencyExchangeRate {
     private LocalDateTime updateTime;
 
     @Column(name = "average_bid")
-    private BigDecimal averageBid;
+    @Convert(converter = FixedPointConverter.class)
+    private Long averageBid;
 
     @Column(name = "average_ask")
-    private BigDecimal averageAsk;
+    @Convert(converter = FixedPointConverter.class)
+    private Long averageAsk;
 
     @Column(name = "high_bid")
-    private BigDecimal highBid;
+    @Convert(converter = FixedPointConverter.class)
+    private Long highBid;
 
     @Column(name = "high_ask")
-    private BigDecimal highAsk;
+    @Convert(converter = FixedPointConverter.class)
+    private Long highAsk;
 
     @Column(name = "low_bid")
-    private BigDecimal lowBid;
+    @Convert(converter = FixedPointConverter.class)
+    private Long lowBid;
 
     @Column(name = "low_ask")
-    private BigDecimal lowAsk;
+    @Convert(converter = FixedPointConverter.class)
+    private Long lowAsk;
 
 }
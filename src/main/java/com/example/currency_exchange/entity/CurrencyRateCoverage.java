@@ -0,0 +1,41 @@
+package com.example.currency_exchange.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * A (base, quote, day) whose rates were fully fetched from FXDS and stored, so it can be served from the database.
+ */
+@Entity
+@Table(name = "currency_rate_coverage")
+@IdClass(CurrencyRateCoverage.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CurrencyRateCoverage {
+    @Id
+    @Column(name = "base_currency", nullable = false)
+    private String baseCurrency;
+
+    @Id
+    @Column(name = "quote_currency", nullable = false)
+    private String quoteCurrency;
+
+    @Id
+    @Column(name = "covered_day", nullable = false)
+    private LocalDate coveredDay;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String baseCurrency;
+        private String quoteCurrency;
+        private LocalDate coveredDay;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.currency_exchange.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * OHLC summary of the rates of one (base, quote) in one hour, day or week bucket.
+ * <p>
+ * Open and close are the average bid/ask of the first and last rate in the bucket. Prices are
+ * {@link com.example.currency_exchange.util.FixedPoint} longs; the mean is kept as a sum, which can outgrow a long,
+ * and a row count and divided on read. Rows are written only by the native statements of
+ * {@link com.example.currency_exchange.repo.CurrencyRateRollupRepos}.
+ */
+@Entity
+@Table(name = "currency_rate_rollup")
+@IdClass(CurrencyRateRollup.Key.class)
+@Data
+@NoArgsConstructor
+public class CurrencyRateRollup {
+    @Id
+    @Column(name = "base_currency", nullable = false)
+    private String baseCurrency;
+
+    @Id
+    @Column(name = "quote_currency", nullable = false)
+    private String quoteCurrency;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "resolution", nullable = false)
+    private RollupResolution resolution;
+
+    @Id
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "open_time")
+    private LocalDateTime openTime;
+
+    @Column(name = "open_bid")
+    @Convert(converter = FixedPointConverter.class)
+    private Long openBid;
+
+    @Column(name = "open_ask")
+    @Convert(converter = FixedPointConverter.class)
+    private Long openAsk;
+
+    @Column(name = "close_time")
+    private LocalDateTime closeTime;
+
+    @Column(name = "close_bid")
+    @Convert(converter = FixedPointConverter.class)
+    private Long closeBid;
+
+    @Column(name = "close_ask")
+    @Convert(converter = FixedPointConverter.class)
+    private Long closeAsk;
+
+    @Column(name = "low_bid")
+    @Convert(converter = FixedPointConverter.class)
+    private Long lowBid;
+
+    @Column(name = "low_ask")
+    @Convert(converter = FixedPointConverter.class)
+    private Long lowAsk;
+
+    @Column(name = "high_bid")
+    @Convert(converter = FixedPointConverter.class)
+    private Long highBid;
+
+    @Column(name = "high_ask")
+    @Convert(converter = FixedPointConverter.class)
+    private Long highAsk;
+
+    @Column(name = "sum_average_bid")
+    private BigDecimal sumAverageBid;
+
+    @Column(name = "sum_average_ask")
+    private BigDecimal sumAverageAsk;
+
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String baseCurrency;
+        private String quoteCurrency;
+        private RollupResolution resolution;
+        private LocalDateTime bucketStart;
+    }
+}
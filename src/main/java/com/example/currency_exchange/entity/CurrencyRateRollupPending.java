@@ -0,0 +1,45 @@
+package com.example.currency_exchange.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * An hour of a currency whose rollups a committed write has not refreshed yet. Written with the rates, removed by the
+ * refresh; rows left behind by a failed refresh are picked up by the rollup reconciliation.
+ */
+@Entity
+@Table(name = "currency_rate_rollup_pending")
+@IdClass(CurrencyRateRollupPending.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CurrencyRateRollupPending {
+    @Id
+    @Column(name = "base_currency", nullable = false)
+    private String baseCurrency;
+
+    @Id
+    @Column(name = "hour_start", nullable = false)
+    private LocalDateTime hourStart;
+
+    @Id
+    @Column(name = "write_id", nullable = false)
+    private String writeId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String baseCurrency;
+        private LocalDateTime hourStart;
+        private String writeId;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.currency_exchange.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Last update_time ingested by the sync job for a (base, quote) pair.
+ */
+@Entity
+@Table(name = "currency_sync_checkpoint")
+@IdClass(CurrencySyncCheckpoint.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CurrencySyncCheckpoint {
+    @Id
+    @Column(name = "base_currency", nullable = false)
+    private String baseCurrency;
+
+    @Id
+    @Column(name = "quote_currency", nullable = false)
+    private String quoteCurrency;
+
+    @Column(name = "last_update_time", nullable = false)
+    private LocalDateTime lastUpdateTime;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String baseCurrency;
+        private String quoteCurrency;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.currency_exchange.entity;
+
+import com.example.currency_exchange.util.FixedPoint;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Maps a {@link FixedPoint} price to its DECIMAL(20,10) column. The JDBC driver only binds and reads the column as
+ * a {@link BigDecimal}, so that is the one place a price is one.
+ */
+@Converter
+public class FixedPointConverter implements AttributeConverter<Long, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long price) {
+        return price == null ? null : FixedPoint.toBigDecimal(price);
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal column) {
+        return column == null ? null : FixedPoint.valueOf(column);
+    }
+}
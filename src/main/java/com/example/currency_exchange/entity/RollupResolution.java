@@ -0,0 +1,42 @@
+package com.example.currency_exchange.entity;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Bucket sizes of {@link CurrencyRateRollup}. Weeks start on Monday (ISO).
+ */
+public enum RollupResolution {
+    HOUR,
+    DAY,
+    WEEK;
+
+    public LocalDateTime bucketStart(LocalDateTime time) {
+        return switch (this) {
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+            case WEEK -> time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        };
+    }
+
+    /**
+     * The resolution whose buckets tile this one, or null for hours, which are built from the rates.
+     */
+    public RollupResolution finer() {
+        return switch (this) {
+            case HOUR -> null;
+            case DAY -> HOUR;
+            case WEEK -> DAY;
+        };
+    }
+
+    public LocalDateTime nextBucketStart(LocalDateTime bucketStart) {
+        return switch (this) {
+            case HOUR -> bucketStart.plusHours(1);
+            case DAY -> bucketStart.plusDays(1);
+            case WEEK -> bucketStart.plusWeeks(1);
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.currency_exchange.filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Hands log entries from request threads to a single background thread through a bounded queue.
+ * When the queue is full entries are dropped and counted rather than slowing requests down.
+ */
+class AsyncRequestLogWriter<T> implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncRequestLogWriter.class);
+
+    private final BlockingQueue<T> queue;
+    private final Consumer<T> sink;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread worker;
+
+    AsyncRequestLogWriter(String name, int capacity, Consumer<T> sink) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.sink = sink;
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Queues the entry without blocking; returns false when it was dropped.
+     */
+    boolean offer(T entry) {
+        if (queue.offer(entry)) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                write(queue.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // drain what was queued before shutdown
+        T entry;
+        while ((entry = queue.poll()) != null) {
+            write(entry);
+        }
+    }
+
+    private void write(T entry) {
+        long droppedSoFar = dropped.getAndSet(0);
+        if (droppedSoFar > 0) {
+            logger.warn("Dropped {} request log entries, queue was full", droppedSoFar);
+        }
+        try {
+            sink.accept(entry);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to write request log entry", e);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+}
@@ -6,100 +6,195 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.web.util.ContentCachingRequestWrapper;
-import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.Enumeration;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Logs sampled requests and responses of the paths selected by include/exclude patterns.
+ * <p>
+ * Only a bounded prefix of each body is kept: the request side through {@link ContentCachingRequestWrapper}'s limit,
+ * the response side through {@link TeeResponseWrapper}, which writes through instead of buffering the whole body.
+ * The request thread takes a raw snapshot; decoding and formatting happen on a background thread.
+ */
 @Component
 public class LoggingFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(LoggingFilter.class);
-    private static final int MAX_PAYLOAD_LENGTH = 4096;
+    private static final String EXCHANGE_ATTRIBUTE = LoggingFilter.class.getName() + ".EXCHANGE";
+
+    private final double sampleRate;
+    private final List<String> includePaths;
+    private final List<String> excludePaths;
+    private final int maxPayloadLength;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final AsyncRequestLogWriter<Entry> logWriter;
+
+    public LoggingFilter(@Value("${http.logging.sample-rate:1.0}") double sampleRate,
+                         @Value("${http.logging.include-paths:}") List<String> includePaths,
+                         @Value("${http.logging.exclude-paths:}") List<String> excludePaths,
+                         @Value("${http.logging.max-payload-length:4096}") int maxPayloadLength,
+                         @Value("${http.logging.queue-capacity:10000}") int queueCapacity) {
+        this.sampleRate = sampleRate;
+        this.includePaths = includePaths;
+        this.excludePaths = excludePaths;
+        this.maxPayloadLength = maxPayloadLength;
+        this.logWriter = new AsyncRequestLogWriter<>("http-log-writer", queueCapacity, LoggingFilter::write);
+    }
+
+    // async handlers (CompletableFuture, StreamingResponseBody) finish on the async dispatch, log there
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!logger.isInfoEnabled()) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!includePaths.isEmpty() && includePaths.stream().noneMatch(pattern -> pathMatcher.match(pattern, path))) {
+            return true;
+        }
+        return excludePaths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        // wrap request/response to cache payloads
-        ContentCachingRequestWrapper wrappedRequest = new ContentCachingRequestWrapper(request, MAX_PAYLOAD_LENGTH);
-        ContentCachingResponseWrapper wrappedResponse = new ContentCachingResponseWrapper(response);
+        if (isAsyncDispatch(request)) {
+            // the initial dispatch left its wrappers behind, if it was sampled
+            Exchange exchange = (Exchange) request.getAttribute(EXCHANGE_ATTRIBUTE);
+            try {
+                filterChain.doFilter(request, response);
+            }
+            finally {
+                if (exchange != null && !isAsyncStarted(request)) {
+                    complete(exchange);
+                }
+            }
+            return;
+        }
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            filterChain.doFilter(request, response);
+            return;
+        }
 
+        Exchange exchange = new Exchange(new ContentCachingRequestWrapper(request, maxPayloadLength),
+                new TeeResponseWrapper(response, maxPayloadLength), System.nanoTime());
         try {
-            filterChain.doFilter(wrappedRequest, wrappedResponse);
+            filterChain.doFilter(exchange.request(), exchange.response());
         }
         finally {
-            logRequest(wrappedRequest);
-            logResponse(wrappedResponse);
-            wrappedResponse.copyBodyToResponse();
+            if (isAsyncStarted(request)) {
+                request.setAttribute(EXCHANGE_ATTRIBUTE, exchange);
+            } else {
+                complete(exchange);
+            }
         }
     }
 
-    private void logRequest(ContentCachingRequestWrapper request) {
-        String method = request.getMethod();
-        String path = request.getRequestURI();
-        String query = request.getQueryString();
-        String headers = getHeaders(request);
-        String payload = getRequestPayload(request);
-
-        logger.info("Incoming request: method={} path={} query={} headers={} payload={}",
-                method, path, query, headers, payload);
+    private void complete(Exchange exchange) {
+        ContentCachingRequestWrapper request = exchange.request();
+        TeeResponseWrapper response = exchange.response();
+        response.flushWriter();
+        byte[] requestBody = request.getContentAsByteArray();
+        logWriter.offer(new Entry(request.getMethod(), request.getRequestURI(), request.getQueryString(),
+                snapshotHeaders(request), requestBody, Math.max(request.getContentLengthLong(), requestBody.length),
+                request.getCharacterEncoding(),
+                response.getStatus(), response.getPrefix(), response.getTotalLength(), response.getCharacterEncoding(),
+                System.nanoTime() - exchange.startNanos()));
     }
 
-    private void logResponse(ContentCachingResponseWrapper response) {
-        int status = response.getStatus();
-        String payload = getResponsePayload(response);
+    private static List<String> snapshotHeaders(HttpServletRequest request) {
+        List<String> headers = new ArrayList<>();
+        Enumeration<String> names = request.getHeaderNames();
+        while (names != null && names.hasMoreElements()) {
+            String name = names.nextElement();
+            Enumeration<String> values = request.getHeaders(name);
+            while (values.hasMoreElements()) {
+                headers.add(name);
+                headers.add(values.nextElement());
+            }
+        }
+        return headers;
+    }
 
-        logger.info("Outgoing response: status={} payload={}", status, payload);
+    private static void write(Entry entry) {
+        logger.info("Incoming request: method={} path={} query={} headers={} payload={}",
+                entry.method(), entry.path(), entry.query(), formatHeaders(entry.headers()),
+                formatPayload(entry.requestBody(), entry.requestLength(), entry.requestEncoding()));
+        logger.info("Outgoing response: status={} took={}ms payload={}", entry.status(),
+                TimeUnit.NANOSECONDS.toMillis(entry.tookNanos()),
+                formatPayload(entry.responsePrefix(), entry.responseLength(), entry.responseEncoding()));
     }
 
-    private String getHeaders(HttpServletRequest request) {
-        Enumeration<String> headerNames = request.getHeaderNames();
-        if (headerNames == null) {
-            return "";
+    private static String formatHeaders(List<String> headers) {
+        StringBuilder sb = new StringBuilder();
+        String previous = null;
+        for (int i = 0; i < headers.size(); i += 2) {
+            String name = headers.get(i);
+            if (name.equals(previous)) {
+                sb.append(',');
+            } else {
+                if (previous != null) {
+                    sb.append("; ");
+                }
+                sb.append(name).append('=');
+                previous = name;
+            }
+            sb.append(headers.get(i + 1));
         }
-        return Collections.list(headerNames).stream()
-                .map(name -> name + "=" +
-                             Collections.list(request.getHeaders(name)).stream().collect(Collectors.joining(",")))
-                .collect(Collectors.joining("; "));
+        return sb.toString();
     }
 
-    private String getRequestPayload(ContentCachingRequestWrapper request) {
-        byte[] buf = request.getContentAsByteArray();
-        if (buf == null || buf.length == 0) {
+    private static String formatPayload(byte[] prefix, long totalLength, String encoding) {
+        if (prefix.length == 0) {
             return "";
         }
-        int length = Math.min(buf.length, MAX_PAYLOAD_LENGTH);
-        String payload = new String(buf, 0, length, getCharset(request.getCharacterEncoding()));
-        if (buf.length > MAX_PAYLOAD_LENGTH) {
-            payload += "...(truncated " + buf.length + " bytes)";
+        String payload = new String(prefix, getCharset(encoding));
+        if (totalLength > prefix.length) {
+            payload += "...(truncated " + totalLength + " bytes)";
         }
         return payload;
     }
 
-    private String getResponsePayload(ContentCachingResponseWrapper response) {
-        byte[] buf = response.getContentAsByteArray();
-        if (buf == null || buf.length == 0) {
-            return "";
+    private static Charset getCharset(String encoding) {
+        try {
+            return encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
         }
-        int length = Math.min(buf.length, MAX_PAYLOAD_LENGTH);
-        String payload = new String(buf, 0, length, getCharset(response.getCharacterEncoding()));
-        if (buf.length > MAX_PAYLOAD_LENGTH) {
-            payload += "...(truncated " + buf.length + " bytes)";
+        catch (Exception e) {
+            return StandardCharsets.UTF_8;
         }
-        return payload;
     }
 
-    private java.nio.charset.Charset getCharset(String encoding) {
+    @Override
+    public void destroy() {
         try {
-            return encoding == null ? StandardCharsets.UTF_8 : java.nio.charset.Charset.forName(encoding);
+            logWriter.close();
         }
-        catch (Exception e) {
-            return StandardCharsets.UTF_8;
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
+
+    private record Exchange(ContentCachingRequestWrapper request, TeeResponseWrapper response, long startNanos) {
+    }
+
+    private record Entry(String method, String path, String query, List<String> headers,
+                         byte[] requestBody, long requestLength, String requestEncoding,
+                         int status, byte[] responsePrefix, long responseLength, String responseEncoding,
+                         long tookNanos) {
+    }
 }
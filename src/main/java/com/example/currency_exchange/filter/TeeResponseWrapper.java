@@ -0,0 +1,122 @@
+package com.example.currency_exchange.filter;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Response wrapper that writes straight through to the client and keeps a copy of only the first bytes of the body,
+ * so logging never holds a whole response in memory and streamed responses keep streaming.
+ */
+class TeeResponseWrapper extends HttpServletResponseWrapper {
+
+    private final byte[] prefix;
+    private int prefixLength;
+    private long totalLength;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    TeeResponseWrapper(HttpServletResponse response, int maxPrefixLength) {
+        super(response);
+        this.prefix = new byte[maxPrefixLength];
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new TeeOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), Charset.forName(getCharacterEncoding())));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        flushWriter();
+        super.flushBuffer();
+    }
+
+    /**
+     * Pushes characters still buffered in the writer down to the client; call once the handler is done.
+     */
+    void flushWriter() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    byte[] getPrefix() {
+        return Arrays.copyOf(prefix, prefixLength);
+    }
+
+    long getTotalLength() {
+        return totalLength;
+    }
+
+    private void capture(byte[] b, int off, int len) {
+        totalLength += len;
+        int copy = Math.min(len, prefix.length - prefixLength);
+        if (copy > 0) {
+            System.arraycopy(b, off, prefix, prefixLength, copy);
+            prefixLength += copy;
+        }
+    }
+
+    private class TeeOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        TeeOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            totalLength++;
+            if (prefixLength < prefix.length) {
+                prefix[prefixLength++] = (byte) b;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            delegate.setWriteListener(listener);
+        }
+    }
+}
@@ -2,15 +2,23 @@ package com.example.currency_exchange.interceptor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.ClientHttpResponse;
-import org.springframework.util.StreamUtils;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 
+/**
+ * Logs outgoing requests and their responses. The response body is not buffered: it streams to the message converter
+ * through a tee that keeps the first bytes, and the response is logged when it is closed. With INFO off the response
+ * is passed on untouched.
+ */
 public class LoggingClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
 
     private static final Logger log = LoggerFactory.getLogger(LoggingClientHttpRequestInterceptor.class);
@@ -18,21 +26,123 @@ public class LoggingClientHttpRequestInterceptor implements ClientHttpRequestInt
 
     @Override
     public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        if (!log.isInfoEnabled()) {
+            return execution.execute(request, body);
+        }
         // Log request
-        if (log.isInfoEnabled()) {
-            String reqBody = body.length > 0 ? new String(body, StandardCharsets.UTF_8) : "<empty>";
-            log.info("Outgoing Request -> method={} uri={} headers={} body={}",
-                    request.getMethod(), request.getURI(), request.getHeaders(), reqBody);
+        String reqBody = body.length > 0 ? new String(body, 0, Math.min(body.length, MAX_PAYLOAD_LENGTH), StandardCharsets.UTF_8) : "<empty>";
+        log.info("Outgoing Request -> method={} uri={} headers={} body={}",
+                request.getMethod(), request.getURI(), request.getHeaders(), reqBody);
+
+        return new TeeClientHttpResponse(execution.execute(request, body));
+    }
+
+    private static final class TeeClientHttpResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final byte[] prefix = new byte[MAX_PAYLOAD_LENGTH];
+        private int prefixLength;
+        private long totalLength;
+        private InputStream body;
+        private boolean logged;
+
+        TeeClientHttpResponse(ClientHttpResponse delegate) {
+            this.delegate = delegate;
         }
 
-        ClientHttpResponse response = execution.execute(request, body);
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
 
-        byte[] respBody = StreamUtils.copyToByteArray(response.getBody());
-        String respBodyStr = respBody.length > 0 ? new String(respBody, StandardCharsets.UTF_8) : "<empty>";
-        log.info("Incoming Response <- status={} headers={} body={}",
-                response.getStatusCode(), response.getHeaders(), respBodyStr);
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
 
-        return response;
-    }
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = new TeeInputStream(delegate.getBody());
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            logResponse();
+            delegate.close();
+        }
+
+        private void capture(byte[] b, int off, int len) {
+            totalLength += len;
+            int copy = Math.min(len, prefix.length - prefixLength);
+            if (copy > 0) {
+                System.arraycopy(b, off, prefix, prefixLength, copy);
+                prefixLength += copy;
+            }
+        }
+
+        private void capture(int b) {
+            totalLength++;
+            if (prefixLength < prefix.length) {
+                prefix[prefixLength++] = (byte) b;
+            }
+        }
+
+        private void logResponse() {
+            if (logged) {
+                return;
+            }
+            logged = true;
+            String respBody = prefixLength > 0 ? new String(prefix, 0, prefixLength, StandardCharsets.UTF_8) : "<empty>";
+            if (totalLength > prefixLength) {
+                respBody += "...(truncated " + totalLength + " bytes)";
+            }
+            try {
+                log.info("Incoming Response <- status={} headers={} body={}",
+                        delegate.getStatusCode(), delegate.getHeaders(), respBody);
+            } catch (IOException e) {
+                log.info("Incoming Response <- status=<unavailable> headers={} body={}", delegate.getHeaders(), respBody);
+            }
+        }
 
+        private final class TeeInputStream extends FilterInputStream {
+
+            TeeInputStream(InputStream in) {
+                super(in);
+            }
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    capture(b);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    capture(b, off, n);
+                }
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                // route skipped bytes through read so they are counted
+                byte[] buffer = new byte[(int) Math.min(n, 8192)];
+                int read = read(buffer, 0, buffer.length);
+                return Math.max(read, 0);
+            }
+        }
+    }
 }
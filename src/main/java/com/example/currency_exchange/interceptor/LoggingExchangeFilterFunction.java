@@ -0,0 +1,30 @@
+package com.example.currency_exchange.interceptor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebClient counterpart of {@link LoggingClientHttpRequestInterceptor}. Logs request line and response status
+ * only, the body is decoded as it streams in and never buffered for logging.
+ */
+public class LoggingExchangeFilterFunction implements ExchangeFilterFunction {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingExchangeFilterFunction.class);
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!log.isInfoEnabled()) {
+            return next.exchange(request);
+        }
+        log.info("Outgoing Request -> method={} uri={} headers={}", request.method(), request.url(), request.headers());
+        long started = System.nanoTime();
+        return next.exchange(request).doOnNext(response ->
+                log.info("Incoming Response <- status={} uri={} headers={} in {} ms", response.statusCode(),
+                        request.url(), response.headers().asHttpHeaders(), (System.nanoTime() - started) / 1_000_000));
+    }
+}
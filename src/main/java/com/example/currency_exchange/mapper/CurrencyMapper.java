@@ -2,8 +2,10 @@ package com.example.currency_exchange.mapper;
 
 import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
 import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.util.FixedPoint;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.Named;
 
 @Mapper(componentModel = "spring")
 public interface CurrencyMapper {
@@ -11,11 +13,16 @@ public interface CurrencyMapper {
     @Mapping(source = "baseCurrency", target = "baseCurrency")
     @Mapping(source = "quoteCurrency", target = "quoteCurrency")
     @Mapping(source = "updateTime", target = "closeTime")
-    @Mapping(source = "averageBid", target = "averageBid")
-    @Mapping(source = "averageAsk", target = "averageAsk")
-    @Mapping(source = "highBid", target = "highBid")
-    @Mapping(source = "highAsk", target = "highAsk")
-    @Mapping(source = "lowBid", target = "lowBid")
-    @Mapping(source = "lowAsk", target = "lowAsk")
+    @Mapping(source = "averageBid", target = "averageBid", qualifiedByName = "price")
+    @Mapping(source = "averageAsk", target = "averageAsk", qualifiedByName = "price")
+    @Mapping(source = "highBid", target = "highBid", qualifiedByName = "price")
+    @Mapping(source = "highAsk", target = "highAsk", qualifiedByName = "price")
+    @Mapping(source = "lowBid", target = "lowBid", qualifiedByName = "price")
+    @Mapping(source = "lowAsk", target = "lowAsk", qualifiedByName = "price")
     CurrencyExchangeRateDto toDto(CurrencyExchangeRate entity);
+
+    @Named("price")
+    default String price(Long price) {
+        return price == null ? null : FixedPoint.format(price);
+    }
 }
@@ -0,0 +1,31 @@
+package com.example.currency_exchange.repo;
+
+import com.example.currency_exchange.entity.CurrencyRateCoverage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface CurrencyRateCoverageRepos extends JpaRepository<CurrencyRateCoverage, CurrencyRateCoverage.Key> {
+
+    @Query("SELECT c.coveredDay FROM CurrencyRateCoverage c WHERE c.baseCurrency = :base AND c.quoteCurrency = :quote"
+            + " AND c.coveredDay >= :from AND c.coveredDay < :to")
+    List<LocalDate> findCoveredDays(@Param("base") String baseCurrency, @Param("quote") String quoteCurrency,
+                                    @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Marks the day as covered in one statement; a day already marked is left as is.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "MERGE INTO currency_rate_coverage (base_currency, quote_currency, covered_day)"
+            + " KEY (base_currency, quote_currency, covered_day) VALUES (:base, :quote, :day)", nativeQuery = true)
+    void markCovered(@Param("base") String baseCurrency, @Param("quote") String quoteCurrency,
+                     @Param("day") LocalDate day);
+}
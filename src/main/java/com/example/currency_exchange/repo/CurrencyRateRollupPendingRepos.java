@@ -0,0 +1,38 @@
+package com.example.currency_exchange.repo;
+
+import com.example.currency_exchange.entity.CurrencyRateRollupPending;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CurrencyRateRollupPendingRepos extends JpaRepository<CurrencyRateRollupPending, CurrencyRateRollupPending.Key> {
+
+    // a plain insert: the key is unique per write, so it never waits on another writer
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO currency_rate_rollup_pending (base_currency, hour_start, write_id, created_at)"
+            + " VALUES (:base, :hourStart, :writeId, :createdAt)", nativeQuery = true)
+    void markPending(@Param("base") String baseCurrency, @Param("hourStart") LocalDateTime hourStart,
+                     @Param("writeId") String writeId, @Param("createdAt") LocalDateTime createdAt);
+
+    @Query("SELECT p FROM CurrencyRateRollupPending p WHERE p.createdAt < :before ORDER BY p.baseCurrency, p.hourStart")
+    List<CurrencyRateRollupPending> findCreatedBefore(@Param("before") LocalDateTime before, Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CurrencyRateRollupPending p WHERE p.baseCurrency = :base AND p.hourStart = :hourStart")
+    void deleteHour(@Param("base") String baseCurrency, @Param("hourStart") LocalDateTime hourStart);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CurrencyRateRollupPending p WHERE p.baseCurrency = :base")
+    void deleteByBaseCurrency(@Param("base") String baseCurrency);
+}
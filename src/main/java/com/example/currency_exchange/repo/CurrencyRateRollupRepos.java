@@ -0,0 +1,92 @@
+package com.example.currency_exchange.repo;
+
+import com.example.currency_exchange.entity.CurrencyRateRollup;
+import com.example.currency_exchange.entity.RollupResolution;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CurrencyRateRollupRepos extends JpaRepository<CurrencyRateRollup, CurrencyRateRollup.Key> {
+
+    @Query("SELECT r FROM CurrencyRateRollup r WHERE r.baseCurrency = :base AND r.quoteCurrency = :quote"
+            + " AND r.resolution = :resolution AND r.bucketStart >= :from AND r.bucketStart < :to ORDER BY r.bucketStart")
+    List<CurrencyRateRollup> findRange(@Param("base") String baseCurrency, @Param("quote") String quoteCurrency,
+                                       @Param("resolution") RollupResolution resolution,
+                                       @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // creates the bucket if missing and row-locks it until the transaction ends, so concurrent refreshes of one bucket
+    // run one after the other; the placeholder values are overwritten by mergeBucket in the same transaction
+    @Modifying
+    @Transactional
+    @Query(value = "MERGE INTO currency_rate_rollup (base_currency, quote_currency, resolution, bucket_start, row_count)"
+            + " KEY (base_currency, quote_currency, resolution, bucket_start)"
+            + " VALUES (:base, :quote, :resolution, :bucketStart, 0)", nativeQuery = true)
+    void claimBucket(@Param("base") String baseCurrency, @Param("quote") String quoteCurrency,
+                     @Param("resolution") String resolution, @Param("bucketStart") LocalDateTime bucketStart);
+
+    // recomputes the hour [bucketStart, bucketEnd) from its rates in one statement; an empty bucket merges no row
+    @Modifying
+    @Transactional
+    @Query(value = "MERGE INTO currency_rate_rollup (base_currency, quote_currency, resolution, bucket_start,"
+            + " open_time, open_bid, open_ask, close_time, close_bid, close_ask, low_bid, low_ask, high_bid, high_ask,"
+            + " sum_average_bid, sum_average_ask, row_count) KEY (base_currency, quote_currency, resolution, bucket_start)"
+            + " SELECT :base, :quote, :resolution, :bucketStart, b.open_time, o.average_bid, o.average_ask,"
+            + " b.close_time, c.average_bid, c.average_ask, b.low_bid, b.low_ask, b.high_bid, b.high_ask,"
+            + " b.sum_average_bid, b.sum_average_ask, b.row_count"
+            + " FROM (SELECT MIN(update_time) AS open_time, MAX(update_time) AS close_time,"
+            + " MIN(low_bid) AS low_bid, MIN(low_ask) AS low_ask, MAX(high_bid) AS high_bid, MAX(high_ask) AS high_ask,"
+            + " SUM(average_bid) AS sum_average_bid, SUM(average_ask) AS sum_average_ask, COUNT(*) AS row_count"
+            + " FROM currency_exchange_rate WHERE base_currency = :base AND quote_currency = :quote"
+            + " AND update_time >= :bucketStart AND update_time < :bucketEnd) b"
+            + " JOIN currency_exchange_rate o ON o.base_currency = :base AND o.quote_currency = :quote"
+            + " AND o.update_time = b.open_time"
+            + " JOIN currency_exchange_rate c ON c.base_currency = :base AND c.quote_currency = :quote"
+            + " AND c.update_time = b.close_time", nativeQuery = true)
+    int mergeBucket(@Param("base") String baseCurrency, @Param("quote") String quoteCurrency,
+                    @Param("resolution") String resolution, @Param("bucketStart") LocalDateTime bucketStart,
+                    @Param("bucketEnd") LocalDateTime bucketEnd);
+
+    // recomputes the day or week [bucketStart, bucketEnd) from its hour or day buckets, at most 24 or 7 rows, so a
+    // coarse bucket never rescans its rates; open and close come from the first and last finer bucket
+    @Modifying
+    @Transactional
+    @Query(value = "MERGE INTO currency_rate_rollup (base_currency, quote_currency, resolution, bucket_start,"
+            + " open_time, open_bid, open_ask, close_time, close_bid, close_ask, low_bid, low_ask, high_bid, high_ask,"
+            + " sum_average_bid, sum_average_ask, row_count) KEY (base_currency, quote_currency, resolution, bucket_start)"
+            + " SELECT :base, :quote, :resolution, :bucketStart, b.open_time, o.open_bid, o.open_ask,"
+            + " b.close_time, c.close_bid, c.close_ask, b.low_bid, b.low_ask, b.high_bid, b.high_ask,"
+            + " b.sum_average_bid, b.sum_average_ask, b.row_count"
+            + " FROM (SELECT MIN(open_time) AS open_time, MAX(close_time) AS close_time,"
+            + " MIN(low_bid) AS low_bid, MIN(low_ask) AS low_ask, MAX(high_bid) AS high_bid, MAX(high_ask) AS high_ask,"
+            + " SUM(sum_average_bid) AS sum_average_bid, SUM(sum_average_ask) AS sum_average_ask,"
+            + " SUM(row_count) AS row_count"
+            + " FROM currency_rate_rollup WHERE base_currency = :base AND quote_currency = :quote"
+            + " AND resolution = :finer AND bucket_start >= :bucketStart AND bucket_start < :bucketEnd"
+            + " AND row_count > 0) b"
+            + " JOIN currency_rate_rollup o ON o.base_currency = :base AND o.quote_currency = :quote"
+            + " AND o.resolution = :finer AND o.open_time = b.open_time"
+            + " JOIN currency_rate_rollup c ON c.base_currency = :base AND c.quote_currency = :quote"
+            + " AND c.resolution = :finer AND c.close_time = b.close_time", nativeQuery = true)
+    int mergeBucketFromFiner(@Param("base") String baseCurrency, @Param("quote") String quoteCurrency,
+                             @Param("resolution") String resolution, @Param("bucketStart") LocalDateTime bucketStart,
+                             @Param("bucketEnd") LocalDateTime bucketEnd, @Param("finer") String finer);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM currency_rate_rollup WHERE base_currency = :base AND quote_currency = :quote"
+            + " AND resolution = :resolution AND bucket_start = :bucketStart", nativeQuery = true)
+    void deleteBucket(@Param("base") String baseCurrency, @Param("quote") String quoteCurrency,
+                      @Param("resolution") String resolution, @Param("bucketStart") LocalDateTime bucketStart);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CurrencyRateRollup r WHERE r.baseCurrency = :base")
+    void deleteByBaseCurrency(@Param("base") String baseCurrency);
+}
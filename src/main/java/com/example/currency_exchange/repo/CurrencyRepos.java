@@ -1,25 +1,81 @@
 package com.example.currency_exchange.repo;
 
 import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface CurrencyRepos extends JpaRepository<CurrencyExchangeRate, Long> {
 
-    @Query("SELECT c FROM CurrencyExchangeRate c WHERE c.baseCurrency = :base ORDER BY c.baseCurrency")
+    @Query("SELECT c FROM CurrencyExchangeRate c WHERE c.baseCurrency = :base ORDER BY c.updateTime")
     List<CurrencyExchangeRate> findByCurrencyCode(@Param("base") String baseCurrency);
 
+    // first page of a window, served from idx_currency_exchange_rate_base_update_time
+    @Query("SELECT c FROM CurrencyExchangeRate c WHERE c.baseCurrency = :base"
+            + " AND c.updateTime >= :from AND c.updateTime < :to ORDER BY c.updateTime")
+    List<CurrencyExchangeRate> findPage(@Param("base") String baseCurrency, @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to, Limit limit);
+
+    // following pages seek past the last row seen instead of using an offset, so every page costs the same
+    @Query("SELECT c FROM CurrencyExchangeRate c WHERE c.baseCurrency = :base"
+            + " AND c.updateTime > :after AND c.updateTime < :to ORDER BY c.updateTime")
+    List<CurrencyExchangeRate> findPageAfter(@Param("base") String baseCurrency, @Param("after") LocalDateTime after,
+                                             @Param("to") LocalDateTime to, Limit limit);
+
+    @Query("SELECT COUNT(c) FROM CurrencyExchangeRate c WHERE c.baseCurrency = :base")
+    long countByCurrencyCode(@Param("base") String baseCurrency);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT c FROM CurrencyExchangeRate c WHERE c.baseCurrency = :base ORDER BY c.updateTime")
+    Stream<CurrencyExchangeRate> streamByCurrencyCode(@Param("base") String baseCurrency);
+
     @Query("SELECT c FROM CurrencyExchangeRate c WHERE c.baseCurrency = :base AND c.updateTime = :updateTime")
     CurrencyExchangeRate findByCurrencyCodeAndUpdateTime(@Param("base") String baseCurrency, @Param("updateTime") LocalDateTime updateTime);
 
+    // as-of lookups: with Limit.of(1) each is a single seek on the (base, update_time) index
+    @Query("SELECT c FROM CurrencyExchangeRate c WHERE c.baseCurrency = :base AND c.updateTime <= :time"
+            + " ORDER BY c.updateTime DESC")
+    List<CurrencyExchangeRate> findFloor(@Param("base") String baseCurrency, @Param("time") LocalDateTime time,
+                                         Limit limit);
+
+    @Query("SELECT c FROM CurrencyExchangeRate c WHERE c.baseCurrency = :base AND c.updateTime >= :time"
+            + " ORDER BY c.updateTime")
+    List<CurrencyExchangeRate> findCeiling(@Param("base") String baseCurrency, @Param("time") LocalDateTime time,
+                                           Limit limit);
+
+    // closed [from, to] window for batch as-of merge-joins, bounded by the floor/ceiling seeks above
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT c FROM CurrencyExchangeRate c WHERE c.baseCurrency = :base"
+            + " AND c.updateTime >= :from AND c.updateTime <= :to ORDER BY c.updateTime")
+    Stream<CurrencyExchangeRate> streamRange(@Param("base") String baseCurrency, @Param("from") LocalDateTime from,
+                                             @Param("to") LocalDateTime to);
+
+    @Query("SELECT c FROM CurrencyExchangeRate c WHERE c.baseCurrency IN :bases AND c.updateTime IN :updateTimes")
+    List<CurrencyExchangeRate> findByCurrencyCodesAndUpdateTimes(@Param("bases") Collection<String> baseCurrencies, @Param("updateTimes") Collection<LocalDateTime> updateTimes);
+
+    // newest rate of every currency in one pass: a grouped MAX(update_time) joined back to its rows
+    @Query("SELECT c FROM CurrencyExchangeRate c WHERE (c.baseCurrency, c.updateTime) IN"
+            + " (SELECT l.baseCurrency, MAX(l.updateTime) FROM CurrencyExchangeRate l GROUP BY l.baseCurrency)")
+    List<CurrencyExchangeRate> findLatestOfEachCurrency();
+
+    // one query for the newest rate of each currency, each MAX is a single seek on the (base, update_time) index
+    @Query("SELECT c FROM CurrencyExchangeRate c WHERE c.baseCurrency IN :bases AND c.updateTime ="
+            + " (SELECT MAX(l.updateTime) FROM CurrencyExchangeRate l WHERE l.baseCurrency = c.baseCurrency)")
+    List<CurrencyExchangeRate> findLatestByCurrencyCodes(@Param("bases") Collection<String> baseCurrencies);
+
     @Modifying
     @Transactional
     @Query("DELETE FROM CurrencyExchangeRate c WHERE c.baseCurrency = :base")
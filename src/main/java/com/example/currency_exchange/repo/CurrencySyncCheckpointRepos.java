@@ -0,0 +1,9 @@
+package com.example.currency_exchange.repo;
+
+import com.example.currency_exchange.entity.CurrencySyncCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CurrencySyncCheckpointRepos extends JpaRepository<CurrencySyncCheckpoint, CurrencySyncCheckpoint.Key> {
+}
@@ -0,0 +1,103 @@
+package com.example.currency_exchange.service;
+
+import com.example.currency_exchange.dto.BulkIngestResponse;
+import com.example.currency_exchange.dto.BulkRateEntry;
+import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.util.CheckDateUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.exc.StreamReadException;
+import tools.jackson.databind.DatabindException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams a JSON array or NDJSON body of {@link BulkRateEntry} and inserts it chunk by chunk,
+ * so only one chunk is held in memory at a time.
+ * <p>
+ * A record that does not map is counted as failed in its chunk and reading goes on with the next one. A body that
+ * stops being valid JSON ends the ingest: rows read so far are still stored, and the response carries an error so
+ * the client knows which chunks made it.
+ */
+@Slf4j
+@Service
+public class BulkIngestService {
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private MessageSource messageSource;
+
+    @Value("${currency.bulk.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    public BulkIngestResponse ingest(InputStream body) {
+        BulkIngestResponse response = new BulkIngestResponse();
+        List<CurrencyExchangeRate> chunk = new ArrayList<>(chunkSize);
+        int invalid = 0;
+        try (MappingIterator<BulkRateEntry> entries = jsonMapper.readerFor(BulkRateEntry.class).readValues(body)) {
+            while (entries.hasNextValue()) {
+                CurrencyExchangeRate rate;
+                try {
+                    rate = toEntity(entries.nextValue());
+                } catch (DatabindException e) {
+                    // the iterator skips to the end of the bad record on the next hasNextValue
+                    log.debug("Bulk record rejected: {}", e.getOriginalMessage());
+                    rate = null;
+                }
+                if (rate == null) {
+                    invalid++;
+                } else {
+                    chunk.add(rate);
+                }
+                if (chunk.size() + invalid >= chunkSize) {
+                    response.addChunk(flush(response.getChunks().size(), chunk, invalid));
+                    chunk.clear();
+                    invalid = 0;
+                }
+            }
+        } catch (StreamReadException e) {
+            log.warn("Bulk body malformed after {} chunks: {}", response.getChunks().size(), e.getOriginalMessage());
+            invalid++;
+            response.setError(messageSource.getMessage("bulkBodyMalformed", null, LocaleContextHolder.getLocale()));
+        }
+        if (!chunk.isEmpty() || invalid > 0) {
+            response.addChunk(flush(response.getChunks().size(), chunk, invalid));
+        }
+        return response;
+    }
+
+    private BulkIngestResponse.ChunkResult flush(int index, List<CurrencyExchangeRate> chunk, int invalid) {
+        try {
+            int inserted = currencyService.addExchangeRates(chunk);
+            return new BulkIngestResponse.ChunkResult(index, inserted, chunk.size() - inserted, invalid);
+        } catch (DataAccessException e) {
+            log.warn("Bulk chunk {} failed: {}", index, e.getMessage());
+            return new BulkIngestResponse.ChunkResult(index, 0, 0, chunk.size() + invalid);
+        }
+    }
+
+    private static CurrencyExchangeRate toEntity(BulkRateEntry entry) {
+        if (entry == null || entry.getCurrencyCode() == null || entry.getCurrencyCode().isBlank()
+                || entry.getRate() == null) {
+            return null;
+        }
+        LocalDateTime updateTime = CheckDateUtil.parseOrNull(entry.getUpdateTime());
+        return updateTime == null ? null
+                : CurrencyService.getCurrencyExchangeRate(entry.getCurrencyCode(), updateTime, entry.getRate());
+    }
+}
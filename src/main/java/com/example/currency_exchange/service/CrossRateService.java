@@ -0,0 +1,232 @@
+package com.example.currency_exchange.service;
+
+import com.example.currency_exchange.dto.CrossRateMatrixResponse;
+import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
+import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.repo.CurrencyRepos;
+import com.example.currency_exchange.util.FixedPoint;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Derives any pair's rates from the two stored base→USD legs.
+ * <p>
+ * For a cross A→B the bid is what selling A yields in B, so it divides A's bid by B's ask, and the ask divides A's
+ * ask by B's bid; high and low combine the opposite extremes of the legs, which bounds the cross range. USD itself
+ * is a leg of constant 1, so A→USD is A's row and USD→B its inverse. Series align the legs on equal update times;
+ * a single cross takes each leg as of the requested time.
+ */
+@Service
+public class CrossRateService {
+
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final MathContext PRECISION = MathContext.DECIMAL64;
+    private static final String MATRIX_KEY = "latest";
+
+    @Autowired
+    CurrencyRepos currencyRepos;
+
+    @Autowired
+    MessageSource messageSource;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Value("${currency.cross.currencies:${currency.sync.currencies:VND,EUR}}")
+    List<String> currencies = List.of("VND", "EUR");
+
+    private final Cache<String, CrossRateMatrixResponse> matrix;
+
+    public CrossRateService(@Value("${currency.cross.matrix-ttl-seconds:60}") long matrixTtlSeconds) {
+        this.matrix = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(matrixTtlSeconds))
+                .build();
+    }
+
+    /**
+     * Returns the cross rate in effect at the given time, built from each leg's latest rate at or before it, or null
+     * when either leg has none; its close_time is the older of the two legs.
+     */
+    public CurrencyExchangeRateDto getCrossRateAtTime(String baseCurrency, String quoteCurrency, LocalDateTime time) {
+        checkPair(baseCurrency, quoteCurrency);
+        CurrencyExchangeRate base = isUsd(baseCurrency) ? null : findFloor(baseCurrency, time);
+        CurrencyExchangeRate quote = isUsd(quoteCurrency) ? null : findFloor(quoteCurrency, time);
+        if ((base == null && !isUsd(baseCurrency)) || (quote == null && !isUsd(quoteCurrency))) {
+            return null;
+        }
+        return cross(baseCurrency, quoteCurrency, olderOf(base, quote), base, quote);
+    }
+
+    /**
+     * Streams the cross rates in [from, to), oldest first, to the consumer at the times both legs have a rate; a null
+     * from/to leaves that side open. Each leg is one ordered range stream and the two are merge-joined inside one
+     * read-only transaction, detaching rows once passed, so memory stays flat however long the window is.
+     */
+    @Transactional(readOnly = true)
+    public void forEachCrossRate(String baseCurrency, String quoteCurrency, LocalDateTime from, LocalDateTime to,
+                                 Consumer<CurrencyExchangeRateDto> consumer) {
+        checkPair(baseCurrency, quoteCurrency);
+        LocalDateTime start = from == null ? MIN_TIME : from;
+        LocalDateTime end = to == null ? MAX_TIME : to;
+        try (Stream<CurrencyExchangeRate> baseRows = isUsd(baseCurrency) ? null : streamLeg(baseCurrency, start, end);
+             Stream<CurrencyExchangeRate> quoteRows = isUsd(quoteCurrency) ? null : streamLeg(quoteCurrency, start, end)) {
+            if (baseRows == null || quoteRows == null) {
+                Iterator<CurrencyExchangeRate> leg = (baseRows != null ? baseRows : quoteRows).iterator();
+                while (leg.hasNext()) {
+                    CurrencyExchangeRate row = leg.next();
+                    consumer.accept(cross(baseCurrency, quoteCurrency, row.getUpdateTime(),
+                            baseRows != null ? row : null, quoteRows != null ? row : null));
+                    entityManager.detach(row);
+                }
+                return;
+            }
+            Iterator<CurrencyExchangeRate> baseLeg = baseRows.iterator();
+            Iterator<CurrencyExchangeRate> quoteLeg = quoteRows.iterator();
+            CurrencyExchangeRate b = baseLeg.hasNext() ? baseLeg.next() : null;
+            CurrencyExchangeRate q = quoteLeg.hasNext() ? quoteLeg.next() : null;
+            while (b != null && q != null) {
+                int order = b.getUpdateTime().compareTo(q.getUpdateTime());
+                if (order == 0) {
+                    consumer.accept(cross(baseCurrency, quoteCurrency, b.getUpdateTime(), b, q));
+                }
+                if (order <= 0) {
+                    entityManager.detach(b);
+                    b = baseLeg.hasNext() ? baseLeg.next() : null;
+                }
+                if (order >= 0) {
+                    entityManager.detach(q);
+                    q = quoteLeg.hasNext() ? quoteLeg.next() : null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Fails with a localized message when the pair cannot be crossed, so a streamed response can check it before
+     * anything is written.
+     */
+    public void checkPair(String baseCurrency, String quoteCurrency) {
+        if (baseCurrency.equals(quoteCurrency)) {
+            throw new IllegalArgumentException(
+                    messageSource.getMessage("crossRateSamePair", null, LocaleContextHolder.getLocale()));
+        }
+    }
+
+    /**
+     * Returns the cross rates between every pair of the configured currencies and USD, built from each currency's
+     * latest rate; a cell's close_time is the older of its two legs. Rebuilt at most once per TTL.
+     */
+    public CrossRateMatrixResponse getLatestMatrix() {
+        return matrix.get(MATRIX_KEY, key -> buildMatrix());
+    }
+
+    private CrossRateMatrixResponse buildMatrix() {
+        Set<String> codes = new LinkedHashSet<>(currencies);
+        codes.add(CurrencyService.QUOTE_CURRENCY);
+        Map<String, CurrencyExchangeRate> latest = new HashMap<>();
+        for (CurrencyExchangeRate row : currencyRepos.findLatestByCurrencyCodes(codes)) {
+            latest.put(row.getBaseCurrency(), row);
+        }
+        // currencies without any rate cannot be crossed and are left out
+        List<String> available = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            if (isUsd(code) || latest.containsKey(code)) {
+                available.add(code);
+            }
+        }
+        Map<String, Map<String, CurrencyExchangeRateDto>> rates = new LinkedHashMap<>();
+        for (String base : available) {
+            Map<String, CurrencyExchangeRateDto> row = new LinkedHashMap<>();
+            for (String quote : available) {
+                if (!base.equals(quote)) {
+                    CurrencyExchangeRate baseLeg = latest.get(base);
+                    CurrencyExchangeRate quoteLeg = latest.get(quote);
+                    row.put(quote, cross(base, quote, olderOf(baseLeg, quoteLeg), baseLeg, quoteLeg));
+                }
+            }
+            rates.put(base, Collections.unmodifiableMap(row));
+        }
+        return new CrossRateMatrixResponse(List.copyOf(available), Collections.unmodifiableMap(rates));
+    }
+
+    private CurrencyExchangeRate findFloor(String currency, LocalDateTime time) {
+        List<CurrencyExchangeRate> rows = currencyRepos.findFloor(currency, time, Limit.of(1));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    // streamRange is closed at both ends, the row at exactly `to` ends the leg
+    private Stream<CurrencyExchangeRate> streamLeg(String currency, LocalDateTime from, LocalDateTime to) {
+        return currencyRepos.streamRange(currency, from, to).takeWhile(row -> row.getUpdateTime().isBefore(to));
+    }
+
+    private static boolean isUsd(String currency) {
+        return CurrencyService.QUOTE_CURRENCY.equals(currency);
+    }
+
+    private static LocalDateTime olderOf(CurrencyExchangeRate a, CurrencyExchangeRate b) {
+        if (a == null) {
+            return b.getUpdateTime();
+        }
+        if (b == null) {
+            return a.getUpdateTime();
+        }
+        return a.getUpdateTime().isBefore(b.getUpdateTime()) ? a.getUpdateTime() : b.getUpdateTime();
+    }
+
+    /**
+     * Combines the base→USD and quote→USD legs into base→quote; a null leg is USD.
+     */
+    static CurrencyExchangeRateDto cross(String baseCurrency, String quoteCurrency, LocalDateTime time,
+                                         CurrencyExchangeRate base, CurrencyExchangeRate quote) {
+        return CurrencyExchangeRateDto.builder()
+                .baseCurrency(baseCurrency)
+                .quoteCurrency(quoteCurrency)
+                .closeTime(time.toString())
+                .averageBid(divide(base, CurrencyExchangeRate::getAverageBid, quote, CurrencyExchangeRate::getAverageAsk))
+                .averageAsk(divide(base, CurrencyExchangeRate::getAverageAsk, quote, CurrencyExchangeRate::getAverageBid))
+                .highBid(divide(base, CurrencyExchangeRate::getHighBid, quote, CurrencyExchangeRate::getLowAsk))
+                .highAsk(divide(base, CurrencyExchangeRate::getHighAsk, quote, CurrencyExchangeRate::getLowBid))
+                .lowBid(divide(base, CurrencyExchangeRate::getLowBid, quote, CurrencyExchangeRate::getHighAsk))
+                .lowAsk(divide(base, CurrencyExchangeRate::getLowAsk, quote, CurrencyExchangeRate::getHighBid))
+                .build();
+    }
+
+    // a scale-10 long would keep too few significant digits of small crosses such as VND→EUR, so the quotient is a
+    // 16-digit BigDecimal
+    private static String divide(CurrencyExchangeRate base, Function<CurrencyExchangeRate, Long> baseValue,
+                                 CurrencyExchangeRate quote, Function<CurrencyExchangeRate, Long> quoteValue) {
+        Long numerator = base == null ? FixedPoint.ONE : baseValue.apply(base);
+        Long denominator = quote == null ? FixedPoint.ONE : quoteValue.apply(quote);
+        if (numerator == null || denominator == null || denominator == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(numerator).divide(BigDecimal.valueOf(denominator), PRECISION)
+                .stripTrailingZeros().toPlainString();
+    }
+}
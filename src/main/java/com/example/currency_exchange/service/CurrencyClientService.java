@@ -1,23 +1,42 @@
 package com.example.currency_exchange.service;
 
+import com.example.currency_exchange.cache.FxdsResponseCache;
 import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
 import com.example.currency_exchange.dto.RestClientResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
 
+import java.net.URI;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
 public class CurrencyClientService {
 
+    private static final String RATES_PATH =
+            "/cc-api/currencies?base={base}&quote=USD&data_type=chart&start_date={start}&end_date={end}";
+
     @Autowired
     private RestTemplate restTemplate;
 
+    @Autowired
+    private WebClient webClient;
+
+    @Autowired
+    private FxdsResponseCache responseCache;
+
+    @Value("${fxds.base-url:https://fxds-public-exchange-rates-api.oanda.com}")
+    private String baseUrl = "https://fxds-public-exchange-rates-api.oanda.com";
+
     public List<CurrencyExchangeRateDto> getCurrencyExchangeRates(String baseCurrency, LocalDate startDate, LocalDate endDate) {
         HttpHeaders headers = new HttpHeaders();
         headers.setAccept(List.of(MediaType.APPLICATION_JSON));
@@ -25,11 +44,37 @@ public class CurrencyClientService {
 
         HttpEntity<?> entity = new HttpEntity<>(headers);
         ResponseEntity<RestClientResponse> rateResponse = restTemplate.exchange(
-                String.format(
-                        "https://fxds-public-exchange-rates-api.oanda.com/cc-api/currencies?base=%s&quote=USD&data_type=chart&start_date=%s&end_date=%s",
-                        baseCurrency, startDate, endDate),
+                ratesUrl(baseCurrency, startDate, endDate),
                 HttpMethod.GET, entity,
                 RestClientResponse.class);
         return rateResponse.getBody().getResponse();
     }
+
+    /**
+     * Non-blocking variant of {@link #getCurrencyExchangeRates}: no thread waits while the upstream call is in flight.
+     */
+    public Mono<List<CurrencyExchangeRateDto>> fetchCurrencyExchangeRates(String baseCurrency, LocalDate startDate, LocalDate endDate) {
+        return webClient.get()
+                .uri(URI.create(ratesUrl(baseCurrency, startDate, endDate)))
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(RestClientResponse.class)
+                .<List<CurrencyExchangeRateDto>>map(body -> body.getResponse() == null ? List.of() : body.getResponse())
+                .defaultIfEmpty(List.of());
+    }
+
+    /**
+     * Concurrent calls for the same range share one upstream request, and its response is reused for a short while.
+     */
+    public CompletableFuture<List<CurrencyExchangeRateDto>> getCurrencyExchangeRatesAsync(String baseCurrency, LocalDate startDate, LocalDate endDate) {
+        return responseCache.get(baseCurrency, startDate, endDate,
+                () -> fetchCurrencyExchangeRates(baseCurrency, startDate, endDate).toFuture());
+    }
+
+    private String ratesUrl(String baseCurrency, LocalDate startDate, LocalDate endDate) {
+        return UriComponentsBuilder.fromUriString(baseUrl + RATES_PATH)
+                .buildAndExpand(baseCurrency, startDate, endDate)
+                .encode()
+                .toUriString();
+    }
 }
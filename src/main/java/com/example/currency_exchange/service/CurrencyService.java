@@ -1,101 +1,695 @@
 package com.example.currency_exchange.service;
 
+import com.example.currency_exchange.cache.ColumnarRateStore;
+import com.example.currency_exchange.cache.LatestRateIndex;
+import com.example.currency_exchange.cache.RateCache;
+import com.example.currency_exchange.dto.CacheStatsResponse;
 import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
 import com.example.currency_exchange.dto.RateDto;
+import com.example.currency_exchange.dto.RatePageResponse;
 import com.example.currency_exchange.entity.CurrencyExchangeRate;
 import com.example.currency_exchange.mapper.CurrencyMapper;
 import com.example.currency_exchange.repo.CurrencyRepos;
+import com.example.currency_exchange.util.Downsampler;
+import com.example.currency_exchange.util.FixedPoint;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class CurrencyService {
 
-    private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss");
+    public static final String QUOTE_CURRENCY = "USD";
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final char CURSOR_SEPARATOR = '|';
     @Autowired
     CurrencyRepos currencyRepos;
     @Autowired
     MessageSource messageSource;
     @Autowired
     CurrencyMapper mapper;
+    @Autowired
+    RateCache rateCache;
+    @Autowired
+    EntityManager entityManager;
+    @Autowired
+    RollupService rollupService;
+    @Autowired
+    LatestRateIndex latestRateIndex;
+    @Autowired
+    ColumnarRateStore columnarRateStore;
+    @Value("${currency.page.max-size:1000}")
+    int maxPageSize = 1000;
+    @Value("${currency.asof.max-batch-size:10000}")
+    int maxAsOfBatchSize = 10000;
 
-    private static CurrencyExchangeRate getCurrencyExchangeRate(String baseCurrency, String update_time, RateDto rate) {
+    static CurrencyExchangeRate getCurrencyExchangeRate(String baseCurrency, LocalDateTime updateTime, RateDto rate) {
         CurrencyExchangeRate rateEntity = new CurrencyExchangeRate();
         rateEntity.setBaseCurrency(baseCurrency);
-        rateEntity.setQuoteCurrency("USD");
-        rateEntity.setUpdateTime(LocalDateTime.parse(update_time, FMT));
-        rateEntity.setHighBid(rate.getHighBid());
-        rateEntity.setLowBid(rate.getLowBid());
-        rateEntity.setHighAsk(rate.getHighAsk());
-        rateEntity.setLowAsk(rate.getLowAsk());
-        rateEntity.setAverageAsk(rate.getAverageAsk());
-        rateEntity.setAverageBid(rate.getAverageBid());
+        rateEntity.setQuoteCurrency(QUOTE_CURRENCY);
+        rateEntity.setUpdateTime(updateTime);
+        rateEntity.setHighBid(toPrice(rate.getHighBid()));
+        rateEntity.setLowBid(toPrice(rate.getLowBid()));
+        rateEntity.setHighAsk(toPrice(rate.getHighAsk()));
+        rateEntity.setLowAsk(toPrice(rate.getLowAsk()));
+        rateEntity.setAverageAsk(toPrice(rate.getAverageAsk()));
+        rateEntity.setAverageBid(toPrice(rate.getAverageBid()));
+        return rateEntity;
+    }
+
+    /**
+     * Builds an entity from an FXDS row, whose closeTime is an ISO instant; rows are stored in UTC. Prices are parsed
+     * straight to {@link FixedPoint}, rounded to the scale the columns store.
+     */
+    static CurrencyExchangeRate getCurrencyExchangeRate(CurrencyExchangeRateDto rateDto) {
+        CurrencyExchangeRate rateEntity = new CurrencyExchangeRate();
+        rateEntity.setBaseCurrency(rateDto.getBaseCurrency());
+        rateEntity.setQuoteCurrency(QUOTE_CURRENCY);
+        rateEntity.setUpdateTime(LocalDateTime.ofInstant(Instant.parse(rateDto.getCloseTime()), ZoneOffset.UTC));
+        rateEntity.setHighBid(FixedPoint.parse(rateDto.getHighBid()));
+        rateEntity.setLowBid(FixedPoint.parse(rateDto.getLowBid()));
+        rateEntity.setHighAsk(FixedPoint.parse(rateDto.getHighAsk()));
+        rateEntity.setLowAsk(FixedPoint.parse(rateDto.getLowAsk()));
+        rateEntity.setAverageAsk(FixedPoint.parse(rateDto.getAverageAsk()));
+        rateEntity.setAverageBid(FixedPoint.parse(rateDto.getAverageBid()));
         return rateEntity;
     }
 
-    public void addExchangeRate(String baseCurrency, String update_time, RateDto rate) {
+    private static Long toPrice(BigDecimal value) {
+        return value == null ? null : FixedPoint.valueOf(value);
+    }
+
+    @Transactional
+    public void addExchangeRate(String baseCurrency, LocalDateTime updateTime, RateDto rate) {
         CurrencyExchangeRateDto existingRates = getExchangeRateAtTime(
-                baseCurrency, update_time);
+                baseCurrency, updateTime);
         if (existingRates != null) {
             throw new UnsupportedOperationException(
                     messageSource.getMessage("insertMutlipleError", null, LocaleContextHolder.getLocale()));
         }
 
         CurrencyExchangeRate rateEntity = getCurrencyExchangeRate(baseCurrency,
-                update_time, rate);
+                updateTime, rate);
         currencyRepos.save(rateEntity);
+        rollupService.addRates(List.of(rateEntity));
+        latestRateIndex.offer(rateEntity);
+        columnarRateStore.offerAll(List.of(rateEntity));
+        rateCache.invalidate(baseCurrency, rateEntity.getUpdateTime());
+    }
+
+    /**
+     * Inserts the given rates in one transaction, skipping rows that already exist or repeat within the batch.
+     * Existing rows are found with a single set-based query, new rows go through JDBC batching.
+     *
+     * @return number of rows inserted
+     */
+    @Transactional
+    public int addExchangeRates(List<CurrencyExchangeRate> rates) {
+        if (rates.isEmpty()) {
+            return 0;
+        }
+        Map<RateKey, CurrencyExchangeRate> existing = findExisting(rates);
+        List<CurrencyExchangeRate> toInsert = new ArrayList<>(rates.size());
+        for (CurrencyExchangeRate rate : rates) {
+            if (existing.putIfAbsent(RateKey.of(rate), rate) == null) {
+                toInsert.add(rate);
+            }
+        }
+        currencyRepos.saveAll(toInsert);
+        rollupService.addRates(toInsert);
+        latestRateIndex.offerAll(toInsert);
+        columnarRateStore.offerAll(toInsert);
+        toInsert.stream().map(CurrencyExchangeRate::getBaseCurrency).distinct().forEach(rateCache::invalidateSeries);
+        return toInsert.size();
+    }
+
+    /**
+     * Inserts new rates and overwrites the prices of existing ones in one transaction, so replaying the same
+     * rows is harmless. Rows whose prices did not change are left untouched.
+     */
+    @Transactional
+    public UpsertResult upsertExchangeRates(List<CurrencyExchangeRate> rates) {
+        if (rates.isEmpty()) {
+            return new UpsertResult(0, 0, 0);
+        }
+        Map<RateKey, CurrencyExchangeRate> existing = findExisting(rates);
+        List<CurrencyExchangeRate> toInsert = new ArrayList<>(rates.size());
+        List<CurrencyExchangeRate> updated = new ArrayList<>();
+        Map<String, List<LocalDateTime>> updatedTimes = new HashMap<>();
+        int unchanged = 0;
+        for (CurrencyExchangeRate rate : rates) {
+            CurrencyExchangeRate current = existing.putIfAbsent(RateKey.of(rate), rate);
+            if (current == null) {
+                toInsert.add(rate);
+            } else if (current == rate || samePrices(current, rate)) {
+                unchanged++;
+            } else {
+                copyPrices(rate, current);
+                updated.add(current);
+                rateCache.invalidate(current.getBaseCurrency(), current.getUpdateTime());
+                updatedTimes.computeIfAbsent(current.getBaseCurrency(), k -> new ArrayList<>()).add(current.getUpdateTime());
+            }
+        }
+        currencyRepos.saveAll(toInsert);
+        rollupService.addRates(toInsert);
+        updatedTimes.forEach(rollupService::refresh);
+        latestRateIndex.offerAll(toInsert);
+        latestRateIndex.offerAll(updated);
+        columnarRateStore.offerAll(toInsert);
+        columnarRateStore.offerAll(updated);
+        toInsert.stream().map(CurrencyExchangeRate::getBaseCurrency).distinct().forEach(rateCache::invalidateSeries);
+        return new UpsertResult(toInsert.size(), updated.size(), unchanged);
+    }
+
+    /**
+     * Loads the stored rows matching the given rates with one set-based query. Loaded rows are managed,
+     * so changes to them are flushed as batched updates.
+     */
+    private Map<RateKey, CurrencyExchangeRate> findExisting(List<CurrencyExchangeRate> rates) {
+        Set<String> bases = new HashSet<>();
+        Set<LocalDateTime> times = new HashSet<>();
+        for (CurrencyExchangeRate rate : rates) {
+            bases.add(rate.getBaseCurrency());
+            times.add(rate.getUpdateTime());
+        }
+        Map<RateKey, CurrencyExchangeRate> existing = new HashMap<>();
+        for (CurrencyExchangeRate stored : currencyRepos.findByCurrencyCodesAndUpdateTimes(bases, times)) {
+            existing.put(RateKey.of(stored), stored);
+        }
+        return existing;
+    }
+
+    private static boolean samePrices(CurrencyExchangeRate a, CurrencyExchangeRate b) {
+        return Objects.equals(a.getAverageBid(), b.getAverageBid()) && Objects.equals(a.getAverageAsk(), b.getAverageAsk())
+                && Objects.equals(a.getHighBid(), b.getHighBid()) && Objects.equals(a.getHighAsk(), b.getHighAsk())
+                && Objects.equals(a.getLowBid(), b.getLowBid()) && Objects.equals(a.getLowAsk(), b.getLowAsk());
+    }
+
+    private static void copyPrices(CurrencyExchangeRate from, CurrencyExchangeRate to) {
+        to.setAverageBid(from.getAverageBid());
+        to.setAverageAsk(from.getAverageAsk());
+        to.setHighBid(from.getHighBid());
+        to.setHighAsk(from.getHighAsk());
+        to.setLowBid(from.getLowBid());
+        to.setLowAsk(from.getLowAsk());
     }
 
     public List<CurrencyExchangeRateDto> getExchangeRate(String baseCurrency) {
+        List<CurrencyExchangeRateDto> result;
+        try (ColumnarRateStore.Series series = columnarRateStore.acquire(baseCurrency)) {
+            result = series != null ? series.dtos(held -> toDtos(baseCurrency, held))
+                    : rateCache.getSeries(baseCurrency, this::loadExchangeRate);
+        }
+        if (result == null) {
+            throw new UnsupportedOperationException(
+                    messageSource.getMessage("currencyCodeNotFound", null, LocaleContextHolder.getLocale()));
+        }
+        return result;
+    }
+
+    private List<CurrencyExchangeRateDto> loadExchangeRate(String baseCurrency) {
         List<CurrencyExchangeRate> result = currencyRepos.findByCurrencyCode(
                 baseCurrency);
         if (result == null || result.isEmpty()) {
-            throw new UnsupportedOperationException(
-                    messageSource.getMessage("currencyCodeNotFound", null, LocaleContextHolder.getLocale()));
+            return null;
         }
-        List<CurrencyExchangeRateDto> currencyExchangeRateDtos = new ArrayList<>();
+        List<CurrencyExchangeRateDto> currencyExchangeRateDtos = new ArrayList<>(result.size());
         for (CurrencyExchangeRate exchangeRate : result) {
             currencyExchangeRateDtos.add(mapper.toDto(exchangeRate));
         }
-        return currencyExchangeRateDtos;
+        return Collections.unmodifiableList(currencyExchangeRateDtos);
+    }
+
+    /**
+     * Streams every rate of the currency, oldest first, to the consumer inside one read-only transaction.
+     * Rows are detached once consumed so memory stays flat however long the history is. An unknown currency fails
+     * like {@link #getExchangeRate(String)}, before anything is consumed.
+     */
+    @Transactional(readOnly = true)
+    public void forEachExchangeRate(String baseCurrency, Consumer<CurrencyExchangeRateDto> consumer) {
+        try (ColumnarRateStore.Series series = columnarRateStore.acquire(baseCurrency)) {
+            if (series != null) {
+                if (series.size() == 0) {
+                    throw new UnsupportedOperationException(
+                            messageSource.getMessage("currencyCodeNotFound", null, LocaleContextHolder.getLocale()));
+                }
+                for (int i = 0; i < series.size(); i++) {
+                    consumer.accept(toDto(baseCurrency, series, i));
+                }
+                return;
+            }
+        }
+        try (Stream<CurrencyExchangeRate> rows = currencyRepos.streamByCurrencyCode(baseCurrency)) {
+            Iterator<CurrencyExchangeRate> it = rows.iterator();
+            if (!it.hasNext()) {
+                throw new UnsupportedOperationException(
+                        messageSource.getMessage("currencyCodeNotFound", null, LocaleContextHolder.getLocale()));
+            }
+            while (it.hasNext()) {
+                CurrencyExchangeRate row = it.next();
+                consumer.accept(mapper.toDto(row));
+                entityManager.detach(row);
+            }
+        }
+    }
+
+    /**
+     * Returns at most {@code maxPoints} rates of the currency, oldest first, picked by the given mode from one
+     * pass over its history; a history that already fits is returned whole. Fewer than
+     * {@link Downsampler#MIN_POINTS} points are not supported, smaller limits are raised to it.
+     */
+    @Transactional(readOnly = true)
+    public List<CurrencyExchangeRateDto> getExchangeRate(String baseCurrency, int maxPoints, Downsampler.Mode mode) {
+        int limit = Math.max(maxPoints, Downsampler.MIN_POINTS);
+        try (ColumnarRateStore.Series series = columnarRateStore.acquire(baseCurrency)) {
+            long count = series != null ? series.size() : currencyRepos.countByCurrencyCode(baseCurrency);
+            if (count <= limit) {
+                return getExchangeRate(baseCurrency);
+            }
+            List<CurrencyExchangeRateDto> result = new ArrayList<>(limit);
+            forEachDownsampled(baseCurrency, series, count, limit, mode, result::add);
+            return Collections.unmodifiableList(result);
+        }
     }
 
-    public CurrencyExchangeRateDto getExchangeRateAtTime(String baseCurrency, String time) {
-        CurrencyExchangeRate rateEntity = currencyRepos.findByCurrencyCodeAndUpdateTime(baseCurrency,
-                LocalDateTime.parse(time, FMT));
-        return mapper.toDto(rateEntity);
+    /**
+     * Streaming counterpart of {@link #getExchangeRate(String, int, Downsampler.Mode)}.
+     */
+    @Transactional(readOnly = true)
+    public void forEachExchangeRate(String baseCurrency, int maxPoints, Downsampler.Mode mode,
+                                    Consumer<CurrencyExchangeRateDto> consumer) {
+        int limit = Math.max(maxPoints, Downsampler.MIN_POINTS);
+        try (ColumnarRateStore.Series series = columnarRateStore.acquire(baseCurrency)) {
+            long count = series != null ? series.size() : currencyRepos.countByCurrencyCode(baseCurrency);
+            if (count <= limit) {
+                forEachExchangeRate(baseCurrency, consumer);
+            } else {
+                forEachDownsampled(baseCurrency, series, count, limit, mode, consumer);
+            }
+        }
+    }
+
+    // walks the held columns when there are any, otherwise streams the rows; x is epoch seconds either way
+    private void forEachDownsampled(String baseCurrency, ColumnarRateStore.Series series, long count, int maxPoints,
+                                    Downsampler.Mode mode, Consumer<CurrencyExchangeRateDto> consumer) {
+        if (series != null) {
+            Downsampler<Integer> downsampler = Downsampler.of(mode, count, maxPoints,
+                    i -> Math.floorDiv(series.time(i), 1000L),
+                    i -> series.averageBid(i) == ColumnarRateStore.NULL ? Double.NaN
+                            : (double) series.averageBid(i) / FixedPoint.ONE,
+                    i -> consumer.accept(toDto(baseCurrency, series, i)));
+            for (int i = 0; i < count; i++) {
+                downsampler.accept(i);
+            }
+            downsampler.finish();
+            return;
+        }
+        // the kept rows may be held back until their bucket is decided, so they are mapped when emitted
+        Downsampler<CurrencyExchangeRate> downsampler = Downsampler.of(mode, count, maxPoints,
+                row -> row.getUpdateTime().toEpochSecond(ZoneOffset.UTC),
+                row -> row.getAverageBid() == null ? Double.NaN : (double) row.getAverageBid() / FixedPoint.ONE,
+                row -> consumer.accept(mapper.toDto(row)));
+        try (Stream<CurrencyExchangeRate> rows = currencyRepos.streamByCurrencyCode(baseCurrency)) {
+            rows.forEach(row -> {
+                downsampler.accept(row);
+                entityManager.detach(row);
+            });
+        }
+        downsampler.finish();
+    }
+
+    /**
+     * Returns up to {@code limit} rates of the currency in [from, to), oldest first. The cursor of the returned page,
+     * when present, continues right after its last row; a null from/to leaves that side of the window open.
+     */
+    public RatePageResponse getExchangeRatePage(String baseCurrency, LocalDateTime from, LocalDateTime to,
+                                                int limit, String cursor) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        try (ColumnarRateStore.Series series = columnarRateStore.acquire(baseCurrency)) {
+            if (series != null) {
+                return getExchangeRatePage(baseCurrency, series, from, to, pageSize, cursor);
+            }
+        }
+        LocalDateTime end = to == null ? MAX_TIME : to;
+        // one extra row tells whether another page follows
+        Limit fetch = Limit.of(pageSize + 1);
+        List<CurrencyExchangeRate> rows = cursor == null
+                ? currencyRepos.findPage(baseCurrency, from == null ? MIN_TIME : from, end, fetch)
+                : currencyRepos.findPageAfter(baseCurrency, decodeCursor(baseCurrency, cursor), end, fetch);
+
+        boolean hasNext = rows.size() > pageSize;
+        List<CurrencyExchangeRate> page = hasNext ? rows.subList(0, pageSize) : rows;
+        List<CurrencyExchangeRateDto> items = new ArrayList<>(page.size());
+        for (CurrencyExchangeRate row : page) {
+            items.add(mapper.toDto(row));
+        }
+        String nextCursor = hasNext ? encodeCursor(baseCurrency, page.get(page.size() - 1).getUpdateTime()) : null;
+        return new RatePageResponse(items, nextCursor);
+    }
+
+    private RatePageResponse getExchangeRatePage(String baseCurrency, ColumnarRateStore.Series series,
+                                                 LocalDateTime from, LocalDateTime to, int pageSize, String cursor) {
+        int start = cursor != null
+                ? series.lowerBound(ColumnarRateStore.toEpochMillis(decodeCursor(baseCurrency, cursor)) + 1)
+                : from == null ? 0 : series.lowerBound(ColumnarRateStore.toEpochMillisCeiling(from));
+        int end = to == null ? series.size() : series.lowerBound(ColumnarRateStore.toEpochMillisCeiling(to));
+        int pageEnd = Math.min(end, start + pageSize);
+        List<CurrencyExchangeRateDto> items = new ArrayList<>(Math.max(0, pageEnd - start));
+        for (int i = start; i < pageEnd; i++) {
+            items.add(toDto(baseCurrency, series, i));
+        }
+        String nextCursor = end > pageEnd
+                ? encodeCursor(baseCurrency, ColumnarRateStore.toTime(series.time(pageEnd - 1))) : null;
+        return new RatePageResponse(items, nextCursor);
     }
 
-    public CurrencyExchangeRate updateExchangeRate(String baseCurrency, String update_time, RateDto rate) {
-        CurrencyExchangeRate rateEntity = currencyRepos.findByCurrencyCodeAndUpdateTime(baseCurrency,
-                LocalDateTime.parse(update_time, FMT));
+    private static String encodeCursor(String baseCurrency, LocalDateTime after) {
+        String raw = baseCurrency + CURSOR_SEPARATOR + after;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private LocalDateTime decodeCursor(String baseCurrency, String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(CURSOR_SEPARATOR);
+            if (separator > 0 && raw.substring(0, separator).equals(baseCurrency)) {
+                return LocalDateTime.parse(raw.substring(separator + 1));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // fall through to the error below
+        }
+        throw new IllegalArgumentException(
+                messageSource.getMessage("invalidCursor", null, LocaleContextHolder.getLocale()));
+    }
+
+    /**
+     * Returns the newest rate of the currency from memory, without a database round trip.
+     */
+    public CurrencyExchangeRateDto getLatestExchangeRate(String baseCurrency) {
+        CurrencyExchangeRateDto latest = latestRateIndex.get(baseCurrency);
+        if (latest == null) {
+            throw new UnsupportedOperationException(
+                    messageSource.getMessage("currencyCodeNotFound", null, LocaleContextHolder.getLocale()));
+        }
+        return latest;
+    }
+
+    public List<CurrencyExchangeRateDto> getLatestExchangeRates() {
+        return latestRateIndex.getAll();
+    }
+
+    public CurrencyExchangeRateDto getExchangeRateAtTime(String baseCurrency, LocalDateTime time) {
+        try (ColumnarRateStore.Series series = columnarRateStore.acquire(baseCurrency)) {
+            if (series != null) {
+                int index = series.lowerBound(ColumnarRateStore.toEpochMillisCeiling(time));
+                boolean found = index < series.size() && ColumnarRateStore.toEpochMillis(time) == series.time(index)
+                        && time.getNano() % 1_000_000 == 0;
+                return found ? toDto(baseCurrency, series, index) : null;
+            }
+        }
+        return rateCache.getPoint(baseCurrency, time,
+                key -> mapper.toDto(currencyRepos.findByCurrencyCodeAndUpdateTime(key.baseCurrency(), key.updateTime())));
+    }
+
+    /**
+     * Returns the rate in effect at the given time rather than one stored exactly at it: FLOOR is the latest rate
+     * at or before the time, CEILING the earliest at or after it, and INTERPOLATE blends the two linearly by time
+     * (null unless both exist). Currencies held in the {@link ColumnarRateStore} are answered by a binary search
+     * over their columns; the rest take one index seek per side.
+     */
+    public CurrencyExchangeRateDto getExchangeRateAsOf(String baseCurrency, LocalDateTime time, AsOfMode mode) {
+        try (ColumnarRateStore.Series series = columnarRateStore.acquire(baseCurrency)) {
+            if (series != null) {
+                return asOf(baseCurrency, series, time, mode);
+            }
+        }
+        return switch (mode) {
+            case FLOOR -> seek(baseCurrency, time, true);
+            case CEILING -> seek(baseCurrency, time, false);
+            case INTERPOLATE -> {
+                CurrencyExchangeRateDto before = seek(baseCurrency, time, true);
+                if (before == null || LocalDateTime.parse(before.getCloseTime()).equals(time)) {
+                    yield before;
+                }
+                CurrencyExchangeRateDto after = seek(baseCurrency, time, false);
+                yield after == null ? null : interpolate(before, after, time);
+            }
+        };
+    }
+
+    /**
+     * Batch form of {@link #getExchangeRateAsOf}, results in input order (null where nothing matches).
+     * <p>
+     * Lookups are grouped by currency; each group costs two bounding seeks and one ordered range scan between them,
+     * merge-joined against the group's sorted times, so a settlement run needs a few queries per currency instead
+     * of one per lookup. Scanned rows are detached as they go. Currencies held in the {@link ColumnarRateStore} need
+     * no query at all.
+     */
+    @Transactional(readOnly = true)
+    public List<CurrencyExchangeRateDto> getExchangeRatesAsOf(List<AsOfKey> keys, AsOfMode mode) {
+        if (keys.size() > maxAsOfBatchSize) {
+            throw new IllegalArgumentException(
+                    messageSource.getMessage("asOfBatchTooLarge", null, LocaleContextHolder.getLocale()));
+        }
+        Map<String, List<Integer>> byCurrency = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            byCurrency.computeIfAbsent(keys.get(i).baseCurrency(), k -> new ArrayList<>()).add(i);
+        }
+        CurrencyExchangeRateDto[] result = new CurrencyExchangeRateDto[keys.size()];
+        byCurrency.forEach((base, positions) -> {
+            positions.sort((a, b) -> keys.get(a).time().compareTo(keys.get(b).time()));
+            mergeAsOf(base, keys, positions, mode, result);
+        });
+        return Arrays.asList(result);
+    }
+
+    private void mergeAsOf(String baseCurrency, List<AsOfKey> keys, List<Integer> positions, AsOfMode mode,
+                           CurrencyExchangeRateDto[] result) {
+        try (ColumnarRateStore.Series series = columnarRateStore.acquire(baseCurrency)) {
+            if (series != null) {
+                for (int position : positions) {
+                    result[position] = asOf(baseCurrency, series, keys.get(position).time(), mode);
+                }
+                return;
+            }
+        }
+        LocalDateTime first = keys.get(positions.get(0)).time();
+        LocalDateTime last = keys.get(positions.get(positions.size() - 1)).time();
+        LocalDateTime from = first;
+        LocalDateTime to = last;
+        if (mode != AsOfMode.CEILING) {
+            List<CurrencyExchangeRate> floor = currencyRepos.findFloor(baseCurrency, first, Limit.of(1));
+            from = floor.isEmpty() ? first : floor.get(0).getUpdateTime();
+        }
+        if (mode != AsOfMode.FLOOR) {
+            List<CurrencyExchangeRate> ceiling = currencyRepos.findCeiling(baseCurrency, last, Limit.of(1));
+            to = ceiling.isEmpty() ? last : ceiling.get(0).getUpdateTime();
+        }
+        try (Stream<CurrencyExchangeRate> rows = currencyRepos.streamRange(baseCurrency, from, to)) {
+            Iterator<CurrencyExchangeRate> it = rows.iterator();
+            // before: newest row earlier than the current time, next: oldest row at or after it. Rows are only
+            // mapped once a lookup returns or blends them, and each is mapped at most once
+            CurrencyExchangeRate before = null;
+            CurrencyExchangeRateDto beforeDto = null;
+            CurrencyExchangeRate next = it.hasNext() ? it.next() : null;
+            CurrencyExchangeRateDto nextDto = null;
+            for (int position : positions) {
+                LocalDateTime time = keys.get(position).time();
+                while (next != null && next.getUpdateTime().isBefore(time)) {
+                    if (before != null) {
+                        entityManager.detach(before);
+                    }
+                    before = next;
+                    beforeDto = nextDto;
+                    next = it.hasNext() ? it.next() : null;
+                    nextDto = null;
+                }
+                boolean exact = next != null && next.getUpdateTime().equals(time);
+                boolean useNext = exact || mode == AsOfMode.CEILING || (mode == AsOfMode.INTERPOLATE && before != null);
+                boolean useBefore = !exact && (mode == AsOfMode.FLOOR || (mode == AsOfMode.INTERPOLATE && next != null));
+                if (useNext && next != null && nextDto == null) {
+                    nextDto = mapper.toDto(next);
+                }
+                if (useBefore && before != null && beforeDto == null) {
+                    beforeDto = mapper.toDto(before);
+                }
+                result[position] = switch (mode) {
+                    case FLOOR -> exact ? nextDto : beforeDto;
+                    case CEILING -> nextDto;
+                    case INTERPOLATE -> exact ? nextDto
+                            : beforeDto == null || nextDto == null ? null : interpolate(beforeDto, nextDto, time);
+                };
+            }
+        }
+    }
+
+    private static CurrencyExchangeRateDto asOf(String baseCurrency, ColumnarRateStore.Series series,
+                                                LocalDateTime time, AsOfMode mode) {
+        // after: first rate at or after the time, so the one before it is the newest earlier rate
+        int after = series.lowerBound(ColumnarRateStore.toEpochMillisCeiling(time));
+        boolean exact = after < series.size() && series.time(after) == ColumnarRateStore.toEpochMillis(time)
+                && time.getNano() % 1_000_000 == 0;
+        int before = after - 1;
+        return switch (mode) {
+            case FLOOR -> exact ? toDto(baseCurrency, series, after)
+                    : before >= 0 ? toDto(baseCurrency, series, before) : null;
+            case CEILING -> after < series.size() ? toDto(baseCurrency, series, after) : null;
+            case INTERPOLATE -> exact ? toDto(baseCurrency, series, after)
+                    : before < 0 || after == series.size() ? null
+                    : interpolate(toDto(baseCurrency, series, before), toDto(baseCurrency, series, after), time);
+        };
+    }
+
+    private CurrencyExchangeRateDto seek(String baseCurrency, LocalDateTime time, boolean floor) {
+        List<CurrencyExchangeRate> rows = floor
+                ? currencyRepos.findFloor(baseCurrency, time, Limit.of(1))
+                : currencyRepos.findCeiling(baseCurrency, time, Limit.of(1));
+        return rows.isEmpty() ? null : mapper.toDto(rows.get(0));
+    }
+
+    private static List<CurrencyExchangeRateDto> toDtos(String baseCurrency, ColumnarRateStore.Series series) {
+        if (series.size() == 0) {
+            return null;
+        }
+        List<CurrencyExchangeRateDto> result = new ArrayList<>(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            result.add(toDto(baseCurrency, series, i));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Builds the same DTO {@link CurrencyMapper} does for a stored row, straight from the columns.
+     */
+    private static CurrencyExchangeRateDto toDto(String baseCurrency, ColumnarRateStore.Series series, int index) {
+        return CurrencyExchangeRateDto.builder()
+                .baseCurrency(baseCurrency)
+                .quoteCurrency(QUOTE_CURRENCY)
+                .closeTime(ColumnarRateStore.toTime(series.time(index)).toString())
+                .averageBid(ColumnarRateStore.format(series.averageBid(index)))
+                .averageAsk(ColumnarRateStore.format(series.averageAsk(index)))
+                .highBid(ColumnarRateStore.format(series.highBid(index)))
+                .highAsk(ColumnarRateStore.format(series.highAsk(index)))
+                .lowBid(ColumnarRateStore.format(series.lowBid(index)))
+                .lowAsk(ColumnarRateStore.format(series.lowAsk(index)))
+                .build();
+    }
+
+    static CurrencyExchangeRateDto interpolate(CurrencyExchangeRateDto before, CurrencyExchangeRateDto after,
+                                               LocalDateTime time) {
+        LocalDateTime from = LocalDateTime.parse(before.getCloseTime());
+        BigDecimal weight = BigDecimal.valueOf(Duration.between(from, time).toNanos()).divide(
+                BigDecimal.valueOf(Duration.between(from, LocalDateTime.parse(after.getCloseTime())).toNanos()),
+                MathContext.DECIMAL64);
+        return CurrencyExchangeRateDto.builder()
+                .baseCurrency(before.getBaseCurrency())
+                .quoteCurrency(before.getQuoteCurrency())
+                .closeTime(time.toString())
+                .averageBid(lerp(before.getAverageBid(), after.getAverageBid(), weight))
+                .averageAsk(lerp(before.getAverageAsk(), after.getAverageAsk(), weight))
+                .highBid(lerp(before.getHighBid(), after.getHighBid(), weight))
+                .highAsk(lerp(before.getHighAsk(), after.getHighAsk(), weight))
+                .lowBid(lerp(before.getLowBid(), after.getLowBid(), weight))
+                .lowAsk(lerp(before.getLowAsk(), after.getLowAsk(), weight))
+                .build();
+    }
+
+    private static String lerp(String from, String to, BigDecimal weight) {
+        if (from == null || to == null) {
+            return null;
+        }
+        long start = FixedPoint.parse(from);
+        long step = BigDecimal.valueOf(Math.subtractExact(FixedPoint.parse(to), start)).multiply(weight)
+                .setScale(0, RoundingMode.HALF_UP).longValueExact();
+        return FixedPoint.format(start + step);
+    }
+
+    @Transactional
+    public CurrencyExchangeRate updateExchangeRate(String baseCurrency, LocalDateTime updateTime, RateDto rate) {
+        CurrencyExchangeRate rateEntity = currencyRepos.findByCurrencyCodeAndUpdateTime(baseCurrency, updateTime);
         if (rateEntity == null) {
             throw new UnsupportedOperationException(
                     messageSource.getMessage("updateCurrencyExchangeNotFound", null, LocaleContextHolder.getLocale()));
         }
-        rateEntity.setHighBid(rate.getHighBid());
-        rateEntity.setLowBid(rate.getLowBid());
-        rateEntity.setHighAsk(rate.getHighAsk());
-        rateEntity.setLowAsk(rate.getLowAsk());
-        rateEntity.setAverageAsk(rate.getAverageAsk());
-        rateEntity.setAverageBid(rate.getAverageBid());
-        return currencyRepos.save(rateEntity);
+        rateEntity.setHighBid(toPrice(rate.getHighBid()));
+        rateEntity.setLowBid(toPrice(rate.getLowBid()));
+        rateEntity.setHighAsk(toPrice(rate.getHighAsk()));
+        rateEntity.setLowAsk(toPrice(rate.getLowAsk()));
+        rateEntity.setAverageAsk(toPrice(rate.getAverageAsk()));
+        rateEntity.setAverageBid(toPrice(rate.getAverageBid()));
+        CurrencyExchangeRate saved = currencyRepos.save(rateEntity);
+        rollupService.refresh(baseCurrency, List.of(updateTime));
+        latestRateIndex.offer(saved);
+        columnarRateStore.offerAll(List.of(rateEntity));
+        rateCache.invalidate(baseCurrency, updateTime);
+        return saved;
     }
 
+    @Transactional
     public void deleteExchangeRate(String baseCurrency) {
         currencyRepos.deleteByBaseCurrency(baseCurrency);
+        rollupService.deleteCurrency(baseCurrency);
+        latestRateIndex.removedCurrency(baseCurrency);
+        columnarRateStore.removedCurrency(baseCurrency);
+        rateCache.invalidateCurrency(baseCurrency);
+    }
+
+    @Transactional
+    public void deleteExchangeRateAtTime(String baseCurrency, LocalDateTime updateTime) {
+        currencyRepos.deleteByBaseCurrencyAndUpdateTime(baseCurrency, updateTime);
+        rollupService.refresh(baseCurrency, List.of(updateTime));
+        latestRateIndex.removed(baseCurrency, updateTime);
+        columnarRateStore.removed(baseCurrency, updateTime);
+        rateCache.invalidate(baseCurrency, updateTime);
     }
 
-    public void deleteExchangeRateAtTime(String baseCurrency, String update_time) {
-        currencyRepos.deleteByBaseCurrencyAndUpdateTime(baseCurrency,
-                LocalDateTime.parse(update_time, FMT));
+    public CacheStatsResponse getCacheStats() {
+        return rateCache.stats();
+    }
+
+    public enum AsOfMode {
+        FLOOR, CEILING, INTERPOLATE
+    }
+
+    public record AsOfKey(String baseCurrency, LocalDateTime time) {
+    }
+
+    public record UpsertResult(int inserted, int updated, int unchanged) {
+    }
+
+    private record RateKey(String baseCurrency, LocalDateTime updateTime) {
+        static RateKey of(CurrencyExchangeRate rate) {
+            return new RateKey(rate.getBaseCurrency(), rate.getUpdateTime());
+        }
     }
 
 }
@@ -1,19 +1,26 @@
 package com.example.currency_exchange.service;
 
 import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
-import com.example.currency_exchange.dto.RateDto;
+import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.entity.CurrencySyncCheckpoint;
+import com.example.currency_exchange.repo.CurrencySyncCheckpointRepos;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+@Slf4j
 @Service
 public class CurrencySyncService {
 
@@ -23,51 +30,114 @@ public class CurrencySyncService {
     @Autowired
     private CurrencyService currencyService;
 
+    @Autowired
+    private CurrencySyncCheckpointRepos checkpointRepos;
+
+    @Autowired
+    private FxdsRateService fxdsRateService;
+
+    @Value("${currency.sync.currencies:VND,EUR}")
+    private List<String> currencies = List.of("VND", "EUR");
+
+    @Value("${currency.sync.parallelism:8}")
+    private int parallelism = 8;
+
+    @Value("${currency.sync.max-requests-per-host:4}")
+    private int maxRequestsPerHost = 4;
+
+    @Value("${currency.sync.initial-lookback-days:1}")
+    private int initialLookbackDays = 1;
+
+    @Value("${currency.sync.max-days-per-request:30}")
+    private int maxDaysPerRequest = 30;
+
     @Scheduled(cron = "0 30 17 * * *")
     public void syncCurrencyByDay() {
-        String baseCurrency = "VND";
-        LocalDate startDate = LocalDateTime.now().toLocalDate().minusDays(1);
-        LocalDate endDate = LocalDateTime.now().toLocalDate();
-
-        List<CurrencyExchangeRateDto> syncCurrencyRate = clientService.getCurrencyExchangeRates(baseCurrency,
-                startDate, endDate);
-        for (CurrencyExchangeRateDto rateDto : syncCurrencyRate) {
-            RateDto rate = RateDto.builder()
-                    .averageBid(new BigDecimal(rateDto.getAverageBid()))
-                    .averageAsk(new BigDecimal(rateDto.getAverageAsk()))
-                    .highBid(new BigDecimal(rateDto.getHighBid()))
-                    .highAsk(new BigDecimal(rateDto.getHighAsk()))
-                    .lowBid(new BigDecimal(rateDto.getLowBid()))
-                    .lowAsk(new BigDecimal(rateDto.getLowAsk()))
-                    .build();
-            DateTimeFormatter OUT_FMT =
-                    DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss").withZone(ZoneId.of("UTC"));
-            Instant instant = Instant.parse(rateDto.getCloseTime());
-
-            // DTO closeTime is a string (ISO); CurrencyService expects update_time as String
-            currencyService.addExchangeRate(rateDto.getBaseCurrency(),
-                    OUT_FMT.format(instant), rate);
+        LocalDate today = LocalDateTime.now().toLocalDate();
+
+        long started = System.nanoTime();
+        // every currency is fetched from the same FXDS host, so one semaphore is the per-host limit
+        Semaphore hostPermits = new Semaphore(maxRequestsPerHost);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, currencies.size())));
+        try {
+            List<CompletableFuture<Boolean>> results = new ArrayList<>(currencies.size());
+            for (String baseCurrency : currencies) {
+                results.add(CompletableFuture.supplyAsync(
+                        () -> syncCurrency(baseCurrency, today, hostPermits), executor));
+            }
+            long failed = results.stream().map(CompletableFuture::join).filter(ok -> !ok).count();
+            log.info("Currency sync finished: {} currencies, {} failed, {} ms",
+                    currencies.size(), failed, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } finally {
+            executor.shutdown();
         }
-        baseCurrency = "EUR";
-        syncCurrencyRate = clientService.getCurrencyExchangeRates(baseCurrency,
-                startDate, endDate);
-        for (CurrencyExchangeRateDto rateDto : syncCurrencyRate) {
-            RateDto rate = RateDto.builder()
-                    .averageBid(new BigDecimal(rateDto.getAverageBid()))
-                    .averageAsk(new BigDecimal(rateDto.getAverageAsk()))
-                    .highBid(new BigDecimal(rateDto.getHighBid()))
-                    .highAsk(new BigDecimal(rateDto.getHighAsk()))
-                    .lowBid(new BigDecimal(rateDto.getLowBid()))
-                    .lowAsk(new BigDecimal(rateDto.getLowAsk()))
-                    .build();
-
-            DateTimeFormatter OUT_FMT =
-                    DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss").withZone(ZoneId.of("UTC"));
-            Instant instant = Instant.parse(rateDto.getCloseTime());
-
-            // DTO closeTime is a string (ISO); CurrencyService expects update_time as String
-            currencyService.addExchangeRate(rateDto.getBaseCurrency(),
-                    OUT_FMT.format(instant), rate);
+    }
+
+    /**
+     * Fetches everything from the currency's checkpoint up to today in windows of at most maxDaysPerRequest days,
+     * upserting each window and moving the checkpoint forward after it, so a failed run resumes where it stopped.
+     */
+    private boolean syncCurrency(String baseCurrency, LocalDate today, Semaphore hostPermits) {
+        long started = System.nanoTime();
+        int fetched = 0;
+        int inserted = 0;
+        int updated = 0;
+        try {
+            CurrencySyncCheckpoint.Key key = new CurrencySyncCheckpoint.Key(baseCurrency, CurrencyService.QUOTE_CURRENCY);
+            LocalDateTime mark = checkpointRepos.findById(key).map(CurrencySyncCheckpoint::getLastUpdateTime).orElse(null);
+            LocalDate from = today.minusDays(mark == null ? initialLookbackDays : 1);
+            if (mark != null && mark.toLocalDate().isBefore(from)) {
+                from = mark.toLocalDate();
+            }
+
+            for (LocalDate windowStart = from; windowStart.isBefore(today); ) {
+                LocalDate windowEnd = windowStart.plusDays(maxDaysPerRequest);
+                if (windowEnd.isAfter(today)) {
+                    windowEnd = today;
+                }
+                List<CurrencyExchangeRateDto> syncCurrencyRate;
+                hostPermits.acquire();
+                try {
+                    syncCurrencyRate = clientService.getCurrencyExchangeRates(baseCurrency, windowStart, windowEnd);
+                } finally {
+                    hostPermits.release();
+                }
+
+                List<CurrencyExchangeRate> rates = new ArrayList<>(syncCurrencyRate.size());
+                LocalDateTime newMark = mark;
+                for (CurrencyExchangeRateDto rateDto : syncCurrencyRate) {
+                    CurrencyExchangeRate rate = CurrencyService.getCurrencyExchangeRate(rateDto);
+                    // rows before the mark were ingested by an earlier run
+                    if (mark == null || !rate.getUpdateTime().isBefore(mark)) {
+                        rates.add(rate);
+                        if (newMark == null || rate.getUpdateTime().isAfter(newMark)) {
+                            newMark = rate.getUpdateTime();
+                        }
+                    }
+                }
+                CurrencyService.UpsertResult result = currencyService.upsertExchangeRates(rates);
+                fetched += syncCurrencyRate.size();
+                inserted += result.inserted();
+                updated += result.updated();
+                // the window's finished days are now stored in full, lookups can serve them locally
+                fxdsRateService.markCovered(baseCurrency, windowStart, windowEnd);
+                if (newMark != null && !newMark.equals(mark)) {
+                    checkpointRepos.save(new CurrencySyncCheckpoint(baseCurrency, CurrencyService.QUOTE_CURRENCY, newMark));
+                    mark = newMark;
+                }
+                windowStart = windowEnd;
+            }
+            log.info("Synced {} from {}: fetched={} inserted={} updated={} mark={} in {} ms", baseCurrency, from,
+                    fetched, inserted, updated, mark, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Sync of {} interrupted", baseCurrency);
+            return false;
+        } catch (Exception e) {
+            log.error("Sync of {} failed after {} ms (fetched={} inserted={} updated={})", baseCurrency,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), fetched, inserted, updated, e);
+            return false;
         }
     }
 }
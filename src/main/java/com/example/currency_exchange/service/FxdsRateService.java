@@ -0,0 +1,147 @@
+package com.example.currency_exchange.service;
+
+import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
+import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.mapper.CurrencyMapper;
+import com.example.currency_exchange.repo.CurrencyRateCoverageRepos;
+import com.example.currency_exchange.repo.CurrencyRepos;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Local-first FXDS lookups: days already stored are served from the database, only the missing day ranges are
+ * fetched from upstream. Fetched rows are upserted and their days marked as covered, except days that are not
+ * over yet (UTC), so repeated historical lookups cost no remote call.
+ */
+@Slf4j
+@Service
+public class FxdsRateService {
+
+    @Autowired
+    private CurrencyClientService clientService;
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    @Autowired
+    private CurrencyRepos currencyRepos;
+
+    @Autowired
+    private CurrencyRateCoverageRepos coverageRepos;
+
+    @Autowired
+    private CurrencyMapper mapper;
+
+    // JDBC work never runs on the HTTP client's event loop
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor executor;
+
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * Returns the rates of [startDate, endDate), oldest first, calling upstream only for days not covered yet.
+     */
+    public CompletableFuture<List<CurrencyExchangeRateDto>> getExchangeRates(String baseCurrency, LocalDate startDate, LocalDate endDate) {
+        if (!endDate.isAfter(startDate)) {
+            // not a day range, nothing to serve locally
+            return clientService.getCurrencyExchangeRatesAsync(baseCurrency, startDate, endDate);
+        }
+        List<LocalDate[]> missing = missingRanges(baseCurrency, startDate, endDate);
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(readLocal(baseCurrency, startDate, endDate));
+        }
+        CompletableFuture<?>[] fetches = new CompletableFuture<?>[missing.size()];
+        for (int i = 0; i < fetches.length; i++) {
+            LocalDate from = missing.get(i)[0];
+            LocalDate to = missing.get(i)[1];
+            fetches[i] = clientService.getCurrencyExchangeRatesAsync(baseCurrency, from, to)
+                    .thenAcceptAsync(rows -> store(baseCurrency, from, to, rows), executor);
+        }
+        log.info("FXDS {} [{}, {}): fetching {} missing range(s) from upstream", baseCurrency, startDate, endDate, missing.size());
+        return CompletableFuture.allOf(fetches)
+                .thenApplyAsync(ignored -> readLocal(baseCurrency, startDate, endDate), executor);
+    }
+
+    /**
+     * Records that every finished day of [from, to) is stored. Today and later days are skipped as they can still change.
+     * Lookups and syncs of overlapping windows may mark the same days concurrently; a day someone else marked first
+     * is already covered, so that conflict is not an error.
+     */
+    public void markCovered(String baseCurrency, LocalDate from, LocalDate to) {
+        LocalDate today = LocalDate.now(clock);
+        for (LocalDate day = from; day.isBefore(to) && day.isBefore(today); day = day.plusDays(1)) {
+            try {
+                coverageRepos.markCovered(baseCurrency, CurrencyService.QUOTE_CURRENCY, day);
+            } catch (DataIntegrityViolationException e) {
+                log.debug("FXDS {} {} marked covered by a concurrent writer", baseCurrency, day);
+            }
+        }
+    }
+
+    /**
+     * Splits the uncovered days of [startDate, endDate) into contiguous [from, to) ranges.
+     */
+    private List<LocalDate[]> missingRanges(String baseCurrency, LocalDate startDate, LocalDate endDate) {
+        Set<LocalDate> covered = new HashSet<>(coverageRepos.findCoveredDays(
+                baseCurrency, CurrencyService.QUOTE_CURRENCY, startDate, endDate));
+        List<LocalDate[]> ranges = new ArrayList<>();
+        LocalDate rangeStart = null;
+        for (LocalDate day = startDate; day.isBefore(endDate); day = day.plusDays(1)) {
+            if (!covered.contains(day)) {
+                if (rangeStart == null) {
+                    rangeStart = day;
+                }
+            } else if (rangeStart != null) {
+                ranges.add(new LocalDate[]{rangeStart, day});
+                rangeStart = null;
+            }
+        }
+        if (rangeStart != null) {
+            ranges.add(new LocalDate[]{rangeStart, endDate});
+        }
+        return ranges;
+    }
+
+    private void store(String baseCurrency, LocalDate from, LocalDate to, List<CurrencyExchangeRateDto> rows) {
+        List<CurrencyExchangeRate> rates = new ArrayList<>(rows.size());
+        for (CurrencyExchangeRateDto row : rows) {
+            rates.add(CurrencyService.getCurrencyExchangeRate(row));
+        }
+        try {
+            currencyService.upsertExchangeRates(rates);
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent lookup of the same range stored the rows first and marks the days itself
+            log.info("FXDS {} [{}, {}) already stored by a concurrent lookup", baseCurrency, from, to);
+            return;
+        }
+        markCovered(baseCurrency, from, to);
+    }
+
+    private List<CurrencyExchangeRateDto> readLocal(String baseCurrency, LocalDate startDate, LocalDate endDate) {
+        List<CurrencyExchangeRate> rows = currencyRepos.findPage(baseCurrency, startDate.atStartOfDay(),
+                endDate.atStartOfDay(), Limit.unlimited());
+        List<CurrencyExchangeRateDto> result = new ArrayList<>(rows.size());
+        for (CurrencyExchangeRate row : rows) {
+            CurrencyExchangeRateDto dto = mapper.toDto(row);
+            // upstream sends close_time as an ISO instant; stored rows are UTC, so they are printed the same way
+            dto.setCloseTime(row.getUpdateTime().toInstant(ZoneOffset.UTC).toString());
+            result.add(dto);
+        }
+        return result;
+    }
+}
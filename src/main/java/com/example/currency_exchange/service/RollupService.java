@@ -0,0 +1,234 @@
+package com.example.currency_exchange.service;
+
+import com.example.currency_exchange.cache.AfterCommit;
+import com.example.currency_exchange.dto.RateRollupDto;
+import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.entity.CurrencyRateRollup;
+import com.example.currency_exchange.entity.CurrencyRateRollupPending;
+import com.example.currency_exchange.entity.RollupResolution;
+import com.example.currency_exchange.repo.CurrencyRateRollupPendingRepos;
+import com.example.currency_exchange.repo.CurrencyRateRollupRepos;
+import com.example.currency_exchange.util.FixedPoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Keeps the hour/day/week OHLC rollups of {@code currency_exchange_rate} in step with its writes and serves them.
+ * <p>
+ * A write records the hours it touched as pending rows in its own transaction. Once it commits, those hours are
+ * recomputed from their rates, and their days and weeks from the hour and day buckets, in a transaction of their own:
+ * writers of the same bucket never contend inside the rate transaction, a refresh that fails cannot roll the rates back,
+ * and no refresh reads more than an hour of rates. The refresh removes the pending rows; rows left behind by a refresh
+ * that failed, or by a process that stopped before it ran, are refreshed by {@link #reconcile()}.
+ */
+@Slf4j
+@Service
+public class RollupService {
+
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final int REFRESH_ATTEMPTS = 2;
+    private static final int RECONCILE_BATCH_SIZE = 1000;
+
+    @Autowired
+    CurrencyRateRollupRepos rollupRepos;
+
+    @Autowired
+    CurrencyRateRollupPendingRepos pendingRepos;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Value("${currency.rollup.reconcile-delay-ms:60000}")
+    private long reconcileDelayMs = 60000;
+
+    /**
+     * Refreshes the buckets of newly inserted rates once the inserting transaction commits.
+     */
+    public void addRates(Collection<CurrencyExchangeRate> rates) {
+        Map<String, List<LocalDateTime>> timesByCurrency = new LinkedHashMap<>();
+        for (CurrencyExchangeRate rate : rates) {
+            timesByCurrency.computeIfAbsent(rate.getBaseCurrency(), k -> new ArrayList<>()).add(rate.getUpdateTime());
+        }
+        timesByCurrency.forEach(this::refresh);
+    }
+
+    /**
+     * Recomputes the buckets holding the given times of the currency once the current transaction commits, dropping
+     * buckets left empty. Call inside the transaction that inserted, changed or deleted rates at those times, so the
+     * pending hours commit with them.
+     */
+    public void refresh(String baseCurrency, Collection<LocalDateTime> times) {
+        if (times.isEmpty()) {
+            return;
+        }
+        SortedSet<LocalDateTime> hours = new TreeSet<>();
+        for (LocalDateTime time : times) {
+            hours.add(RollupResolution.HOUR.bucketStart(time));
+        }
+        String writeId = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        for (LocalDateTime hour : hours) {
+            pendingRepos.markPending(baseCurrency, hour, writeId, now);
+        }
+        AfterCommit.run(() -> refreshInOwnTransaction(baseCurrency, hours));
+    }
+
+    /**
+     * Drops the rollups and pending hours of the currency in the current transaction, together with its rates.
+     */
+    public void deleteCurrency(String baseCurrency) {
+        rollupRepos.deleteByBaseCurrency(baseCurrency);
+        pendingRepos.deleteByBaseCurrency(baseCurrency);
+    }
+
+    @Scheduled(fixedDelayString = "${currency.rollup.reconcile-delay-ms:60000}",
+            initialDelayString = "${currency.rollup.reconcile-delay-ms:60000}")
+    public void reconcile() {
+        reconcile(LocalDateTime.now().minus(Duration.ofMillis(reconcileDelayMs)));
+    }
+
+    /**
+     * Refreshes the hours with pending rows recorded before the given time, whose own refresh is long overdue.
+     *
+     * @return number of pending rows handled
+     */
+    int reconcile(LocalDateTime pendingBefore) {
+        List<CurrencyRateRollupPending> overdue = pendingRepos.findCreatedBefore(pendingBefore,
+                Limit.of(RECONCILE_BATCH_SIZE));
+        Map<String, SortedSet<LocalDateTime>> hoursByCurrency = new LinkedHashMap<>();
+        for (CurrencyRateRollupPending pending : overdue) {
+            hoursByCurrency.computeIfAbsent(pending.getBaseCurrency(), k -> new TreeSet<>()).add(pending.getHourStart());
+        }
+        hoursByCurrency.forEach(this::refreshInOwnTransaction);
+        return overdue.size();
+    }
+
+    // a first attempt that lost a race to create a bucket finds it existing on the second
+    private void refreshInOwnTransaction(String baseCurrency, SortedSet<LocalDateTime> hours) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transaction.executeWithoutResult(status -> refreshHours(baseCurrency, hours));
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == REFRESH_ATTEMPTS) {
+                    log.warn("Rollups of {} not refreshed, their pending hours are left for reconciliation",
+                            baseCurrency, e);
+                    return;
+                }
+            }
+        }
+    }
+
+    // hours are claimed before days and days before weeks, each in time order, so refreshes sharing buckets lock them
+    // in the same order
+    private void refreshHours(String baseCurrency, SortedSet<LocalDateTime> hours) {
+        for (RollupResolution resolution : RollupResolution.values()) {
+            SortedSet<LocalDateTime> bucketStarts = new TreeSet<>();
+            for (LocalDateTime hour : hours) {
+                bucketStarts.add(resolution.bucketStart(hour));
+            }
+            for (LocalDateTime bucketStart : bucketStarts) {
+                refreshBucket(baseCurrency, resolution, bucketStart);
+            }
+        }
+    }
+
+    // claiming the bucket first serialises refreshes of it, so the later one aggregates every rate committed before it.
+    // An hour's pending rows are dropped before its rates are read, so every rate they stand for is aggregated here
+    private void refreshBucket(String baseCurrency, RollupResolution resolution, LocalDateTime bucketStart) {
+        String quoteCurrency = CurrencyService.QUOTE_CURRENCY;
+        LocalDateTime bucketEnd = resolution.nextBucketStart(bucketStart);
+        rollupRepos.claimBucket(baseCurrency, quoteCurrency, resolution.name(), bucketStart);
+        int merged;
+        if (resolution.finer() == null) {
+            pendingRepos.deleteHour(baseCurrency, bucketStart);
+            merged = rollupRepos.mergeBucket(baseCurrency, quoteCurrency, resolution.name(), bucketStart, bucketEnd);
+        } else {
+            merged = rollupRepos.mergeBucketFromFiner(baseCurrency, quoteCurrency, resolution.name(), bucketStart,
+                    bucketEnd, resolution.finer().name());
+        }
+        if (merged == 0) {
+            rollupRepos.deleteBucket(baseCurrency, quoteCurrency, resolution.name(), bucketStart);
+        }
+    }
+
+    /**
+     * Returns the buckets of the currency at the given resolution overlapping [from, to), oldest first;
+     * a null from/to leaves that side of the window open.
+     */
+    @Transactional(readOnly = true)
+    public List<RateRollupDto> getRollups(String baseCurrency, RollupResolution resolution, LocalDateTime from, LocalDateTime to) {
+        List<CurrencyRateRollup> rollups = rollupRepos.findRange(baseCurrency, CurrencyService.QUOTE_CURRENCY, resolution,
+                from == null ? MIN_TIME : resolution.bucketStart(from), to == null ? MAX_TIME : to);
+        List<RateRollupDto> result = new ArrayList<>(rollups.size());
+        for (CurrencyRateRollup rollup : rollups) {
+            result.add(toDto(rollup));
+        }
+        return result;
+    }
+
+    private static RateRollupDto toDto(CurrencyRateRollup rollup) {
+        return RateRollupDto.builder()
+                .baseCurrency(rollup.getBaseCurrency())
+                .quoteCurrency(rollup.getQuoteCurrency())
+                .resolution(rollup.getResolution().name())
+                .bucketStart(rollup.getBucketStart().toString())
+                .openTime(toString(rollup.getOpenTime()))
+                .openBid(format(rollup.getOpenBid()))
+                .openAsk(format(rollup.getOpenAsk()))
+                .closeTime(toString(rollup.getCloseTime()))
+                .closeBid(format(rollup.getCloseBid()))
+                .closeAsk(format(rollup.getCloseAsk()))
+                .lowBid(format(rollup.getLowBid()))
+                .lowAsk(format(rollup.getLowAsk()))
+                .highBid(format(rollup.getHighBid()))
+                .highAsk(format(rollup.getHighAsk()))
+                .averageBid(mean(rollup.getSumAverageBid(), rollup.getRowCount()))
+                .averageAsk(mean(rollup.getSumAverageAsk(), rollup.getRowCount()))
+                .count(rollup.getRowCount())
+                .build();
+    }
+
+    private static String format(Long price) {
+        return price == null ? null : FixedPoint.format(price);
+    }
+
+    // a bucket sum fits a FixedPoint long unless it adds up past ~922 million
+    private static String mean(BigDecimal sum, long count) {
+        if (sum == null || count == 0) {
+            return null;
+        }
+        if (sum.scale() == FixedPoint.SCALE && sum.precision() <= 18) {
+            return FixedPoint.format(FixedPoint.mean(FixedPoint.valueOf(sum), count));
+        }
+        return sum.divide(BigDecimal.valueOf(count), FixedPoint.SCALE, RoundingMode.HALF_UP).toString();
+    }
+
+    private static String toString(Object value) {
+        return value == null ? null : value.toString();
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.currency_exchange.service;
+
+import com.example.currency_exchange.util.RSAUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Issues RSA key pairs by id and decrypts with the private key of a given id.
+ * <p>
+ * Key pairs are generated ahead of time by a background thread into a bounded pool, so issuing a key is a queue poll
+ * instead of a prime search on the request thread. Issued private keys stay addressable by id until they expire, so
+ * clients holding different keys do not overwrite each other.
+ */
+@Slf4j
+@Service
+public class RsaKeyringService implements DisposableBean {
+
+    private final MessageSource messageSource;
+    private final int keySize;
+    private final BlockingQueue<KeyPair> pool;
+    private final Cache<String, PrivateKey> privateKeys;
+    private final AtomicLong poolMisses = new AtomicLong();
+    private final Thread generator;
+
+    public RsaKeyringService(MessageSource messageSource,
+                             @Value("${rsa.keyring.key-size:2048}") int keySize,
+                             @Value("${rsa.keyring.pool-size:8}") int poolSize,
+                             @Value("${rsa.keyring.ttl-seconds:3600}") long ttlSeconds,
+                             @Value("${rsa.keyring.max-keys:10000}") long maxKeys) {
+        this.messageSource = messageSource;
+        this.keySize = keySize;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+        this.privateKeys = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        this.generator = new Thread(this::fillPool, "rsa-keygen");
+        this.generator.setDaemon(true);
+        this.generator.start();
+    }
+
+    private void fillPool() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                // put blocks while the pool is full, so at most poolSize pairs wait unissued
+                pool.put(RSAUtil.generateKeyPair(keySize));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("RSA key pre-generation stopped, keys will be generated on demand", e);
+        }
+    }
+
+    /**
+     * Hands out a pre-generated key pair under a new id, generating one inline only when the pool has run dry.
+     */
+    public IssuedKey issue() {
+        KeyPair keyPair = pool.poll();
+        if (keyPair == null) {
+            poolMisses.incrementAndGet();
+            keyPair = RSAUtil.generateKeyPair(keySize);
+        }
+        String keyId = UUID.randomUUID().toString();
+        privateKeys.put(keyId, keyPair.getPrivate());
+        return new IssuedKey(keyId, RSAUtil.publicKeyToBase64(keyPair.getPublic()));
+    }
+
+    /**
+     * Decrypts with the private key issued under keyId; a missing, unknown or expired id is rejected. There is no
+     * default key: the ciphertext can only have come from the client the id was issued to.
+     */
+    public String decrypt(String keyId, String base64Cipher) {
+        if (keyId == null || keyId.isBlank()) {
+            throw new IllegalArgumentException(
+                    messageSource.getMessage("rsaKeyIdRequired", null, LocaleContextHolder.getLocale()));
+        }
+        PrivateKey privateKey = privateKeys.getIfPresent(keyId);
+        if (privateKey == null) {
+            throw new IllegalArgumentException(
+                    messageSource.getMessage("rsaKeyNotFound", null, LocaleContextHolder.getLocale()));
+        }
+        return RSAUtil.decrypt(base64Cipher, privateKey);
+    }
+
+    public int getAvailable() {
+        return pool.size();
+    }
+
+    public long getPoolMisses() {
+        return poolMisses.get();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        generator.interrupt();
+        generator.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    public record IssuedKey(String keyId, String publicKeyBase64) {
+    }
+}
@@ -1,20 +1,19 @@
 package com.example.currency_exchange.util;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.time.format.ResolverStyle;
 
 /**
  * Utility for checking and parsing date-time strings in the exact format "yyyy/MM/dd HH:mm:ss".
  * <p>
  * Examples of valid value: "2025/11/01 00:00:00"
+ * <p>
+ * The format is fixed width, so values are read digit by digit in a single pass: no formatter, no parsed-field map
+ * and no exception for a bad value. Callers validate and parse with one {@link #parseOrNull} call and pass the result on.
  */
 public class CheckDateUtil {
 
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter
-            .ofPattern("uuuu/MM/dd HH:mm:ss")
-            .withResolverStyle(ResolverStyle.STRICT);
+    private static final int LENGTH = 19;
 
     private CheckDateUtil() {
         // utility
@@ -25,15 +24,7 @@ public class CheckDateUtil {
      * Returns false for null, empty, or invalid strings.
      */
     public static boolean isValid(String dateTimeStr) {
-        if (dateTimeStr == null || dateTimeStr.isBlank()) {
-            return false;
-        }
-        try {
-            LocalDateTime.parse(dateTimeStr, FORMATTER);
-            return true;
-        } catch (DateTimeParseException ex) {
-            return false;
-        }
+        return parseOrNull(dateTimeStr) != null;
     }
 
     /**
@@ -41,6 +32,57 @@ public class CheckDateUtil {
      * Throws DateTimeParseException if invalid.
      */
     public static LocalDateTime parse(String dateTimeStr) {
-        return LocalDateTime.parse(dateTimeStr, FORMATTER);
+        LocalDateTime result = parseOrNull(dateTimeStr);
+        if (result == null) {
+            throw new DateTimeParseException("Text '" + dateTimeStr + "' is not a valid yyyy/MM/dd HH:mm:ss date-time",
+                    dateTimeStr == null ? "" : dateTimeStr, 0);
+        }
+        return result;
+    }
+
+    /**
+     * Parses the input string using the exact pattern yyyy/MM/dd HH:mm:ss, returning null if it is null, has another
+     * shape or is not a real calendar date-time (e.g. Feb 30th or hour 24).
+     */
+    public static LocalDateTime parseOrNull(String s) {
+        if (s == null || s.length() != LENGTH
+                || s.charAt(4) != '/' || s.charAt(7) != '/' || s.charAt(10) != ' '
+                || s.charAt(13) != ':' || s.charAt(16) != ':') {
+            return null;
+        }
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        int second = digits(s, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second);
+    }
+
+    /**
+     * Reads count ASCII digits starting at from, or returns -1 if any of them is not a digit.
+     */
+    private static int digits(String s, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
     }
 }
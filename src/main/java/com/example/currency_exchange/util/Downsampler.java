@@ -0,0 +1,295 @@
+package com.example.currency_exchange.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Reduces a time-ordered series of known length to at most a given number of points in one pass, for charts.
+ * <p>
+ * Points are fed with {@link #accept} in order and the kept ones are passed to the output as they are decided;
+ * {@link #finish} flushes the tail. Two modes:
+ * <ul>
+ *     <li>{@link Mode#LTTB}: Largest-Triangle-Three-Buckets. Keeps the first and last point and, of every bucket
+ *     in between, the point forming the largest triangle with the previously kept point and the next bucket's
+ *     average, which preserves the visual shape. A bucket is decided only once the next one is complete, so two
+ *     are open at a time, each held as the running sums for its average and the vertices of its convex hull, the
+ *     only points that can win. That is a handful of points on real series whatever the bucket size, and each
+ *     hull chain is capped at 256 vertices, beyond which it is thinned and the pick becomes approximate.</li>
+ *     <li>{@link Mode#MIN_MAX}: keeps the lowest and highest point of every bucket in their original order, so no
+ *     spike is lost. Holds two points in memory.</li>
+ * </ul>
+ * The series length is needed up front to size the buckets; if fewer or more points arrive, the last bucket
+ * absorbs the difference and the output still never exceeds the limit.
+ */
+public abstract class Downsampler<T> implements Consumer<T> {
+
+    public enum Mode {
+        LTTB,
+        MIN_MAX
+    }
+
+    // LTTB needs the first point, the last point and at least one bucket between them
+    public static final int MIN_POINTS = 3;
+
+    final ToDoubleFunction<T> x;
+    final ToDoubleFunction<T> y;
+    final Consumer<T> output;
+    long index;
+
+    private Downsampler(ToDoubleFunction<T> x, ToDoubleFunction<T> y, Consumer<T> output) {
+        this.x = x;
+        this.y = y;
+        this.output = output;
+    }
+
+    /**
+     * @param total     number of points that will be fed
+     * @param maxPoints upper bound of the points kept, at least {@link #MIN_POINTS}
+     * @param x         position of a point, increasing along the series (e.g. epoch seconds)
+     * @param y         value of a point; NaN values are never preferred over real ones
+     * @param output    receives the kept points in series order
+     */
+    public static <T> Downsampler<T> of(Mode mode, long total, int maxPoints,
+                                        ToDoubleFunction<T> x, ToDoubleFunction<T> y, Consumer<T> output) {
+        if (maxPoints < MIN_POINTS) {
+            throw new IllegalArgumentException("maxPoints must be at least " + MIN_POINTS + ": " + maxPoints);
+        }
+        return switch (mode) {
+            case LTTB -> new Lttb<>(total, maxPoints, x, y, output);
+            case MIN_MAX -> new MinMax<>(total, maxPoints, x, y, output);
+        };
+    }
+
+    /**
+     * Emits the points still held back. Call once after the last {@link #accept}.
+     */
+    public abstract void finish();
+
+    private static final class Lttb<T> extends Downsampler<T> {
+
+        // a chain longer than this only comes from a long strictly convex run and is thinned to half
+        private static final int MAX_CHAIN = 256;
+
+        private final long total;
+        private final int buckets;
+        private final double bucketSize;
+        private Bucket<T> current;
+        private Bucket<T> next = new Bucket<>();
+        private long nextGroup;
+        private T previous;
+        private double previousX;
+        private double previousY;
+
+        Lttb(long total, int maxPoints, ToDoubleFunction<T> x, ToDoubleFunction<T> y, Consumer<T> output) {
+            super(x, y, output);
+            this.total = total;
+            this.buckets = maxPoints - 2;
+            // first and last point are groups of their own, the rest is split evenly
+            this.bucketSize = Math.max(1.0, (double) (total - 2) / buckets);
+        }
+
+        // 0 is the first point, 1..buckets the buckets, buckets + 1 the last point (and any excess)
+        private long group(long i) {
+            if (i == 0) {
+                return 0;
+            }
+            if (i >= total - 1) {
+                return buckets + 1L;
+            }
+            return 1 + Math.min(buckets - 1, (long) ((i - 1) / bucketSize));
+        }
+
+        @Override
+        public void accept(T point) {
+            long i = index++;
+            long group = group(i);
+            if (group != nextGroup) {
+                // the next bucket is complete, so the current one can be decided
+                if (current != null) {
+                    select(current, next);
+                }
+                current = next;
+                next = new Bucket<>();
+                nextGroup = group;
+            }
+            next.add(point, i, x.applyAsDouble(point), y.applyAsDouble(point));
+        }
+
+        private void select(Bucket<T> bucket, Bucket<T> following) {
+            T chosen = bucket.first;
+            double chosenX = x.applyAsDouble(chosen);
+            double chosenY = y.applyAsDouble(chosen);
+            if (previous != null && following.counted > 0) {
+                double ax = previousX;
+                double ay = previousY;
+                double cx = following.sumX / following.counted;
+                double cy = following.sumY / following.counted;
+                double maxArea = -1;
+                long chosenIndex = Long.MAX_VALUE;
+                for (List<Vertex<T>> chain : List.of(bucket.upper, bucket.lower)) {
+                    for (Vertex<T> vertex : chain) {
+                        // twice the triangle area, the factor does not change the winner
+                        double area = Math.abs((ax - cx) * (vertex.y() - ay) - (ax - vertex.x()) * (cy - ay));
+                        // ties go to the earliest point, as a scan of the whole bucket would
+                        if (area > maxArea || area == maxArea && vertex.index() < chosenIndex) {
+                            maxArea = area;
+                            chosenIndex = vertex.index();
+                            chosen = vertex.point();
+                            chosenX = vertex.x();
+                            chosenY = vertex.y();
+                        }
+                    }
+                }
+            }
+            output.accept(chosen);
+            previous = chosen;
+            previousX = chosenX;
+            previousY = chosenY;
+        }
+
+        @Override
+        public void finish() {
+            if (current != null) {
+                select(current, next);
+            }
+            if (next.last != null) {
+                output.accept(next.last);
+            }
+            current = null;
+            next = new Bucket<>();
+        }
+
+        private record Vertex<T>(T point, long index, double x, double y) {
+        }
+
+        /**
+         * What LTTB needs of a bucket: running sums for its average and, as the triangle area is linear in the
+         * candidate point, only the candidates on the bucket's convex hull, kept as upper and lower chain.
+         */
+        private static final class Bucket<T> {
+
+            private final List<Vertex<T>> upper = new ArrayList<>();
+            private final List<Vertex<T>> lower = new ArrayList<>();
+            private T first;
+            private T last;
+            private double sumX;
+            private double sumY;
+            private int counted;
+
+            void add(T point, long index, double px, double py) {
+                if (first == null) {
+                    first = point;
+                }
+                last = point;
+                if (Double.isNaN(py)) {
+                    return;
+                }
+                sumX += px;
+                sumY += py;
+                counted++;
+                Vertex<T> vertex = new Vertex<>(point, index, px, py);
+                push(upper, vertex, 1);
+                push(lower, vertex, -1);
+            }
+
+            // monotone chain step; side 1 keeps the upper chain, -1 the lower one
+            private static <T> void push(List<Vertex<T>> chain, Vertex<T> vertex, int side) {
+                int n = chain.size();
+                if (n > 0 && chain.get(n - 1).x() == vertex.x()) {
+                    // same position: only the more extreme value can be on this chain
+                    if (side * (vertex.y() - chain.get(n - 1).y()) <= 0) {
+                        return;
+                    }
+                    chain.remove(--n);
+                }
+                while (n >= 2 && side * cross(chain.get(n - 2), chain.get(n - 1), vertex) >= 0) {
+                    chain.remove(--n);
+                }
+                chain.add(vertex);
+                if (chain.size() > MAX_CHAIN) {
+                    thin(chain);
+                }
+            }
+
+            private static <T> double cross(Vertex<T> o, Vertex<T> a, Vertex<T> b) {
+                return (a.x() - o.x()) * (b.y() - o.y()) - (a.y() - o.y()) * (b.x() - o.x());
+            }
+
+            // drops every other inner vertex; a subset of a convex chain is still convex
+            private static <T> void thin(List<Vertex<T>> chain) {
+                int size = chain.size();
+                int kept = 1;
+                for (int i = 2; i < size - 1; i += 2) {
+                    chain.set(kept++, chain.get(i));
+                }
+                chain.set(kept++, chain.get(size - 1));
+                chain.subList(kept, size).clear();
+            }
+        }
+    }
+
+    private static final class MinMax<T> extends Downsampler<T> {
+
+        private final long total;
+        private final int buckets;
+        private long bucket = -1;
+        private T min;
+        private T max;
+        private long minIndex;
+        private long maxIndex;
+
+        MinMax(long total, int maxPoints, ToDoubleFunction<T> x, ToDoubleFunction<T> y, Consumer<T> output) {
+            super(x, y, output);
+            this.total = Math.max(1, total);
+            this.buckets = maxPoints / 2;
+        }
+
+        @Override
+        public void accept(T point) {
+            long i = index++;
+            long group = Math.min(buckets - 1, i * buckets / total);
+            if (group != bucket) {
+                flush();
+                bucket = group;
+                min = point;
+                max = point;
+                minIndex = i;
+                maxIndex = i;
+                return;
+            }
+            double value = y.applyAsDouble(point);
+            if (value < y.applyAsDouble(min) || Double.isNaN(y.applyAsDouble(min))) {
+                min = point;
+                minIndex = i;
+            }
+            if (value > y.applyAsDouble(max) || Double.isNaN(y.applyAsDouble(max))) {
+                max = point;
+                maxIndex = i;
+            }
+        }
+
+        private void flush() {
+            if (min == null) {
+                return;
+            }
+            if (minIndex == maxIndex) {
+                output.accept(min);
+            } else if (minIndex < maxIndex) {
+                output.accept(min);
+                output.accept(max);
+            } else {
+                output.accept(max);
+                output.accept(min);
+            }
+            min = null;
+            max = null;
+        }
+
+        @Override
+        public void finish() {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.currency_exchange.util;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+
+import static com.example.currency_exchange.util.EnvelopeOutputStream.*;
+
+/**
+ * Reads the envelope written by {@link EnvelopeOutputStream}, one authenticated segment at a time.
+ */
+class EnvelopeInputStream extends InputStream {
+
+    private final DataInputStream in;
+    private final PrivateKey privateKey;
+    private final byte[] sealed = new byte[SEGMENT_SIZE + TAG_LENGTH];
+    private final byte[] plain = new byte[SEGMENT_SIZE];
+    private SecretKeySpec key;
+    private Cipher cipher;
+    private byte[] noncePrefix;
+    private int segment;
+    private int position;
+    private int limit;
+    private boolean finished;
+
+    EnvelopeInputStream(InputStream in, PrivateKey privateKey) {
+        this.in = new DataInputStream(in);
+        this.privateKey = privateKey;
+    }
+
+    private void readHeader() throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported envelope version " + version);
+        }
+        byte[] wrappedKey = new byte[in.readUnsignedShort()];
+        in.readFully(wrappedKey);
+        noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        in.readFully(noncePrefix);
+        try {
+            key = new SecretKeySpec(RSAUtil.decrypt(wrappedKey, privateKey), "AES");
+            cipher = Cipher.getInstance(TRANSFORMATION);
+        } catch (RuntimeException | GeneralSecurityException e) {
+            throw new IOException("Cannot unwrap envelope key", e);
+        }
+    }
+
+    /**
+     * Decrypts the next segment into the plain buffer; returns false once the last segment has been consumed.
+     */
+    private boolean nextSegment() throws IOException {
+        if (finished) {
+            return false;
+        }
+        try {
+            if (key == null) {
+                readHeader();
+            }
+            int header = in.readInt();
+            boolean last = (header & LAST_SEGMENT) != 0;
+            int length = header & ~LAST_SEGMENT;
+            if (length < TAG_LENGTH || length > sealed.length) {
+                throw new IOException("Corrupt envelope segment length " + length);
+            }
+            in.readFully(sealed, 0, length);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce(noncePrefix, segment, last)));
+            limit = cipher.doFinal(sealed, 0, length, plain, 0);
+            position = 0;
+            segment++;
+            if (last) {
+                finished = true;
+                if (in.read() != -1) {
+                    throw new IOException("Unexpected data after the last envelope segment");
+                }
+            }
+            return true;
+        } catch (EOFException e) {
+            throw new IOException("Envelope is truncated", e);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Envelope segment failed authentication", e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (position == limit) {
+            if (!nextSegment()) {
+                return -1;
+            }
+        }
+        return plain[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (position == limit) {
+            if (!nextSegment()) {
+                return -1;
+            }
+        }
+        int n = Math.min(len, limit - position);
+        System.arraycopy(plain, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
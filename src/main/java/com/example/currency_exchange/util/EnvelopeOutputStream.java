@@ -0,0 +1,129 @@
+package com.example.currency_exchange.util;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+
+/**
+ * Writes an RSA-wrapped AES-GCM envelope.
+ * <p>
+ * Layout: version (1 byte), wrapped key length (2 bytes), RSA-OAEP wrapped AES key, nonce prefix (7 bytes), then
+ * segments of [4-byte header][ciphertext + 16-byte tag]. The header holds the ciphertext length, with the top bit
+ * set on the last segment. Each segment's nonce is the prefix, the segment index and the last flag, so segments
+ * cannot be reordered, dropped or cut off at the end without failing authentication.
+ */
+class EnvelopeOutputStream extends OutputStream {
+
+    static final int VERSION = 1;
+    static final int SEGMENT_SIZE = 64 * 1024;
+    static final int TAG_BITS = 128;
+    static final int TAG_LENGTH = TAG_BITS / 8;
+    static final int NONCE_PREFIX_LENGTH = 7;
+    static final int LAST_SEGMENT = 0x80000000;
+    static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final DataOutputStream out;
+    private final SecretKey key;
+    private final Cipher cipher;
+    private final byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+    private final byte[] buffer = new byte[SEGMENT_SIZE];
+    private final byte[] sealed = new byte[SEGMENT_SIZE + TAG_LENGTH];
+    private int buffered;
+    private int segment;
+    private boolean closed;
+
+    EnvelopeOutputStream(OutputStream out, PublicKey publicKey) throws GeneralSecurityException, IOException {
+        this.out = new DataOutputStream(out);
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(256);
+        this.key = keyGenerator.generateKey();
+        this.cipher = Cipher.getInstance(TRANSFORMATION);
+        RANDOM.nextBytes(noncePrefix);
+
+        byte[] wrappedKey = RSAUtil.encrypt(key.getEncoded(), publicKey);
+        this.out.writeByte(VERSION);
+        this.out.writeShort(wrappedKey.length);
+        this.out.write(wrappedKey);
+        this.out.write(noncePrefix);
+    }
+
+    static byte[] nonce(byte[] prefix, int segment, boolean last) {
+        byte[] nonce = new byte[12];
+        System.arraycopy(prefix, 0, nonce, 0, NONCE_PREFIX_LENGTH);
+        nonce[7] = (byte) (segment >>> 24);
+        nonce[8] = (byte) (segment >>> 16);
+        nonce[9] = (byte) (segment >>> 8);
+        nonce[10] = (byte) segment;
+        nonce[11] = (byte) (last ? 1 : 0);
+        return nonce;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (closed) {
+            throw new IOException("Envelope already closed");
+        }
+        if (buffered == SEGMENT_SIZE) {
+            seal(false);
+        }
+        buffer[buffered++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Envelope already closed");
+        }
+        while (len > 0) {
+            // a full buffer is only sealed once more data arrives, so the last segment is always known at close
+            if (buffered == SEGMENT_SIZE) {
+                seal(false);
+            }
+            int n = Math.min(len, SEGMENT_SIZE - buffered);
+            System.arraycopy(b, off, buffer, buffered, n);
+            buffered += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    private void seal(boolean last) throws IOException {
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce(noncePrefix, segment, last)));
+            int length = cipher.doFinal(buffer, 0, buffered, sealed, 0);
+            out.writeInt(last ? length | LAST_SEGMENT : length);
+            out.write(sealed, 0, length);
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+        segment++;
+        buffered = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            seal(true);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.currency_exchange.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Prices as plain longs scaled by 10^10, the precision of the DECIMAL(20,10) rate columns, so parsing, summing,
+ * averaging and printing them needs no {@link BigDecimal}; rate and rollup entities hold their prices this way. Values
+ * up to about ±922 million fit; beyond that the routines throw {@link ArithmeticException}.
+ * <p>
+ * Parsing rounds extra fraction digits half up, as the columns do on insert, and {@link #format} prints exactly
+ * what {@code BigDecimal.toString()} prints for a scale-10 value read from those columns.
+ */
+public final class FixedPoint {
+
+    public static final int SCALE = 10;
+    public static final long ONE = 10_000_000_000L;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Parses a decimal string such as "1.08501" or "-0.5" to its scaled value.
+     *
+     * @throws NumberFormatException if it is not a decimal number
+     * @throws ArithmeticException   if it does not fit
+     */
+    public static long parse(String value) {
+        int length = value.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+            negative = value.charAt(0) == '-';
+            i++;
+        }
+        long unscaled = 0;
+        int fractionDigits = 0;
+        boolean digits = false;
+        boolean point = false;
+        boolean roundUp = false;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+                if (!point || fractionDigits < SCALE) {
+                    unscaled = Math.addExact(Math.multiplyExact(unscaled, 10L), c - '0');
+                    fractionDigits += point ? 1 : 0;
+                } else if (fractionDigits == SCALE) {
+                    // only the first dropped digit decides a half-up rounding
+                    roundUp = c >= '5';
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else if (c == 'e' || c == 'E') {
+                return valueOf(new BigDecimal(value));
+            } else {
+                throw new NumberFormatException("Not a decimal: " + value);
+            }
+        }
+        if (!digits) {
+            throw new NumberFormatException("Not a decimal: " + value);
+        }
+        for (int d = Math.min(fractionDigits, SCALE); d < SCALE; d++) {
+            unscaled = Math.multiplyExact(unscaled, 10L);
+        }
+        if (roundUp) {
+            unscaled = Math.addExact(unscaled, 1L);
+        }
+        return negative ? -unscaled : unscaled;
+    }
+
+    /**
+     * Prints the scaled value as {@code BigDecimal.valueOf(scaled, SCALE).toString()} does: plain with ten fraction
+     * digits, or in scientific notation below 10^-6 (e.g. "4E-10").
+     */
+    public static String format(long scaled) {
+        if (scaled == Long.MIN_VALUE) {
+            return toBigDecimal(scaled).toString();
+        }
+        long magnitude = Math.abs(scaled);
+        if (magnitude < 10_000L) {
+            return scientific(scaled);
+        }
+        // digits are written straight into a Latin-1 buffer from the right: ten fraction digits, the point, then
+        // at least one integer digit
+        long integer = magnitude / ONE;
+        long fraction = magnitude % ONE;
+        int integerDigits = integer == 0 ? 1 : (int) Math.log10(integer) + 1;
+        int sign = scaled < 0 ? 1 : 0;
+        byte[] out = new byte[sign + integerDigits + 1 + SCALE];
+        int at = out.length;
+        for (int d = 0; d < SCALE; d++) {
+            out[--at] = (byte) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        out[--at] = '.';
+        do {
+            out[--at] = (byte) ('0' + integer % 10);
+            integer /= 10;
+        } while (integer != 0);
+        if (sign == 1) {
+            out[0] = '-';
+        }
+        return new String(out, StandardCharsets.ISO_8859_1);
+    }
+
+    private static String scientific(long scaled) {
+        String coefficient = Long.toString(Math.abs(scaled));
+        int length = coefficient.length();
+        StringBuilder out = new StringBuilder(length + 6);
+        if (scaled < 0) {
+            out.append('-');
+        }
+        out.append(coefficient.charAt(0));
+        if (length > 1) {
+            out.append('.').append(coefficient, 1, length);
+        }
+        return out.append('E').append(length - 1 - SCALE).toString();
+    }
+
+    /**
+     * Scales the value, rounding half up past ten fraction digits.
+     *
+     * @throws ArithmeticException if it does not fit
+     */
+    public static long valueOf(BigDecimal value) {
+        // values read from the DECIMAL(20,10) columns already have the scale
+        BigDecimal scaled = value.scale() == SCALE ? value : value.setScale(SCALE, RoundingMode.HALF_UP);
+        return scaled.unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long scaled) {
+        return BigDecimal.valueOf(scaled, SCALE);
+    }
+
+    /**
+     * Returns sum / count rounded half up, as {@code sum.divide(count, SCALE, HALF_UP)} on the decimals would.
+     */
+    public static long mean(long sum, long count) {
+        long quotient = sum / count;
+        long remainder = Math.abs(sum % count);
+        if (remainder >= count - remainder) {
+            quotient += sum < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+}
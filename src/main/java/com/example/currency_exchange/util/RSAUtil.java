@@ -1,13 +1,25 @@
 package com.example.currency_exchange.util;
 
 import javax.crypto.Cipher;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.*;
+import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.Base64;
 
+/**
+ * RSA-OAEP helpers. Every call takes a fresh {@link Cipher}: the RSA operation dwarfs the provider lookup, and a
+ * cipher that is not kept cannot hold on to a key, private keys included, after the keyring has evicted it.
+ */
 public class RSAUtil {
+    private static final String TRANSFORMATION = "RSA/ECB/OAEPWithSHA-256AndMGF1Padding";
+
     public static KeyPair generateKeyPair(int bits) {
         try {
             KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
@@ -19,27 +31,70 @@ public class RSAUtil {
     }
 
     public static String encrypt(String plaintext, PublicKey publicKey) {
+        return Base64.getEncoder().encodeToString(encrypt(plaintext.getBytes(StandardCharsets.UTF_8), publicKey));
+    }
+
+    public static String decrypt(String base64Cipher, PrivateKey privateKey) {
+        return new String(decrypt(Base64.getDecoder().decode(base64Cipher), privateKey), StandardCharsets.UTF_8);
+    }
+
+    static byte[] encrypt(byte[] plaintext, PublicKey publicKey) {
+        return doFinal(Cipher.ENCRYPT_MODE, publicKey, plaintext);
+    }
+
+    static byte[] decrypt(byte[] cipherText, PrivateKey privateKey) {
+        return doFinal(Cipher.DECRYPT_MODE, privateKey, cipherText);
+    }
+
+    private static byte[] doFinal(int mode, Key key, byte[] input) {
         try {
-            Cipher cipher = Cipher.getInstance("RSA/ECB/OAEPWithSHA-256AndMGF1Padding");
-            cipher.init(Cipher.ENCRYPT_MODE, publicKey);
-            byte[] ct = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(ct);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(mode, key);
+            return cipher.doFinal(input);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    public static String decrypt(String base64Cipher, PrivateKey privateKey) {
+    /**
+     * Envelope encryption for payloads of any size: a fresh AES-256-GCM key encrypts the data in segments and is
+     * itself wrapped once with RSA-OAEP, so the cost per byte is AES. Bytes written to the returned stream are
+     * encrypted into out as they come; closing it writes the final segment and closes out.
+     */
+    public static OutputStream envelopeEncrypt(OutputStream out, PublicKey publicKey) {
         try {
-            Cipher cipher = Cipher.getInstance("RSA/ECB/OAEPWithSHA-256AndMGF1Padding");
-            cipher.init(Cipher.DECRYPT_MODE, privateKey);
-            byte[] pt = cipher.doFinal(Base64.getDecoder().decode(base64Cipher));
-            return new String(pt, StandardCharsets.UTF_8);
+            return new EnvelopeOutputStream(out, publicKey);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Reads an {@link #envelopeEncrypt} envelope from in. Every segment is authenticated before its bytes are
+     * returned; tampering, truncation or a wrong key fail the read with an IOException.
+     */
+    public static InputStream envelopeDecrypt(InputStream in, PrivateKey privateKey) {
+        return new EnvelopeInputStream(in, privateKey);
+    }
+
+    public static byte[] envelopeEncrypt(byte[] plaintext, PublicKey publicKey) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(plaintext.length + 512);
+        try (OutputStream envelope = envelopeEncrypt(out, publicKey)) {
+            envelope.write(plaintext);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static byte[] envelopeDecrypt(byte[] envelope, PrivateKey privateKey) {
+        try (InputStream in = envelopeDecrypt(new ByteArrayInputStream(envelope), privateKey)) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static String publicKeyToBase64(PublicKey key) {
         return Base64.getEncoder().encodeToString(key.getEncoded());
     }
@@ -59,6 +114,23 @@ public class RSAUtil {
         }
     }
 
+    /**
+     * Parses a base64 X.509 RSA public key sent by a client, returning null if it is null, not base64 or not such a
+     * key, so the caller can reject it with its own message.
+     */
+    public static PublicKey publicKeyFromBase64OrNull(String base64) {
+        if (base64 == null) {
+            return null;
+        }
+        try {
+            return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(base64)));
+        } catch (IllegalArgumentException | InvalidKeySpecException e) {
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public static PrivateKey privateKeyFromBase64(String base64) {
         try {
             byte[] data = Base64.getDecoder().decode(base64);
@@ -69,4 +141,4 @@ public class RSAUtil {
             throw new RuntimeException(e);
         }
     }
-}
\ No newline at end of file
+}
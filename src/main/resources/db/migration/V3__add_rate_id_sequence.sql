@@ -0,0 +1,4 @@
+CREATE SEQUENCE currency_exchange_rate_seq START WITH 1 INCREMENT BY 500;
+ALTER SEQUENCE currency_exchange_rate_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM currency_exchange_rate);
+ALTER TABLE currency_exchange_rate ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE currency_exchange_rate ALTER COLUMN id SET DEFAULT NEXT VALUE FOR currency_exchange_rate_seq;
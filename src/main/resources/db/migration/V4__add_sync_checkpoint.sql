@@ -0,0 +1,6 @@
+CREATE TABLE currency_sync_checkpoint (
+    base_currency VARCHAR(50) NOT NULL,
+    quote_currency VARCHAR(50) NOT NULL,
+    last_update_time TIMESTAMP NOT NULL,
+    PRIMARY KEY (base_currency, quote_currency)
+);
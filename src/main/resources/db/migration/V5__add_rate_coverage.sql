@@ -0,0 +1,6 @@
+CREATE TABLE currency_rate_coverage (
+    base_currency VARCHAR(50) NOT NULL,
+    quote_currency VARCHAR(50) NOT NULL,
+    covered_day DATE NOT NULL,
+    PRIMARY KEY (base_currency, quote_currency, covered_day)
+);
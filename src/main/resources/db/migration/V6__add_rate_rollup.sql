@@ -0,0 +1,58 @@
+CREATE TABLE currency_rate_rollup (
+    base_currency VARCHAR(50) NOT NULL,
+    quote_currency VARCHAR(50) NOT NULL,
+    resolution VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    open_time TIMESTAMP,
+    open_bid DECIMAL(20,10),
+    open_ask DECIMAL(20,10),
+    close_time TIMESTAMP,
+    close_bid DECIMAL(20,10),
+    close_ask DECIMAL(20,10),
+    low_bid DECIMAL(20,10),
+    low_ask DECIMAL(20,10),
+    high_bid DECIMAL(20,10),
+    high_ask DECIMAL(20,10),
+    sum_average_bid DECIMAL(30,10),
+    sum_average_ask DECIMAL(30,10),
+    row_count BIGINT NOT NULL,
+    PRIMARY KEY (base_currency, quote_currency, resolution, bucket_start)
+);
+
+-- hours whose rollups a committed write still has to refresh; one row per write and hour, so writers never contend
+CREATE TABLE currency_rate_rollup_pending (
+    base_currency VARCHAR(50) NOT NULL,
+    hour_start TIMESTAMP NOT NULL,
+    write_id VARCHAR(36) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (base_currency, hour_start, write_id)
+);
+CREATE INDEX idx_currency_rate_rollup_pending_created_at ON currency_rate_rollup_pending (created_at);
+
+-- backfill from the rates already stored; weeks start on Monday (ISO), as in RollupResolution.WEEK
+INSERT INTO currency_rate_rollup (base_currency, quote_currency, resolution, bucket_start,
+                                  open_time, open_bid, open_ask, close_time, close_bid, close_ask,
+                                  low_bid, low_ask, high_bid, high_ask, sum_average_bid, sum_average_ask, row_count)
+SELECT b.base_currency, b.quote_currency, b.resolution, b.bucket_start,
+       b.open_time, o.average_bid, o.average_ask, b.close_time, c.average_bid, c.average_ask,
+       b.low_bid, b.low_ask, b.high_bid, b.high_ask, b.sum_average_bid, b.sum_average_ask, b.row_count
+FROM (
+    SELECT r.base_currency, r.quote_currency, g.resolution,
+           CASE g.resolution
+               WHEN 'HOUR' THEN DATE_TRUNC('HOUR', r.update_time)
+               WHEN 'DAY' THEN DATE_TRUNC('DAY', r.update_time)
+               ELSE DATE_TRUNC('ISO_WEEK', r.update_time)
+           END AS bucket_start,
+           MIN(r.update_time) AS open_time, MAX(r.update_time) AS close_time,
+           MIN(r.low_bid) AS low_bid, MIN(r.low_ask) AS low_ask,
+           MAX(r.high_bid) AS high_bid, MAX(r.high_ask) AS high_ask,
+           SUM(r.average_bid) AS sum_average_bid, SUM(r.average_ask) AS sum_average_ask,
+           COUNT(*) AS row_count
+    FROM currency_exchange_rate r
+    CROSS JOIN (VALUES ('HOUR'), ('DAY'), ('WEEK')) AS g(resolution)
+    GROUP BY r.base_currency, r.quote_currency, g.resolution, bucket_start
+) b
+JOIN currency_exchange_rate o ON o.base_currency = b.base_currency AND o.quote_currency = b.quote_currency
+    AND o.update_time = b.open_time
+JOIN currency_exchange_rate c ON c.base_currency = b.base_currency AND c.quote_currency = b.quote_currency
+    AND c.update_time = b.close_time;
@@ -0,0 +1,199 @@
+package com.example.currency_exchange.cache;
+
+import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.repo.CurrencyRepos;
+import com.example.currency_exchange.util.FixedPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ColumnarRateStoreTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2025, 11, 1, 0, 0);
+
+    private CurrencyRepos currencyRepos;
+
+    private static CurrencyExchangeRate rate(String base, LocalDateTime time, String bid) {
+        CurrencyExchangeRate rate = new CurrencyExchangeRate();
+        rate.setBaseCurrency(base);
+        rate.setQuoteCurrency("USD");
+        rate.setUpdateTime(time);
+        rate.setAverageBid(FixedPoint.parse(bid));
+        rate.setLowAsk(-FixedPoint.parse(bid));
+        return rate;
+    }
+
+    private ColumnarRateStore store(boolean offHeap, CurrencyExchangeRate... eur) {
+        when(currencyRepos.findPage(eq("EUR"), any(), any(), any())).thenReturn(List.of(eur));
+        ColumnarRateStore store = new ColumnarRateStore(currencyRepos, List.of("EUR", "VND"), offHeap);
+        store.afterPropertiesSet();
+        return store;
+    }
+
+    private static List<String> bids(ColumnarRateStore.Series series) {
+        List<String> bids = new ArrayList<>();
+        for (int i = 0; i < series.size(); i++) {
+            bids.add(ColumnarRateStore.toTime(series.time(i)).getHour() + "=" + ColumnarRateStore.format(series.averageBid(i)));
+        }
+        return bids;
+    }
+
+    @BeforeEach
+    void setUp() {
+        currencyRepos = mock(CurrencyRepos.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void startup_loadsConfiguredCurrenciesIntoColumns() {
+        ColumnarRateStore store = store(false, rate("EUR", T, "1.5"), rate("EUR", T.plusHours(1), "0.0000000004"));
+
+        ColumnarRateStore.Series eur = store.acquire("EUR");
+        assertEquals(2, eur.size());
+        assertEquals(ColumnarRateStore.toEpochMillis(T), eur.time(0));
+        assertEquals(15_000_000_000L, eur.averageBid(0));
+        assertEquals(-15_000_000_000L, eur.lowAsk(0));
+        assertEquals(ColumnarRateStore.NULL, eur.highBid(0));
+        // printed like the scale-10 BigDecimal the database returns
+        assertEquals(new BigDecimal("1.5").setScale(10).toString(), ColumnarRateStore.format(eur.averageBid(0)));
+        assertEquals(new BigDecimal("0.0000000004").toString(), ColumnarRateStore.format(eur.averageBid(1)));
+        assertNull(ColumnarRateStore.format(eur.highBid(1)));
+        assertEquals(0, store.acquire("VND").size());
+        assertNull(store.acquire("GBP"));
+    }
+
+    @Test
+    void lowerBound_findsFirstAtOrAfter() {
+        ColumnarRateStore.Series eur = store(false, rate("EUR", T, "1"), rate("EUR", T.plusHours(2), "2")).acquire("EUR");
+
+        assertEquals(0, eur.lowerBound(Long.MIN_VALUE));
+        assertEquals(0, eur.lowerBound(ColumnarRateStore.toEpochMillis(T)));
+        assertEquals(1, eur.lowerBound(ColumnarRateStore.toEpochMillis(T) + 1));
+        assertEquals(2, eur.lowerBound(ColumnarRateStore.toEpochMillis(T.plusHours(3))));
+        assertEquals(ColumnarRateStore.toEpochMillis(T) + 1, ColumnarRateStore.toEpochMillisCeiling(T.plusNanos(1)));
+    }
+
+    @Test
+    void offerAll_appendsInPlace_olderSnapshotsUnchanged() {
+        ColumnarRateStore store = store(false, rate("EUR", T, "1"));
+        ColumnarRateStore.Series before = store.acquire("EUR");
+
+        store.offerAll(List.of(rate("EUR", T.plusHours(2), "3"), rate("EUR", T.plusHours(1), "2"),
+                rate("GBP", T, "9")));
+        store.offerAll(List.of(rate("EUR", T.plusHours(3), "4")));
+
+        assertEquals(List.of("0=1.0000000000", "1=2.0000000000", "2=3.0000000000", "3=4.0000000000"),
+                bids(store.acquire("EUR")));
+        assertEquals(1, before.size());
+        assertNull(store.acquire("GBP"));
+    }
+
+    @Test
+    void offerAll_insertsAndOverwritesInTheMiddle() {
+        ColumnarRateStore store = store(true, rate("EUR", T, "1"), rate("EUR", T.plusHours(2), "3"));
+
+        store.offerAll(List.of(rate("EUR", T.plusHours(1), "2"), rate("EUR", T.plusHours(2), "5"),
+                rate("EUR", T, "7")));
+
+        assertEquals(List.of("0=7.0000000000", "1=2.0000000000", "2=5.0000000000"), bids(store.acquire("EUR")));
+    }
+
+    @Test
+    void offHeapRewrite_reusesColumnsOfReplacedSeries() {
+        ColumnarRateStore store = store(true, rate("EUR", T, "1"), rate("EUR", T.plusHours(1), "2"),
+                rate("EUR", T.plusHours(2), "3"));
+        ColumnarRateStore.Series loaded = store.acquire("EUR");
+        loaded.close();
+
+        store.removed("EUR", T.plusHours(1));
+        store.offerAll(List.of(rate("EUR", T, "5")));
+
+        try (ColumnarRateStore.Series current = store.acquire("EUR")) {
+            assertTrue(current.sharesColumnsWith(loaded));
+            assertEquals(List.of("0=5.0000000000", "2=3.0000000000"), bids(current));
+        }
+    }
+
+    @Test
+    void leasedSeries_columnsNotReusedUntilClosed() {
+        ColumnarRateStore store = store(true, rate("EUR", T, "1"), rate("EUR", T.plusHours(1), "2"),
+                rate("EUR", T.plusHours(2), "3"));
+        ColumnarRateStore.Series leased = store.acquire("EUR");
+
+        store.removed("EUR", T.plusHours(1));
+        store.offerAll(List.of(rate("EUR", T, "5")));
+
+        assertEquals(List.of("0=1.0000000000", "1=2.0000000000", "2=3.0000000000"), bids(leased));
+        try (ColumnarRateStore.Series current = store.acquire("EUR")) {
+            assertFalse(current.sharesColumnsWith(leased));
+        }
+
+        leased.close();
+        store.offerAll(List.of(rate("EUR", T, "7")));
+        try (ColumnarRateStore.Series current = store.acquire("EUR")) {
+            assertTrue(current.sharesColumnsWith(leased));
+            assertEquals(List.of("0=7.0000000000", "2=3.0000000000"), bids(current));
+        }
+    }
+
+    @Test
+    void removed_dropsOneRow_removedCurrencyEmptiesIt() {
+        ColumnarRateStore store = store(false, rate("EUR", T, "1"), rate("EUR", T.plusHours(1), "2"));
+
+        store.removed("EUR", T.plusMinutes(30));
+        assertEquals(2, store.acquire("EUR").size());
+        store.removed("EUR", T);
+        assertEquals(List.of("1=2.0000000000"), bids(store.acquire("EUR")));
+
+        store.removedCurrency("EUR");
+        assertEquals(0, store.acquire("EUR").size());
+        store.offerAll(List.of(rate("EUR", T, "3")));
+        assertEquals(List.of("0=3.0000000000"), bids(store.acquire("EUR")));
+    }
+
+    @Test
+    void rateThatCannotBeHeldExactly_dropsCurrency() {
+        ColumnarRateStore store = store(false, rate("EUR", T, "1"));
+
+        store.offerAll(List.of(rate("EUR", T.plusHours(1).plusNanos(1), "1")));
+
+        assertNull(store.acquire("EUR"));
+        assertThrows(ArithmeticException.class, () -> ColumnarRateStore.toScaled(ColumnarRateStore.NULL));
+
+        when(currencyRepos.findPage(eq("VND"), any(), any(), any())).thenReturn(List.of(rate("VND", T.plusNanos(1), "1")));
+        ColumnarRateStore subMillis = new ColumnarRateStore(currencyRepos, List.of("VND"), false);
+        subMillis.afterPropertiesSet();
+        assertNull(subMillis.acquire("VND"));
+    }
+
+    @Test
+    void changesInsideTransaction_appliedOnlyAfterCommit() {
+        ColumnarRateStore store = store(false, rate("EUR", T, "1"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        store.offerAll(List.of(rate("EUR", T.plusHours(1), "2")));
+        store.removed("EUR", T);
+        assertEquals(List.of("0=1.0000000000"), bids(store.acquire("EUR")));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(List.of("1=2.0000000000"), bids(store.acquire("EUR")));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.currency_exchange.cache;
+
+import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxdsResponseCacheTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 11, 1);
+    private static final LocalDate END = LocalDate.of(2025, 11, 2);
+
+    @Test
+    void get_concurrentCallersShareOneInFlightRequest() {
+        FxdsResponseCache cache = new FxdsResponseCache(10, 60);
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<List<CurrencyExchangeRateDto>> upstream = new CompletableFuture<>();
+
+        CompletableFuture<List<CurrencyExchangeRateDto>> first = cache.get("EUR", START, END, () -> { loads.incrementAndGet(); return upstream; });
+        CompletableFuture<List<CurrencyExchangeRateDto>> second = cache.get("EUR", START, END, () -> { loads.incrementAndGet(); return upstream; });
+        assertFalse(first.isDone());
+
+        upstream.complete(List.of(new CurrencyExchangeRateDto()));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, first.join().size());
+        assertSame(first.join(), second.join());
+    }
+
+    @Test
+    void get_completedResponseIsReusedAndKeyedByRange() {
+        FxdsResponseCache cache = new FxdsResponseCache(10, 60);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("EUR", START, END, () -> { loads.incrementAndGet(); return CompletableFuture.completedFuture(List.of()); }).join();
+        cache.get("EUR", START, END, () -> { loads.incrementAndGet(); return CompletableFuture.completedFuture(List.of()); }).join();
+        cache.get("EUR", START, END.plusDays(1), () -> { loads.incrementAndGet(); return CompletableFuture.completedFuture(List.of()); }).join();
+
+        assertEquals(2, loads.get());
+        assertEquals(2, cache.estimatedSize());
+    }
+
+    @Test
+    void get_failedRequestIsNotCached() {
+        FxdsResponseCache cache = new FxdsResponseCache(10, 60);
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<List<CurrencyExchangeRateDto>> failed = cache.get("EUR", START, END, () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException("upstream down"));
+        });
+        assertThrows(CompletionException.class, failed::join);
+
+        List<CurrencyExchangeRateDto> retried = cache.get("EUR", START, END, () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(List.of());
+        }).join();
+
+        assertTrue(retried.isEmpty());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_cancellingOneCallerKeepsSharedRequest() {
+        FxdsResponseCache cache = new FxdsResponseCache(10, 60);
+        CompletableFuture<List<CurrencyExchangeRateDto>> upstream = new CompletableFuture<>();
+
+        cache.get("EUR", START, END, () -> upstream).cancel(true);
+        CompletableFuture<List<CurrencyExchangeRateDto>> other = cache.get("EUR", START, END, () -> upstream);
+        upstream.complete(List.of());
+
+        assertFalse(upstream.isCancelled());
+        assertTrue(other.join().isEmpty());
+    }
+}
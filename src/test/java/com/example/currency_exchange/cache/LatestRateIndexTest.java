@@ -0,0 +1,141 @@
+package com.example.currency_exchange.cache;
+
+import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
+import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.mapper.CurrencyMapperImpl;
+import com.example.currency_exchange.repo.CurrencyRepos;
+import com.example.currency_exchange.util.FixedPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LatestRateIndexTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2025, 11, 1, 0, 0);
+
+    private CurrencyRepos currencyRepos;
+    private LatestRateIndex index;
+
+    private static CurrencyExchangeRate rate(String base, LocalDateTime time, String bid) {
+        CurrencyExchangeRate rate = new CurrencyExchangeRate();
+        rate.setBaseCurrency(base);
+        rate.setQuoteCurrency("USD");
+        rate.setUpdateTime(time);
+        rate.setAverageBid(FixedPoint.parse(bid));
+        return rate;
+    }
+
+    @BeforeEach
+    void setUp() {
+        currencyRepos = mock(CurrencyRepos.class);
+        when(currencyRepos.findLatestOfEachCurrency()).thenReturn(List.of(rate("VND", T, "1"), rate("EUR", T, "2")));
+        index = new LatestRateIndex(currencyRepos, new CurrencyMapperImpl());
+        index.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void startup_loadsNewestRateOfEachCurrencyOnce() {
+        assertEquals("2.0000000000", index.get("EUR").getAverageBid());
+        assertEquals(List.of("EUR", "VND"), index.getAll().stream().map(CurrencyExchangeRateDto::getBaseCurrency).toList());
+        assertNull(index.get("GBP"));
+
+        index.get("EUR");
+        index.getAll();
+        verify(currencyRepos, times(1)).findLatestOfEachCurrency();
+        verifyNoMoreInteractions(currencyRepos);
+    }
+
+    @Test
+    void offerAll_keepsNewestPerCurrency_andIgnoresOlderRates() {
+        index.offerAll(List.of(rate("EUR", T.plusMinutes(2), "3"), rate("EUR", T.plusMinutes(1), "4"),
+                rate("EUR", T.minusDays(1), "5"), rate("GBP", T, "6")));
+
+        assertEquals("3.0000000000", index.get("EUR").getAverageBid());
+        assertEquals("6.0000000000", index.get("GBP").getAverageBid());
+
+        index.offer(rate("EUR", T.plusMinutes(1), "7"));
+        assertEquals("3.0000000000", index.get("EUR").getAverageBid());
+        // an update of the latest row replaces its prices
+        index.offer(rate("EUR", T.plusMinutes(2), "8"));
+        assertEquals("8.0000000000", index.get("EUR").getAverageBid());
+    }
+
+    @Test
+    void removed_latestRow_reloadsNextNewest_otherRowsLeaveIndexAlone() {
+        when(currencyRepos.findLatestByCurrencyCodes(List.of("EUR"))).thenReturn(List.of(rate("EUR", T.minusHours(1), "9")));
+
+        index.removed("EUR", T.minusDays(1));
+        verify(currencyRepos, never()).findLatestByCurrencyCodes(any());
+        assertEquals("2.0000000000", index.get("EUR").getAverageBid());
+
+        index.removed("EUR", T);
+        assertEquals("9.0000000000", index.get("EUR").getAverageBid());
+
+        when(currencyRepos.findLatestByCurrencyCodes(List.of("VND"))).thenReturn(List.of());
+        index.removed("VND", T);
+        assertNull(index.get("VND"));
+    }
+
+    @Test
+    void removed_rateOfferedWhileReloading_keepsOfferedRate() {
+        // an insert committing while the replacement is loaded; offering it inside a map compute would fail
+        when(currencyRepos.findLatestByCurrencyCodes(List.of("EUR"))).thenAnswer(inv -> {
+            index.offer(rate("EUR", T.plusHours(1), "11"));
+            return List.of(rate("EUR", T.minusHours(1), "9"));
+        });
+
+        index.removed("EUR", T);
+
+        assertEquals("11.0000000000", index.get("EUR").getAverageBid());
+    }
+
+    @Test
+    void removedCurrency_dropsIt() {
+        index.removedCurrency("VND");
+
+        assertNull(index.get("VND"));
+        assertEquals(1, index.getAll().size());
+    }
+
+    @Test
+    void changesInsideTransaction_appliedOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        index.offer(rate("EUR", T.plusHours(1), "10"));
+        index.removedCurrency("VND");
+
+        assertEquals("2.0000000000", index.get("EUR").getAverageBid());
+        assertNotNull(index.get("VND"));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertEquals("10.0000000000", index.get("EUR").getAverageBid());
+        assertNull(index.get("VND"));
+    }
+
+    @Test
+    void rolledBackTransaction_leavesIndexUnchanged() {
+        TransactionSynchronizationManager.initSynchronization();
+        index.offer(rate("EUR", T.plusHours(1), "10"));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertEquals("2.0000000000", index.get("EUR").getAverageBid());
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.currency_exchange.cache;
+
+import com.example.currency_exchange.dto.CacheStatsResponse;
+import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateCacheTest {
+
+    private static final LocalDateTime T1 = LocalDateTime.of(2025, 11, 1, 0, 0);
+    private static final LocalDateTime T2 = LocalDateTime.of(2025, 11, 2, 0, 0);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void getPoint_loadsOnceThenHits() {
+        RateCache cache = new RateCache(10, 100, 60);
+        AtomicInteger loads = new AtomicInteger();
+        CurrencyExchangeRateDto dto = new CurrencyExchangeRateDto();
+
+        cache.getPoint("EUR", T1, k -> { loads.incrementAndGet(); return dto; });
+        CurrencyExchangeRateDto cached = cache.getPoint("EUR", T1, k -> { loads.incrementAndGet(); return dto; });
+
+        assertSame(dto, cached);
+        assertEquals(1, loads.get());
+        CacheStatsResponse.Entry stats = cache.stats().getRateAtTime();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+    }
+
+    @Test
+    void getPoint_nullIsNotCached() {
+        RateCache cache = new RateCache(10, 100, 60);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(cache.getPoint("EUR", T1, k -> { loads.incrementAndGet(); return null; }));
+        assertNull(cache.getPoint("EUR", T1, k -> { loads.incrementAndGet(); return null; }));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidate_dropsPointAndSeriesOfThatCurrencyOnly() {
+        RateCache cache = new RateCache(10, 100, 60);
+        cache.getPoint("EUR", T1, k -> new CurrencyExchangeRateDto());
+        cache.getPoint("EUR", T2, k -> new CurrencyExchangeRateDto());
+        cache.getSeries("EUR", k -> List.of(new CurrencyExchangeRateDto()));
+        cache.getSeries("VND", k -> List.of(new CurrencyExchangeRateDto()));
+
+        cache.invalidate("EUR", T1);
+
+        AtomicInteger loads = new AtomicInteger();
+        cache.getPoint("EUR", T1, k -> { loads.incrementAndGet(); return new CurrencyExchangeRateDto(); });
+        cache.getPoint("EUR", T2, k -> { loads.incrementAndGet(); return new CurrencyExchangeRateDto(); });
+        cache.getSeries("EUR", k -> { loads.incrementAndGet(); return List.of(); });
+        cache.getSeries("VND", k -> { loads.incrementAndGet(); return List.of(); });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateCurrency_dropsAllPointsOfThatCurrency() {
+        RateCache cache = new RateCache(10, 100, 60);
+        cache.getPoint("EUR", T1, k -> new CurrencyExchangeRateDto());
+        cache.getPoint("EUR", T2, k -> new CurrencyExchangeRateDto());
+        cache.getPoint("VND", T1, k -> new CurrencyExchangeRateDto());
+
+        cache.invalidateCurrency("EUR");
+
+        assertEquals(1, cache.stats().getRateAtTime().getSize());
+    }
+
+    @Test
+    void readDuringUncommittedWrite_cachedRowsDroppedOnCommit() {
+        RateCache cache = new RateCache(10, 100, 60);
+        CurrencyExchangeRateDto committed = new CurrencyExchangeRateDto();
+        CurrencyExchangeRateDto written = new CurrencyExchangeRateDto();
+
+        // the writer's transaction is open on this thread; readers on other threads still see the old row
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalidate("EUR", T1);
+        CurrencyExchangeRateDto duringWrite = CompletableFuture.supplyAsync(
+                () -> cache.getPoint("EUR", T1, k -> committed)).join();
+        List<CurrencyExchangeRateDto> seriesDuringWrite = CompletableFuture.supplyAsync(
+                () -> cache.getSeries("EUR", k -> List.of(committed))).join();
+        assertSame(committed, duringWrite);
+        assertSame(committed, seriesDuringWrite.get(0));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertSame(written, cache.getPoint("EUR", T1, k -> written));
+        assertSame(written, cache.getSeries("EUR", k -> List.of(written)).get(0));
+    }
+
+    @Test
+    void invalidationsOfRolledBackWrite_neverApplied() {
+        RateCache cache = new RateCache(10, 100, 60);
+        cache.getPoint("EUR", T1, k -> new CurrencyExchangeRateDto());
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalidateCurrency("EUR");
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertEquals(1, cache.stats().getRateAtTime().getSize());
+    }
+}
@@ -1,12 +1,25 @@
 package com.example.currency_exchange.controller;
 
+import com.example.currency_exchange.dto.AsOfQuery;
+import com.example.currency_exchange.dto.BulkIngestResponse;
+import com.example.currency_exchange.dto.CacheStatsResponse;
+import com.example.currency_exchange.dto.CrossRateMatrixResponse;
 import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
 import com.example.currency_exchange.dto.EncryptResponse;
 import com.example.currency_exchange.dto.PublicKeyResponse;
 import com.example.currency_exchange.dto.RateDto;
+import com.example.currency_exchange.dto.RatePageResponse;
+import com.example.currency_exchange.dto.RateRollupDto;
 import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.entity.RollupResolution;
+import com.example.currency_exchange.service.BulkIngestService;
+import com.example.currency_exchange.service.CrossRateService;
 import com.example.currency_exchange.service.CurrencyClientService;
 import com.example.currency_exchange.service.CurrencyService;
+import com.example.currency_exchange.service.FxdsRateService;
+import com.example.currency_exchange.service.RollupService;
+import com.example.currency_exchange.service.RsaKeyringService;
+import com.example.currency_exchange.util.Downsampler;
 import com.example.currency_exchange.util.RSAUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -16,10 +29,14 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.context.MessageSource;
 import org.springframework.web.servlet.LocaleResolver;
+import tools.jackson.databind.json.JsonMapper;
 
-import java.lang.reflect.Field;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.security.KeyPair;
 import java.time.LocalDate;
@@ -28,8 +45,12 @@ import java.time.format.DateTimeFormatter;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 class CurrencyControllerTest {
@@ -40,6 +61,21 @@ class CurrencyControllerTest {
     @Mock
     private CurrencyClientService clientService;
 
+    @Mock
+    private FxdsRateService fxdsRateService;
+
+    @Mock
+    private BulkIngestService bulkIngestService;
+
+    @Mock
+    private RsaKeyringService rsaKeyringService;
+
+    @Mock
+    private RollupService rollupService;
+
+    @Mock
+    private CrossRateService crossRateService;
+
     @Mock
     private MessageSource messageSource;
 
@@ -52,9 +88,14 @@ class CurrencyControllerTest {
     @Mock
     private HttpServletResponse response;
 
+    @Spy
+    private JsonMapper jsonMapper = JsonMapper.builder().build();
+
     @InjectMocks
     private CurrencyController controller;
 
+    private static final LocalDateTime TIME = LocalDateTime.of(2025, 11, 1, 0, 0);
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -67,7 +108,16 @@ class CurrencyControllerTest {
 
         controller.addExchangeRate("EUR", "2025/11/01 00:00:00", rate);
 
-        verify(currencyService, times(1)).addExchangeRate(eq("EUR"), eq("2025/11/01 00:00:00"), eq(rate));
+        verify(currencyService, times(1)).addExchangeRate(eq("EUR"), eq(TIME), eq(rate));
+    }
+
+    @Test
+    void bulkAddExchangeRate_delegatesBodyToBulkService() {
+        InputStream body = new ByteArrayInputStream("[]".getBytes());
+        BulkIngestResponse expected = new BulkIngestResponse();
+        when(bulkIngestService.ingest(body)).thenReturn(expected);
+
+        assertSame(expected, controller.bulkAddExchangeRate(body));
     }
 
     @Test
@@ -79,26 +129,234 @@ class CurrencyControllerTest {
 
         when(currencyService.getExchangeRate("EUR")).thenReturn(expected);
 
-        List<CurrencyExchangeRateDto> actual = controller.getExchangeRateList("EUR");
+        List<CurrencyExchangeRateDto> actual = controller.getExchangeRateList("EUR", null, Downsampler.Mode.LTTB);
 
         assertSame(expected, actual);
         verify(currencyService, times(1)).getExchangeRate("EUR");
     }
 
+    @Test
+    void getExchangeRateList_withMaxPoints_downsamples() {
+        List<CurrencyExchangeRateDto> expected = List.of(new CurrencyExchangeRateDto());
+        when(currencyService.getExchangeRate("EUR", 500, Downsampler.Mode.MIN_MAX)).thenReturn(expected);
+
+        assertSame(expected, controller.getExchangeRateList("EUR", 500, Downsampler.Mode.MIN_MAX));
+        verify(currencyService, never()).getExchangeRate("EUR");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamExchangeRateList_withMaxPoints_streamsDownsampledRows() throws Exception {
+        doAnswer(inv -> {
+            Consumer<CurrencyExchangeRateDto> consumer = inv.getArgument(3);
+            consumer.accept(new CurrencyExchangeRateDto());
+            return null;
+        }).when(currencyService).forEachExchangeRate(eq("EUR"), eq(100), eq(Downsampler.Mode.LTTB), any(Consumer.class));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        controller.streamExchangeRateList("EUR", 100, Downsampler.Mode.LTTB).writeTo(out);
+
+        assertEquals(1, jsonMapper.readValue(out.toByteArray(), CurrencyExchangeRateDto[].class).length);
+        verify(currencyService, never()).forEachExchangeRate(eq("EUR"), any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamExchangeRateList_writesRowsAsJsonArray() throws Exception {
+        doAnswer(inv -> {
+            Consumer<CurrencyExchangeRateDto> consumer = inv.getArgument(1);
+            for (String time : List.of("2025-11-01T00:00:00Z", "2025-11-01T00:01:00Z")) {
+                CurrencyExchangeRateDto dto = new CurrencyExchangeRateDto();
+                dto.setBaseCurrency("EUR");
+                dto.setCloseTime(time);
+                consumer.accept(dto);
+            }
+            return null;
+        }).when(currencyService).forEachExchangeRate(eq("EUR"), any(Consumer.class));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        controller.streamExchangeRateList("EUR", null, Downsampler.Mode.LTTB).writeTo(out);
+
+        CurrencyExchangeRateDto[] rows = jsonMapper.readValue(out.toByteArray(), CurrencyExchangeRateDto[].class);
+        assertEquals(2, rows.length);
+        assertEquals("2025-11-01T00:01:00Z", rows[1].getCloseTime());
+    }
+
+    @Test
+    void streamExchangeRateList_unknownCurrency_failsBeforeStreaming() {
+        when(currencyService.getLatestExchangeRate("XXX")).thenThrow(new UnsupportedOperationException("currencyCodeNotFound"));
+
+        assertThrows(UnsupportedOperationException.class,
+                () -> controller.streamExchangeRateList("XXX", 100, Downsampler.Mode.LTTB));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getEncryptedExchangeRateList_streamsRowsIntoEnvelopeWithoutBuildingList() throws Exception {
+        KeyPair kp = RSAUtil.generateKeyPair(2048);
+        doAnswer(inv -> {
+            Consumer<CurrencyExchangeRateDto> consumer = inv.getArgument(1);
+            CurrencyExchangeRateDto dto = new CurrencyExchangeRateDto();
+            dto.setBaseCurrency("EUR");
+            dto.setCloseTime("2025-11-01T00:00:00Z");
+            consumer.accept(dto);
+            return null;
+        }).when(currencyService).forEachExchangeRate(eq("EUR"), any(Consumer.class));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        controller.getEncryptedExchangeRateList("EUR", null, Downsampler.Mode.LTTB, RSAUtil.publicKeyToBase64(kp.getPublic())).writeTo(out);
+
+        byte[] json = RSAUtil.envelopeDecrypt(out.toByteArray(), kp.getPrivate());
+        CurrencyExchangeRateDto[] rows = jsonMapper.readValue(json, CurrencyExchangeRateDto[].class);
+        assertEquals(1, rows.length);
+        assertEquals("EUR", rows[0].getBaseCurrency());
+        verify(currencyService, never()).getExchangeRate("EUR");
+    }
+
+    @Test
+    void getEncryptedExchangeRateList_unknownCurrency_failsBeforeStreaming() {
+        KeyPair kp = RSAUtil.generateKeyPair(2048);
+        when(currencyService.getLatestExchangeRate("XXX")).thenThrow(new UnsupportedOperationException("currencyCodeNotFound"));
+
+        assertThrows(UnsupportedOperationException.class, () -> controller.getEncryptedExchangeRateList("XXX", null,
+                Downsampler.Mode.LTTB, RSAUtil.publicKeyToBase64(kp.getPublic())));
+    }
+
+    @Test
+    void getEncryptedExchangeRateList_invalidPublicKey_failsBeforeLookup() {
+        when(messageSource.getMessage(eq("rsaPublicKeyInvalid"), any(), any())).thenReturn("rsaPublicKeyInvalid");
+
+        for (String header : List.of("bm90LWEta2V5", "not base64!", "")) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> controller.getEncryptedExchangeRateList("EUR", null, Downsampler.Mode.LTTB, header));
+            assertEquals("rsaPublicKeyInvalid", e.getMessage());
+        }
+        verifyNoInteractions(currencyService);
+    }
+
+    @Test
+    void getExchangeRatePage_parsesWindowAndDelegates() {
+        RatePageResponse expected = new RatePageResponse(List.of(), null);
+        when(currencyService.getExchangeRatePage("EUR", LocalDateTime.of(2025, 11, 1, 0, 0), null, 50, "abc"))
+                .thenReturn(expected);
+
+        assertSame(expected, controller.getExchangeRatePage("EUR", "2025/11/01 00:00:00", null, 50, "abc"));
+    }
+
+    @Test
+    void getExchangeRatePage_invalidFrom_throws() {
+        when(messageSource.getMessage(eq("wrongDateFormat"), any(), any())).thenReturn("wrongDateFormat");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> controller.getExchangeRatePage("EUR", "2025-11-01", null, 50, null));
+        verifyNoInteractions(currencyService);
+    }
+
+    @Test
+    void getExchangeRateRollup_parsesWindowAndDelegates() {
+        List<RateRollupDto> expected = List.of(RateRollupDto.builder().bucketStart("2025-11-01T00:00").count(3).build());
+        when(rollupService.getRollups("EUR", RollupResolution.WEEK, null, LocalDateTime.of(2025, 12, 1, 0, 0)))
+                .thenReturn(expected);
+
+        assertSame(expected, controller.getExchangeRateRollup("EUR", RollupResolution.WEEK, null, "2025/12/01 00:00:00"));
+    }
+
+    @Test
+    void getExchangeRateRollup_invalidTo_throws() {
+        when(messageSource.getMessage(eq("wrongDateFormat"), any(), any())).thenReturn("wrongDateFormat");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> controller.getExchangeRateRollup("EUR", RollupResolution.DAY, null, "2025-12-01"));
+        verifyNoInteractions(rollupService);
+    }
+
+    @Test
+    void getExchangeRateAsOf_parsesTimeAndPassesMode() {
+        CurrencyExchangeRateDto expected = new CurrencyExchangeRateDto();
+        when(currencyService.getExchangeRateAsOf("EUR", TIME, CurrencyService.AsOfMode.CEILING)).thenReturn(expected);
+
+        assertSame(expected, controller.getExchangeRateAsOf("EUR", "2025/11/01 00:00:00", CurrencyService.AsOfMode.CEILING));
+    }
+
+    @Test
+    void getExchangeRatesAsOf_parsesEachTimeInOrder() {
+        List<CurrencyExchangeRateDto> expected = List.of(new CurrencyExchangeRateDto(), new CurrencyExchangeRateDto());
+        List<CurrencyService.AsOfKey> keys = List.of(new CurrencyService.AsOfKey("EUR", TIME),
+                new CurrencyService.AsOfKey("VND", TIME.plusHours(1)));
+        when(currencyService.getExchangeRatesAsOf(keys, CurrencyService.AsOfMode.FLOOR)).thenReturn(expected);
+
+        List<CurrencyExchangeRateDto> actual = controller.getExchangeRatesAsOf(List.of(
+                new AsOfQuery("EUR", "2025/11/01 00:00:00"), new AsOfQuery("VND", "2025/11/01 01:00:00")),
+                CurrencyService.AsOfMode.FLOOR);
+
+        assertSame(expected, actual);
+    }
+
+    @Test
+    void getLatestExchangeRate_oneOrAll() {
+        CurrencyExchangeRateDto eur = CurrencyExchangeRateDto.builder().baseCurrency("EUR").build();
+        when(currencyService.getLatestExchangeRate("EUR")).thenReturn(eur);
+        when(currencyService.getLatestExchangeRates()).thenReturn(List.of(eur));
+
+        assertSame(eur, controller.getLatestExchangeRate("EUR"));
+        assertEquals(List.of(eur), controller.getLatestExchangeRates());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getCrossRates_parsesWindowAndStreamsRows() throws Exception {
+        doAnswer(inv -> {
+            Consumer<CurrencyExchangeRateDto> consumer = inv.getArgument(4);
+            consumer.accept(CurrencyExchangeRateDto.builder().baseCurrency("EUR").quoteCurrency("VND").build());
+            return null;
+        }).when(crossRateService).forEachCrossRate(eq("EUR"), eq("VND"), eq(TIME), isNull(), any(Consumer.class));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        controller.getCrossRates("EUR", "VND", "2025/11/01 00:00:00", null).writeTo(out);
+
+        CurrencyExchangeRateDto[] rows = jsonMapper.readValue(out.toByteArray(), CurrencyExchangeRateDto[].class);
+        assertEquals(1, rows.length);
+        assertEquals("VND", rows[0].getQuoteCurrency());
+    }
+
+    @Test
+    void getCrossRates_samePair_failsBeforeStreaming() {
+        doThrow(new IllegalArgumentException("crossRateSamePair")).when(crossRateService).checkPair("EUR", "EUR");
+
+        assertThrows(IllegalArgumentException.class, () -> controller.getCrossRates("EUR", "EUR", null, null));
+        verify(crossRateService, never()).forEachCrossRate(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getCrossRateAtTime_invalidTime_throws() {
+        when(messageSource.getMessage(eq("wrongDateFormat"), any(), any())).thenReturn("wrongDateFormat");
+
+        assertThrows(IllegalArgumentException.class, () -> controller.getCrossRateAtTime("EUR", "VND", "2025-11-01"));
+        verifyNoInteractions(crossRateService);
+    }
+
+    @Test
+    void getCrossRateMatrix_returnsServiceResult() {
+        CrossRateMatrixResponse expected = new CrossRateMatrixResponse(List.of("EUR", "USD"), Map.of());
+        when(crossRateService.getLatestMatrix()).thenReturn(expected);
+
+        assertSame(expected, controller.getCrossRateMatrix());
+    }
+
     @Test
     void getGetExchangeRateAtTimeSuccess_returnsServiceResult() {
         CurrencyExchangeRateDto expected = new CurrencyExchangeRateDto();
         expected.setBaseCurrency("EUR");
         expected.setQuoteCurrency("USD");
 
-        when(currencyService.getExchangeRateAtTime("EUR", "2025/11/01 00:00:00")).thenReturn(expected);
+        when(currencyService.getExchangeRateAtTime("EUR", TIME)).thenReturn(expected);
 
         CurrencyExchangeRateDto actual = controller.getExchangeRateAtTime("EUR", "2025/11/01 00:00:00");
 
         // expected baseCurrency is EUR and quoteCurrency is USD as set above
         assertEquals("EUR", actual.getBaseCurrency());
         assertEquals("USD", actual.getQuoteCurrency());
-        verify(currencyService, times(1)).getExchangeRateAtTime("EUR", "2025/11/01 00:00:00");
+        verify(currencyService, times(1)).getExchangeRateAtTime("EUR", TIME);
     }
 
     @Test
@@ -109,14 +367,14 @@ class CurrencyControllerTest {
         updated.setBaseCurrency("USD");
         updated.setQuoteCurrency("JPY");
 
-        when(currencyService.updateExchangeRate("USD", "2025/11/01 00:00:00", rate)).thenReturn(updated);
+        when(currencyService.updateExchangeRate("USD", TIME, rate)).thenReturn(updated);
 
         CurrencyExchangeRate result = controller.modifyExchangeRate("USD", "2025/11/01 00:00:00", rate);
 
         assertNotNull(result);
         assertEquals("USD", result.getBaseCurrency());
         assertEquals("JPY", result.getQuoteCurrency());
-        verify(currencyService, times(1)).updateExchangeRate("USD", "2025/11/01 00:00:00", rate);
+        verify(currencyService, times(1)).updateExchangeRate("USD", TIME, rate);
     }
 
     @Test
@@ -132,12 +390,14 @@ class CurrencyControllerTest {
         DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss");
         String updateTimeStr = updateTime.format(FMT);
 
-        when(clientService.getCurrencyExchangeRates("USD", startDate, endDate)).thenReturn(expected);
+        when(fxdsRateService.getExchangeRates("USD", startDate, endDate))
+                .thenReturn(CompletableFuture.completedFuture(expected));
 
-        List<CurrencyExchangeRateDto> actual = controller.getFxdsExchangeRateList("USD", updateTimeStr);
+        List<CurrencyExchangeRateDto> actual = controller.getFxdsExchangeRateList("USD", updateTimeStr).join();
 
         assertSame(expected, actual);
-        verify(clientService, times(1)).getCurrencyExchangeRates("USD", startDate, endDate);
+        verify(fxdsRateService, times(1)).getExchangeRates("USD", startDate, endDate);
+        verifyNoInteractions(clientService);
     }
 
     @Test
@@ -151,20 +411,21 @@ class CurrencyControllerTest {
 
     @Test
     void deleteExchangeRateAtTimeSuccess() {
-        doNothing().when(currencyService).deleteExchangeRateAtTime("EUR", "2025/11/01 00:00:00");
+        doNothing().when(currencyService).deleteExchangeRateAtTime("EUR", TIME);
 
         controller.deleteExchangeRateAtTime("EUR", "2025/11/01 00:00:00");
 
-        verify(currencyService, times(1)).deleteExchangeRateAtTime("EUR", "2025/11/01 00:00:00");
+        verify(currencyService, times(1)).deleteExchangeRateAtTime("EUR", TIME);
     }
 
     @Test
-    void rsaGenerateSuccess_returnsPublicKey() {
+    void rsaGenerateSuccess_returnsIssuedKey() {
+        when(rsaKeyringService.issue()).thenReturn(new RsaKeyringService.IssuedKey("k1", "pub"));
+
         PublicKeyResponse resp = controller.rsaGenerate();
 
-        assertNotNull(resp);
-        assertNotNull(resp.getPublicKey());
-        assertFalse(resp.getPublicKey().isEmpty());
+        assertEquals("pub", resp.getPublicKey());
+        assertEquals("k1", resp.getKeyId());
     }
 
     @Test
@@ -181,27 +442,32 @@ class CurrencyControllerTest {
     }
 
     @Test
-    void rsaDecryptSuccess() throws Exception {
-        KeyPair kp = RSAUtil.generateKeyPair(2048);
-        String publicKeyBase64 = RSAUtil.publicKeyToBase64(kp.getPublic());
-        String privateBase64 = RSAUtil.privateKeyToBase64(kp.getPrivate());
-
-        Field f = CurrencyController.class.getDeclaredField("lastPrivateKeyBase64");
-        f.setAccessible(true);
-        f.set(controller, privateBase64);
-
-        String cipher = RSAUtil.encrypt("USD", RSAUtil.publicKeyFromBase64(publicKeyBase64));
-
+    void rsaDecryptSuccess_decryptsWithGivenKeyId() {
         CurrencyExchangeRateDto dto = new CurrencyExchangeRateDto();
         dto.setBaseCurrency("USD");
         List<CurrencyExchangeRateDto> expected = Collections.singletonList(dto);
-
+        when(rsaKeyringService.decrypt("k1", "cipher")).thenReturn("USD");
         when(currencyService.getExchangeRate("USD")).thenReturn(expected);
 
-        List<CurrencyExchangeRateDto> actual = controller.rsaDecrypt(cipher);
+        List<CurrencyExchangeRateDto> actual = controller.rsaDecrypt("cipher", "k1");
 
         assertSame(expected, actual);
-        verify(currencyService, times(1)).getExchangeRate("USD");
+    }
+
+    @Test
+    void rsaDecrypt_withoutKeyId_rejectedWithoutFallingBackToAnotherKey() {
+        when(rsaKeyringService.decrypt(null, "cipher")).thenThrow(new IllegalArgumentException("rsaKeyIdRequired"));
+
+        assertThrows(IllegalArgumentException.class, () -> controller.rsaDecrypt("cipher", null));
+        verifyNoInteractions(currencyService);
+    }
+
+    @Test
+    void rsaDecrypt_unknownKeyId_throwsWithoutLookup() {
+        when(rsaKeyringService.decrypt("gone", "cipher")).thenThrow(new IllegalArgumentException("rsaKeyNotFound"));
+
+        assertThrows(IllegalArgumentException.class, () -> controller.rsaDecrypt("cipher", "gone"));
+        verifyNoInteractions(currencyService);
     }
 
     @Test
@@ -213,7 +479,7 @@ class CurrencyControllerTest {
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                 () -> controller.addExchangeRate("EUR", badTime, rate));
         assertEquals("wrong format", ex.getMessage());
-        verify(currencyService, never()).addExchangeRate(anyString(), anyString(), any());
+        verify(currencyService, never()).addExchangeRate(anyString(), any(), any());
     }
 
     @Test
@@ -222,7 +488,16 @@ class CurrencyControllerTest {
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                 () -> controller.getExchangeRateAtTime("EUR", "2025-11-06T23:59:59Z"));
         assertEquals("bad time", ex.getMessage());
-        verify(currencyService, never()).getExchangeRateAtTime(anyString(), anyString());
+        verify(currencyService, never()).getExchangeRateAtTime(anyString(), any());
+    }
+
+    @Test
+    void deleteExchangeRateAtTime_invalidTime_throws() {
+        when(messageSource.getMessage(eq("wrongDateFormat"), any(), any())).thenReturn("bad");
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> controller.deleteExchangeRateAtTime("EUR", "2025/02/30 00:00:00"));
+        assertEquals("bad", ex.getMessage());
+        verifyNoInteractions(currencyService);
     }
 
     @Test
@@ -249,13 +524,14 @@ class CurrencyControllerTest {
         LocalDate end = start.plusDays(1);
 
         CurrencyExchangeRateDto dto = CurrencyExchangeRateDto.builder().baseCurrency("EUR").quoteCurrency("USD").build();
-        when(clientService.getCurrencyExchangeRates(eq("EUR"), eq(start), eq(end))).thenReturn(List.of(dto));
+        when(fxdsRateService.getExchangeRates(eq("EUR"), eq(start), eq(end)))
+                .thenReturn(CompletableFuture.completedFuture(List.of(dto)));
 
-        List<CurrencyExchangeRateDto> result = controller.getFxdsExchangeRateList("EUR", valid);
+        List<CurrencyExchangeRateDto> result = controller.getFxdsExchangeRateList("EUR", valid).join();
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("EUR", result.get(0).getBaseCurrency());
-        verify(clientService).getCurrencyExchangeRates(eq("EUR"), eq(start), eq(end));
+        verify(fxdsRateService).getExchangeRates(eq("EUR"), eq(start), eq(end));
     }
 
     @Test
@@ -267,12 +543,13 @@ class CurrencyControllerTest {
         LocalDate e = LocalDate.parse(end, FMT);
 
         CurrencyExchangeRateDto dto = CurrencyExchangeRateDto.builder().baseCurrency("EUR").quoteCurrency("USD").build();
-        when(clientService.getCurrencyExchangeRates(eq("EUR"), eq(s), eq(e))).thenReturn(List.of(dto));
+        when(clientService.getCurrencyExchangeRatesAsync(eq("EUR"), eq(s), eq(e)))
+                .thenReturn(CompletableFuture.completedFuture(List.of(dto)));
 
-        List<CurrencyExchangeRateDto> result = controller.callFxdsExchangeRateList("EUR", start, end);
+        List<CurrencyExchangeRateDto> result = controller.callFxdsExchangeRateList("EUR", start, end).join();
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(clientService).getCurrencyExchangeRates(eq("EUR"), eq(s), eq(e));
+        verify(clientService).getCurrencyExchangeRatesAsync(eq("EUR"), eq(s), eq(e));
     }
 
     @Test
@@ -284,6 +561,15 @@ class CurrencyControllerTest {
         assertEquals("bad", ex.getMessage());
     }
 
+    @Test
+    void getCacheStats_returnsServiceResult() {
+        CacheStatsResponse expected = new CacheStatsResponse(new CacheStatsResponse.Entry(1, 2, 0, 1),
+                new CacheStatsResponse.Entry(3, 4, 0, 1));
+        when(currencyService.getCacheStats()).thenReturn(expected);
+
+        assertSame(expected, controller.getCacheStats());
+    }
+
     @Test
     void changeLocale_callsLocaleResolver_withLanguageTag_vi() {
         String lang = "vi";
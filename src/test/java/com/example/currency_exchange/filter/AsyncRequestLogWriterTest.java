@@ -0,0 +1,55 @@
+package com.example.currency_exchange.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncRequestLogWriterTest {
+
+    @Test
+    void offer_writesOnBackgroundThreadInOrder() throws Exception {
+        List<String> written = new CopyOnWriteArrayList<>();
+        List<String> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        try (AsyncRequestLogWriter<String> writer = new AsyncRequestLogWriter<>("test-writer", 10, entry -> {
+            written.add(entry);
+            threads.add(Thread.currentThread().getName());
+            done.countDown();
+        })) {
+            writer.offer("a");
+            writer.offer("b");
+            writer.offer("c");
+
+            assertTrue(done.await(2, TimeUnit.SECONDS));
+        }
+        assertEquals(List.of("a", "b", "c"), written);
+        assertTrue(threads.stream().allMatch("test-writer"::equals));
+    }
+
+    @Test
+    void offer_whenQueueFull_dropsWithoutBlocking() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try (AsyncRequestLogWriter<String> writer = new AsyncRequestLogWriter<>("test-writer", 1, entry -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        })) {
+            assertTrue(writer.offer("in sink"));
+            assertTrue(started.await(2, TimeUnit.SECONDS));
+            assertTrue(writer.offer("queued"));
+
+            assertFalse(writer.offer("dropped"));
+            assertEquals(1, writer.getDropped());
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.currency_exchange.filter;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class LoggingFilterTest {
+
+    private static final String BIG = "x".repeat(10_000);
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private LoggingFilter filter;
+
+    @RestController
+    static class TestController {
+        @PostMapping("/echo")
+        String echo(@RequestBody String body) {
+            return body;
+        }
+
+        @GetMapping("/big")
+        String big() {
+            return BIG;
+        }
+
+        @GetMapping("/rates")
+        List<Map<String, String>> rates() {
+            return Collections.nCopies(500, Map.of("base_currency", "EUR", "quote_currency", "USD",
+                    "close_time", "2025-11-01T00:00:00", "average_bid", "1.0850000000"));
+        }
+
+        @GetMapping("/async")
+        CompletableFuture<String> async() {
+            return CompletableFuture.supplyAsync(() -> "done");
+        }
+
+        @GetMapping("/stream")
+        StreamingResponseBody stream() {
+            return out -> out.write(BIG.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @GetMapping("/skip/me")
+        String skip() {
+            return "skipped";
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        ((Logger) LoggerFactory.getLogger(LoggingFilter.class)).addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((Logger) LoggerFactory.getLogger(LoggingFilter.class)).detachAppender(appender);
+        if (filter != null) {
+            filter.destroy();
+        }
+    }
+
+    private MockMvc mvc(double sampleRate, List<String> include, List<String> exclude) {
+        filter = new LoggingFilter(sampleRate, include, exclude, 64, 100);
+        return MockMvcBuilders.standaloneSetup(new TestController()).addFilters(filter).build();
+    }
+
+    private List<String> awaitMessages(int count) throws InterruptedException {
+        for (int i = 0; i < 200 && appender.list.size() < count; i++) {
+            Thread.sleep(10);
+        }
+        return appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+    }
+
+    @Test
+    void largeResponse_passesThroughWhole_andLogsBoundedPrefix() throws Exception {
+        MockMvc mvc = mvc(1.0, List.of(), List.of());
+
+        mvc.perform(get("/big")).andExpect(status().isOk()).andExpect(content().string(BIG));
+
+        List<String> messages = awaitMessages(2);
+        assertThat(messages).hasSize(2);
+        assertThat(messages.get(0)).startsWith("Incoming request: method=GET path=/big");
+        assertThat(messages.get(1)).startsWith("Outgoing response: status=200")
+                .contains("x".repeat(64) + "...(truncated 10000 bytes)")
+                .doesNotContain("x".repeat(65));
+    }
+
+    @Test
+    void jsonResponse_isByteForByteWhatItIsWithoutFilter() throws Exception {
+        MockMvc without = MockMvcBuilders.standaloneSetup(new TestController()).build();
+        MockMvc with = mvc(1.0, List.of(), List.of());
+
+        byte[] expected = without.perform(get("/rates")).andReturn().getResponse().getContentAsByteArray();
+        byte[] actual = with.perform(get("/rates")).andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(actual).hasSizeGreaterThan(64).isEqualTo(expected);
+        assertThat(awaitMessages(2).get(1)).contains("...(truncated " + expected.length + " bytes)");
+    }
+
+    @Test
+    void requestBody_isLoggedAfterHandlerReadsIt() throws Exception {
+        MockMvc mvc = mvc(1.0, List.of(), List.of());
+
+        mvc.perform(post("/echo").content("hello").header("X-Trace", "a", "b"))
+                .andExpect(content().string("hello"));
+
+        List<String> messages = awaitMessages(2);
+        assertThat(messages.get(0)).contains("X-Trace=a,b").endsWith("payload=hello");
+    }
+
+    @Test
+    void asyncHandler_isLoggedOnceWithItsBody() throws Exception {
+        MockMvc mvc = mvc(1.0, List.of(), List.of());
+
+        MvcResult result = mvc.perform(get("/async")).andExpect(request().asyncStarted()).andReturn();
+        result.getAsyncResult(1000);
+        Thread.sleep(50);
+        assertThat(appender.list).isEmpty();
+        mvc.perform(asyncDispatch(result)).andExpect(content().string("done"));
+
+        List<String> messages = awaitMessages(2);
+        Thread.sleep(50);
+        assertThat(appender.list).hasSize(2);
+        assertThat(messages.get(1)).endsWith("payload=done");
+    }
+
+    @Test
+    void streamingResponse_isNotBuffered() throws Exception {
+        MockMvc mvc = mvc(1.0, List.of(), List.of());
+
+        MvcResult result = mvc.perform(get("/stream")).andExpect(request().asyncStarted()).andReturn();
+        mvc.perform(asyncDispatch(result)).andExpect(content().string(BIG));
+
+        assertThat(awaitMessages(2).get(1)).contains("...(truncated 10000 bytes)");
+    }
+
+    @Test
+    void excludedAndNotIncludedPaths_areNotLogged() throws Exception {
+        MockMvc mvc = mvc(1.0, List.of("/big", "/skip/**"), List.of("/skip/**"));
+
+        mvc.perform(get("/skip/me")).andExpect(content().string("skipped"));
+        mvc.perform(post("/echo").content("hello")).andExpect(content().string("hello"));
+        mvc.perform(get("/big")).andExpect(status().isOk());
+
+        List<String> messages = awaitMessages(2);
+        Thread.sleep(50);
+        assertThat(appender.list).hasSize(2);
+        assertThat(messages.get(0)).contains("path=/big");
+    }
+
+    @Test
+    void sampleRateZero_logsNothing() throws Exception {
+        MockMvc mvc = mvc(0.0, List.of(), List.of());
+
+        for (int i = 0; i < 20; i++) {
+            mvc.perform(get("/big")).andExpect(content().string(BIG));
+        }
+
+        Thread.sleep(100);
+        assertThat(appender.list).isEmpty();
+    }
+}
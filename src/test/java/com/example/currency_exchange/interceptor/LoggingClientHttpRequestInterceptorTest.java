@@ -0,0 +1,116 @@
+package com.example.currency_exchange.interceptor;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoggingClientHttpRequestInterceptorTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(LoggingClientHttpRequestInterceptor.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final LoggingClientHttpRequestInterceptor interceptor = new LoggingClientHttpRequestInterceptor();
+    private final MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET, URI.create("http://fxds/rates"));
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setLevel(null);
+    }
+
+    private String lastMessage() {
+        return appender.list.get(appender.list.size() - 1).getFormattedMessage();
+    }
+
+    @Test
+    void intercept_streamsWholeBody_andLogsBoundedPrefixOnClose() throws Exception {
+        String body = "x".repeat(10_000);
+        MockClientHttpResponse upstream = new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+
+        ClientHttpResponse response = interceptor.intercept(request, new byte[0], (req, b) -> upstream);
+        String read;
+        try (InputStream in = response.getBody()) {
+            read = StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        }
+        response.close();
+
+        assertThat(read).isEqualTo(body);
+        assertThat(appender.list).hasSize(2);
+        assertThat(lastMessage()).startsWith("Incoming Response <- status=200 OK")
+                .contains("x".repeat(4096) + "...(truncated 10000 bytes)")
+                .doesNotContain("x".repeat(4097));
+    }
+
+    @Test
+    void intercept_smallBody_loggedInFullOnce() throws Exception {
+        MockClientHttpResponse upstream = new MockClientHttpResponse("{\"response\":[]}".getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+
+        ClientHttpResponse response = interceptor.intercept(request, new byte[0], (req, b) -> upstream);
+        StreamUtils.copyToByteArray(response.getBody());
+        response.close();
+        response.close();
+
+        assertThat(appender.list).hasSize(2);
+        assertThat(lastMessage()).endsWith("body={\"response\":[]}");
+    }
+
+    @Test
+    void intercept_singleByteReads_capturedLikeBulkReads() throws Exception {
+        String body = "y".repeat(5000);
+        MockClientHttpResponse upstream = new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+
+        ClientHttpResponse response = interceptor.intercept(request, new byte[0], (req, b) -> upstream);
+        StringBuilder read = new StringBuilder();
+        try (InputStream in = response.getBody()) {
+            for (int b = in.read(); b >= 0; b = in.read()) {
+                read.append((char) b);
+            }
+        }
+        response.close();
+
+        assertThat(read.toString()).isEqualTo(body);
+        assertThat(lastMessage()).contains("y".repeat(4096) + "...(truncated 5000 bytes)");
+    }
+
+    @Test
+    void intercept_bodyNeverRead_stillLogsStatusOnClose() throws Exception {
+        MockClientHttpResponse upstream = new MockClientHttpResponse(new byte[0], HttpStatus.BAD_GATEWAY);
+
+        interceptor.intercept(request, new byte[0], (req, b) -> upstream).close();
+
+        assertThat(lastMessage()).contains("status=502").endsWith("body=<empty>");
+    }
+
+    @Test
+    void intercept_infoDisabled_returnsUpstreamResponseUnwrapped() throws Exception {
+        logger.setLevel(Level.WARN);
+        MockClientHttpResponse upstream = new MockClientHttpResponse("ok".getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+
+        ClientHttpResponse response = interceptor.intercept(request, new byte[0], (req, b) -> upstream);
+
+        assertThat(response).isSameAs(upstream);
+        assertThat(appender.list).isEmpty();
+    }
+}
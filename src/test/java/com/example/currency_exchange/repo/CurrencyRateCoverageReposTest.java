@@ -0,0 +1,49 @@
+package com.example.currency_exchange.repo;
+
+import com.example.currency_exchange.entity.CurrencyRateCoverage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class CurrencyRateCoverageReposTest {
+
+    @Autowired
+    private CurrencyRateCoverageRepos repo;
+
+    @Test
+    void findCoveredDaysReturnsOnlyDaysOfPairInHalfOpenRange() {
+        LocalDate d1 = LocalDate.of(2025, 11, 10);
+        repo.saveAll(List.of(
+                new CurrencyRateCoverage("EUR", "USD", d1),
+                new CurrencyRateCoverage("EUR", "USD", d1.plusDays(1)),
+                new CurrencyRateCoverage("EUR", "USD", d1.plusDays(3)),
+                new CurrencyRateCoverage("VND", "USD", d1.plusDays(2))));
+        // saving a covered day again is a no-op
+        repo.save(new CurrencyRateCoverage("EUR", "USD", d1));
+
+        assertThat(repo.findCoveredDays("EUR", "USD", d1, d1.plusDays(3)))
+                .containsExactlyInAnyOrder(d1, d1.plusDays(1));
+        assertThat(repo.count()).isEqualTo(4);
+    }
+
+    @Test
+    void markCoveredInsertsOnceAndIgnoresRepeats() {
+        LocalDate d1 = LocalDate.of(2025, 11, 10);
+
+        repo.markCovered("EUR", "USD", d1);
+        repo.markCovered("EUR", "USD", d1);
+        repo.markCovered("EUR", "USD", d1.plusDays(1));
+
+        assertThat(repo.findCoveredDays("EUR", "USD", d1, d1.plusDays(2)))
+                .containsExactlyInAnyOrder(d1, d1.plusDays(1));
+        assertThat(repo.count()).isEqualTo(2);
+    }
+}
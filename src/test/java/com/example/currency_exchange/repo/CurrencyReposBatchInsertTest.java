@@ -0,0 +1,142 @@
+package com.example.currency_exchange.repo;
+
+import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.util.FixedPoint;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares IDENTITY-style inserts (one INSERT per row, reading the generated key back before the next one, as the old
+ * mapping forced) with batched sequence inserts against the H2 file database. What is asserted is the number of
+ * statements sent, which is what costs a round trip each on a networked database; in-process H2 has no round trip,
+ * so the logged throughput of the two paths is for reference only.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/h2/batch-insert-test",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class CurrencyReposBatchInsertTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CurrencyReposBatchInsertTest.class);
+    private static final int ROWS = 5000;
+    private static final LocalDateTime START = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Autowired
+    private CurrencyRepos repo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private static List<CurrencyExchangeRate> rows(String base) {
+        List<CurrencyExchangeRate> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            CurrencyExchangeRate e = new CurrencyExchangeRate();
+            e.setBaseCurrency(base);
+            e.setQuoteCurrency("USD");
+            e.setUpdateTime(START.plusMinutes(i));
+            e.setAverageBid(FixedPoint.parse("1.0850000000"));
+            e.setAverageAsk(FixedPoint.parse("1.0852000000"));
+            e.setHighBid(FixedPoint.parse("1.0900000000"));
+            e.setHighAsk(FixedPoint.parse("1.0902000000"));
+            e.setLowBid(FixedPoint.parse("1.0800000000"));
+            e.setLowAsk(FixedPoint.parse("1.0802000000"));
+            rows.add(e);
+        }
+        return rows;
+    }
+
+    /**
+     * Inserts the rows the way Hibernate does for an IDENTITY id: each row is its own INSERT without the id, and the
+     * database-generated key is read back before the next row can go. The id column's default supplies the key.
+     */
+    private long timeIdentityStyle(List<CurrencyExchangeRate> rows) {
+        long[] nanos = new long[1];
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            long start = System.nanoTime();
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO currency_exchange_rate "
+                    + "(base_currency, quote_currency, update_time, average_bid, average_ask, high_bid, high_ask, "
+                    + "low_bid, low_ask) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+                for (CurrencyExchangeRate row : rows) {
+                    insert.setString(1, row.getBaseCurrency());
+                    insert.setString(2, row.getQuoteCurrency());
+                    insert.setTimestamp(3, Timestamp.valueOf(row.getUpdateTime()));
+                    insert.setBigDecimal(4, FixedPoint.toBigDecimal(row.getAverageBid()));
+                    insert.setBigDecimal(5, FixedPoint.toBigDecimal(row.getAverageAsk()));
+                    insert.setBigDecimal(6, FixedPoint.toBigDecimal(row.getHighBid()));
+                    insert.setBigDecimal(7, FixedPoint.toBigDecimal(row.getHighAsk()));
+                    insert.setBigDecimal(8, FixedPoint.toBigDecimal(row.getLowBid()));
+                    insert.setBigDecimal(9, FixedPoint.toBigDecimal(row.getLowAsk()));
+                    insert.executeUpdate();
+                    try (ResultSet keys = insert.getGeneratedKeys()) {
+                        keys.next();
+                        row.setId(keys.getLong(1));
+                    }
+                }
+            }
+            nanos[0] = System.nanoTime() - start;
+        });
+        return nanos[0];
+    }
+
+    private long timeBatched(List<CurrencyExchangeRate> rows) {
+        long start = System.nanoTime();
+        repo.saveAll(rows);
+        entityManager.flush();
+        long nanos = System.nanoTime() - start;
+        entityManager.clear();
+        return nanos;
+    }
+
+    @Test
+    void sequenceInsertsAreBatched_whereIdentityStyleSendsOneStatementPerRow() {
+        // warm up both paths before measuring
+        timeIdentityStyle(rows("BIW").subList(0, 500));
+        timeBatched(rows("BIX").subList(0, 500));
+
+        List<CurrencyExchangeRate> identityRows = rows("BIA");
+        long identityNanos = timeIdentityStyle(identityRows);
+
+        Statistics stats = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        long batchedNanos = timeBatched(rows("BIB"));
+
+        log.info("Inserted {} rows: identity-style {} rows/s, batched sequence {} rows/s",
+                ROWS, ROWS * 1_000_000_000L / identityNanos, ROWS * 1_000_000_000L / batchedNanos);
+
+        assertThat(identityRows).extracting(CurrencyExchangeRate::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(stats.getEntityInsertCount()).isEqualTo(ROWS);
+        // one prepared INSERT per JDBC batch plus one sequence call per allocation block, not one per row
+        assertThat(stats.getPrepareStatementCount()).isLessThan(ROWS / 100);
+        assertThat(repo.findByCurrencyCode("BIB")).hasSize(ROWS);
+    }
+
+    @Test
+    void sequenceAssignsDistinctIds() {
+        List<CurrencyExchangeRate> saved = repo.saveAll(rows("BIC").subList(0, 3));
+        entityManager.flush();
+
+        assertThat(saved).extracting(CurrencyExchangeRate::getId).doesNotContainNull().doesNotHaveDuplicates();
+    }
+}
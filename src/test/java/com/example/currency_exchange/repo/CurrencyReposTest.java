@@ -1,16 +1,20 @@
 package com.example.currency_exchange.repo;
 
 import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.util.FixedPoint;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
 import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
@@ -24,12 +28,12 @@ class CurrencyReposTest {
         e.setBaseCurrency(base);
         e.setQuoteCurrency(quote);
         e.setUpdateTime(t);
-        e.setAverageBid(new BigDecimal(avgBid));
-        e.setAverageAsk(new BigDecimal(avgBid + 0.1f));
-        e.setHighBid(new BigDecimal(avgBid + 0.2f));
-        e.setHighAsk(new BigDecimal(avgBid + 0.3f));
-        e.setLowBid(new BigDecimal(avgBid - 0.2f));
-        e.setLowAsk(new BigDecimal(avgBid - 0.1f));
+        e.setAverageBid(FixedPoint.valueOf(new BigDecimal(avgBid)));
+        e.setAverageAsk(FixedPoint.valueOf(new BigDecimal(avgBid + 0.1f)));
+        e.setHighBid(FixedPoint.valueOf(new BigDecimal(avgBid + 0.2f)));
+        e.setHighAsk(FixedPoint.valueOf(new BigDecimal(avgBid + 0.3f)));
+        e.setLowBid(FixedPoint.valueOf(new BigDecimal(avgBid - 0.2f)));
+        e.setLowAsk(FixedPoint.valueOf(new BigDecimal(avgBid - 0.1f)));
         return e;
     }
 
@@ -78,4 +82,125 @@ class CurrencyReposTest {
         assertThat(after).hasSize(1);
         assertThat(after.get(0).getUpdateTime()).isEqualTo(t2);
     }
+
+    @Test
+    void findByCurrencyCodesAndUpdateTimesReturnsOnlyMatchingRows() {
+        LocalDateTime t1 = LocalDateTime.of(2025, 11, 10, 10, 0);
+        LocalDateTime t2 = LocalDateTime.of(2025, 11, 10, 11, 0);
+        repo.save(create("NZD", "USD", t1, 0.6f));
+        repo.save(create("NZD", "USD", t2, 0.61f));
+        repo.save(create("SGD", "USD", t1, 0.75f));
+
+        List<CurrencyExchangeRate> found = repo.findByCurrencyCodesAndUpdateTimes(List.of("NZD", "CHF"), List.of(t1));
+
+        assertThat(found).hasSize(1);
+        assertThat(found.get(0).getBaseCurrency()).isEqualTo("NZD");
+        assertThat(found.get(0).getUpdateTime()).isEqualTo(t1);
+    }
+
+    @Test
+    void streamByCurrencyCodeReturnsRowsOldestFirst() {
+        LocalDateTime t1 = LocalDateTime.of(2025, 11, 10, 10, 0);
+        LocalDateTime t2 = LocalDateTime.of(2025, 11, 10, 11, 0);
+        repo.save(create("HKD", "USD", t2, 0.13f));
+        repo.save(create("HKD", "USD", t1, 0.12f));
+        repo.save(create("SEK", "USD", t1, 0.09f));
+
+        try (Stream<CurrencyExchangeRate> rows = repo.streamByCurrencyCode("HKD")) {
+            assertThat(rows.map(CurrencyExchangeRate::getUpdateTime)).containsExactly(t1, t2);
+        }
+    }
+
+    @Test
+    void findByCurrencyCodeOrdersByUpdateTime() {
+        LocalDateTime t1 = LocalDateTime.of(2025, 11, 10, 10, 0);
+        repo.save(create("NOK", "USD", t1.plusHours(2), 0.1f));
+        repo.save(create("NOK", "USD", t1, 0.1f));
+        repo.save(create("NOK", "USD", t1.plusHours(1), 0.1f));
+
+        assertThat(repo.findByCurrencyCode("NOK")).extracting(CurrencyExchangeRate::getUpdateTime)
+                .containsExactly(t1, t1.plusHours(1), t1.plusHours(2));
+    }
+
+    @Test
+    void findPageAndFindPageAfterSeekThroughWindow() {
+        LocalDateTime t0 = LocalDateTime.of(2025, 11, 10, 0, 0);
+        for (int i = 0; i < 6; i++) {
+            repo.save(create("DKK", "USD", t0.plusHours(i), 0.15f));
+        }
+        repo.save(create("PLN", "USD", t0.plusHours(2), 0.25f));
+
+        List<CurrencyExchangeRate> first = repo.findPage("DKK", t0.plusHours(1), t0.plusHours(5), Limit.of(2));
+        assertThat(first).extracting(CurrencyExchangeRate::getUpdateTime).containsExactly(t0.plusHours(1), t0.plusHours(2));
+
+        List<CurrencyExchangeRate> next = repo.findPageAfter("DKK", t0.plusHours(2), t0.plusHours(5), Limit.of(2));
+        assertThat(next).extracting(CurrencyExchangeRate::getUpdateTime).containsExactly(t0.plusHours(3), t0.plusHours(4));
+
+        assertThat(repo.findPageAfter("DKK", t0.plusHours(4), t0.plusHours(5), Limit.of(2))).isEmpty();
+    }
+
+    @Test
+    void findFloorAndFindCeilingReturnNearestRowAroundTime() {
+        LocalDateTime t0 = LocalDateTime.of(2025, 12, 1, 0, 0);
+        repo.saveAll(List.of(create("HUF", "USD", t0, 0.1f), create("HUF", "USD", t0.plusHours(2), 0.2f),
+                create("CZK", "USD", t0.plusHours(1), 0.3f)));
+
+        assertThat(repo.findFloor("HUF", t0.plusHours(1), Limit.of(1)))
+                .extracting(CurrencyExchangeRate::getUpdateTime).containsExactly(t0);
+        assertThat(repo.findCeiling("HUF", t0.plusHours(1), Limit.of(1)))
+                .extracting(CurrencyExchangeRate::getUpdateTime).containsExactly(t0.plusHours(2));
+        assertThat(repo.findFloor("HUF", t0.plusHours(2), Limit.of(1)))
+                .extracting(CurrencyExchangeRate::getUpdateTime).containsExactly(t0.plusHours(2));
+        assertThat(repo.findFloor("HUF", t0.minusSeconds(1), Limit.of(1))).isEmpty();
+    }
+
+    @Test
+    void streamRangeIncludesBothEnds() {
+        LocalDateTime t0 = LocalDateTime.of(2025, 12, 5, 0, 0);
+        for (int i = 0; i < 4; i++) {
+            repo.save(create("RON", "USD", t0.plusHours(i), 0.2f));
+        }
+
+        try (Stream<CurrencyExchangeRate> rows = repo.streamRange("RON", t0.plusHours(1), t0.plusHours(2))) {
+            assertThat(rows.map(CurrencyExchangeRate::getUpdateTime)).containsExactly(t0.plusHours(1), t0.plusHours(2));
+        }
+    }
+
+    @Test
+    void findLatestByCurrencyCodesReturnsNewestRowOfEachRequestedCurrency() {
+        LocalDateTime t = LocalDateTime.of(2025, 11, 1, 0, 0);
+        repo.saveAll(List.of(create("LTA", "USD", t, 1.0f), create("LTA", "USD", t.plusHours(2), 1.1f),
+                create("LTB", "USD", t.plusHours(1), 2.0f), create("LTC", "USD", t.plusHours(5), 3.0f)));
+
+        List<CurrencyExchangeRate> latest = repo.findLatestByCurrencyCodes(List.of("LTA", "LTB", "USD"));
+
+        assertThat(latest).extracting(CurrencyExchangeRate::getBaseCurrency, CurrencyExchangeRate::getUpdateTime)
+                .containsExactlyInAnyOrder(
+                        tuple("LTA", t.plusHours(2)),
+                        tuple("LTB", t.plusHours(1)));
+    }
+
+    @Test
+    void findLatestOfEachCurrencyReturnsOneNewestRowPerCurrency() {
+        LocalDateTime t = LocalDateTime.of(2030, 1, 1, 0, 0);
+        repo.saveAll(List.of(create("LOA", "USD", t, 1.0f), create("LOA", "USD", t.plusHours(2), 1.1f),
+                create("LOB", "USD", t.plusHours(1), 2.0f)));
+
+        List<CurrencyExchangeRate> latest = repo.findLatestOfEachCurrency();
+
+        assertThat(latest).extracting(CurrencyExchangeRate::getBaseCurrency).doesNotHaveDuplicates();
+        assertThat(latest).filteredOn(r -> r.getBaseCurrency().startsWith("LO"))
+                .extracting(CurrencyExchangeRate::getBaseCurrency, CurrencyExchangeRate::getUpdateTime)
+                .containsExactlyInAnyOrder(tuple("LOA", t.plusHours(2)), tuple("LOB", t.plusHours(1)));
+    }
+
+    @Test
+    void countByCurrencyCodeCountsOnlyThatCurrency() {
+        LocalDateTime t = LocalDateTime.of(2025, 11, 1, 0, 0);
+        repo.saveAll(List.of(create("CNA", "USD", t, 1.0f), create("CNA", "USD", t.plusMinutes(1), 1.0f),
+                create("CNB", "USD", t, 1.0f)));
+
+        assertThat(repo.countByCurrencyCode("CNA")).isEqualTo(2);
+        assertThat(repo.countByCurrencyCode("CNX")).isZero();
+    }
 }
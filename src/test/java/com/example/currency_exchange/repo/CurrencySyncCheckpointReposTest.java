@@ -0,0 +1,32 @@
+package com.example.currency_exchange.repo;
+
+import com.example.currency_exchange.entity.CurrencySyncCheckpoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class CurrencySyncCheckpointReposTest {
+
+    @Autowired
+    private CurrencySyncCheckpointRepos repo;
+
+    @Test
+    void saveOverwritesCheckpointOfSamePair() {
+        LocalDateTime t1 = LocalDateTime.of(2025, 11, 10, 10, 0);
+        LocalDateTime t2 = LocalDateTime.of(2025, 11, 11, 10, 0);
+        repo.save(new CurrencySyncCheckpoint("EUR", "USD", t1));
+        repo.save(new CurrencySyncCheckpoint("EUR", "USD", t2));
+        repo.save(new CurrencySyncCheckpoint("VND", "USD", t1));
+
+        assertThat(repo.count()).isEqualTo(2);
+        assertThat(repo.findById(new CurrencySyncCheckpoint.Key("EUR", "USD")))
+                .get().extracting(CurrencySyncCheckpoint::getLastUpdateTime).isEqualTo(t2);
+    }
+}
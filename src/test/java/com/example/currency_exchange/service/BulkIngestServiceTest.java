@@ -0,0 +1,164 @@
+package com.example.currency_exchange.service;
+
+import com.example.currency_exchange.dto.BulkIngestResponse;
+import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.util.FixedPoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkIngestServiceTest {
+
+    @Mock
+    private CurrencyService currencyService;
+
+    @Mock
+    private MessageSource messageSource;
+
+    @Spy
+    private JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @InjectMocks
+    private BulkIngestService bulkIngestService;
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String entry(String code, String time) {
+        return "{\"currencyCode\":\"" + code + "\",\"update_time\":\"" + time + "\","
+                + "\"rate\":{\"averageBid\":1.01,\"averageAsk\":\"1.02\",\"highBid\":1.05,\"highAsk\":1.06,\"lowBid\":0.99,\"lowAsk\":0.98}}";
+    }
+
+    @Test
+    void ingest_jsonArray_insertsAllRowsInOneChunk() {
+        when(currencyService.addExchangeRates(anyList())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).size());
+
+        BulkIngestResponse response = bulkIngestService.ingest(body("[" + entry("EUR", "2025/11/01 00:00:00") + ","
+                + entry("VND", "2025/11/01 00:00:00") + "]"));
+
+        ArgumentCaptor<List<CurrencyExchangeRate>> captor = ArgumentCaptor.captor();
+        verify(currencyService).addExchangeRates(captor.capture());
+        List<CurrencyExchangeRate> rows = captor.getValue();
+        assertEquals(2, rows.size());
+        assertEquals("EUR", rows.get(0).getBaseCurrency());
+        assertEquals("USD", rows.get(0).getQuoteCurrency());
+        assertEquals(LocalDateTime.of(2025, 11, 1, 0, 0), rows.get(0).getUpdateTime());
+        assertEquals(FixedPoint.parse("1.02"), rows.get(0).getAverageAsk());
+        assertEquals(2, response.getInserted());
+        assertEquals(1, response.getChunks().size());
+    }
+
+    @Test
+    void ingest_ndjson_splitsIntoChunksAndReportsSkipped() {
+        ReflectionTestUtils.setField(bulkIngestService, "chunkSize", 2);
+        List<Integer> chunkSizes = new ArrayList<>();
+        when(currencyService.addExchangeRates(anyList())).thenAnswer(inv -> {
+            int size = ((List<?>) inv.getArgument(0)).size();
+            chunkSizes.add(size);
+            return size - 1;
+        });
+
+        BulkIngestResponse response = bulkIngestService.ingest(body(entry("EUR", "2025/11/01 00:00:00") + "\n"
+                + entry("EUR", "2025/11/01 00:01:00") + "\n"
+                + entry("EUR", "2025/11/01 00:02:00") + "\n"));
+
+        assertEquals(List.of(2, 1), chunkSizes);
+        assertEquals(2, response.getChunks().size());
+        assertEquals(1, response.getInserted());
+        assertEquals(2, response.getSkipped());
+        assertEquals(0, response.getFailed());
+    }
+
+    @Test
+    void ingest_invalidEntries_countedAsFailed() {
+        when(currencyService.addExchangeRates(anyList())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).size());
+
+        BulkIngestResponse response = bulkIngestService.ingest(body("[" + entry("EUR", "2025-11-01T00:00:00Z") + ","
+                + "{\"currencyCode\":\"EUR\",\"update_time\":\"2025/11/01 00:00:00\"},"
+                + entry("EUR", "2025/11/01 00:00:00") + "]"));
+
+        assertEquals(1, response.getInserted());
+        assertEquals(2, response.getFailed());
+        assertEquals(2, response.getChunks().get(0).getFailed());
+    }
+
+    @Test
+    void ingest_chunkRejectedByDatabase_countedAsFailedAndContinues() {
+        ReflectionTestUtils.setField(bulkIngestService, "chunkSize", 1);
+        when(currencyService.addExchangeRates(anyList()))
+                .thenThrow(new DataIntegrityViolationException("duplicate"))
+                .thenReturn(1);
+
+        BulkIngestResponse response = bulkIngestService.ingest(body("[" + entry("EUR", "2025/11/01 00:00:00") + ","
+                + entry("EUR", "2025/11/01 00:01:00") + "]"));
+
+        assertEquals(1, response.getFailed());
+        assertEquals(1, response.getInserted());
+        assertEquals(1, response.getChunks().get(0).getFailed());
+        assertEquals(1, response.getChunks().get(1).getInserted());
+    }
+
+    @Test
+    void ingest_recordThatDoesNotMap_countedAsFailedAndReadingContinues() {
+        when(currencyService.addExchangeRates(anyList())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).size());
+
+        BulkIngestResponse response = bulkIngestService.ingest(body("[" + entry("EUR", "2025/11/01 00:00:00") + ","
+                + "{\"currencyCode\":\"EUR\",\"update_time\":\"2025/11/01 00:01:00\",\"rate\":{\"averageBid\":\"abc\"}},"
+                + entry("EUR", "2025/11/01 00:02:00") + "]"));
+
+        assertEquals(2, response.getInserted());
+        assertEquals(1, response.getFailed());
+        assertNull(response.getError());
+    }
+
+    @Test
+    void ingest_malformedBody_keepsCommittedChunksAndReportsError() {
+        ReflectionTestUtils.setField(bulkIngestService, "chunkSize", 2);
+        when(currencyService.addExchangeRates(anyList())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).size());
+        when(messageSource.getMessage(eq("bulkBodyMalformed"), any(), any())).thenReturn("malformed");
+
+        BulkIngestResponse response = bulkIngestService.ingest(body(entry("EUR", "2025/11/01 00:00:00") + "\n"
+                + entry("EUR", "2025/11/01 00:01:00") + "\n"
+                + entry("EUR", "2025/11/01 00:02:00") + "\n"
+                + "{\"currencyCode\": EUR"));
+
+        verify(currencyService, times(2)).addExchangeRates(anyList());
+        assertEquals(2, response.getChunks().size());
+        assertEquals(2, response.getChunks().get(0).getInserted());
+        assertEquals(1, response.getChunks().get(1).getInserted());
+        assertEquals(1, response.getChunks().get(1).getFailed());
+        assertEquals("malformed", response.getError());
+    }
+
+    @Test
+    void ingest_emptyArray_returnsEmptyResponse() {
+        BulkIngestResponse response = bulkIngestService.ingest(body("[]"));
+
+        assertEquals(0, response.getInserted());
+        assertTrue(response.getChunks().isEmpty());
+        verify(currencyService, never()).addExchangeRates(anyList());
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.currency_exchange.service;
+
+import com.example.currency_exchange.dto.CrossRateMatrixResponse;
+import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
+import com.example.currency_exchange.dto.RateDto;
+import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.repo.CurrencyRepos;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CrossRateServiceTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2025, 11, 1, 0, 0);
+
+    @Mock
+    private CurrencyRepos currencyRepos;
+
+    @Mock
+    private MessageSource messageSource;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private CrossRateService crossRateService = new CrossRateService(60);
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(messageSource.getMessage(anyString(), any(), any())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    // bid/ask/high/low chosen so every combination is distinguishable
+    private static CurrencyExchangeRate leg(String base, LocalDateTime time, String bid, String ask,
+                                            String highBid, String highAsk, String lowBid, String lowAsk) {
+        return CurrencyService.getCurrencyExchangeRate(base, time, RateDto.builder()
+                .averageBid(new BigDecimal(bid)).averageAsk(new BigDecimal(ask))
+                .highBid(new BigDecimal(highBid)).highAsk(new BigDecimal(highAsk))
+                .lowBid(new BigDecimal(lowBid)).lowAsk(new BigDecimal(lowAsk))
+                .build());
+    }
+
+    private static CurrencyExchangeRate eur(LocalDateTime time) {
+        return leg("EUR", time, "1.10", "1.12", "1.20", "1.22", "1.00", "1.02");
+    }
+
+    private static CurrencyExchangeRate gbp(LocalDateTime time) {
+        return leg("GBP", time, "1.25", "1.28", "1.30", "1.32", "1.24", "1.26");
+    }
+
+    @Test
+    void getCrossRateAtTime_dividesOppositeSidesOfTheLegs() {
+        when(currencyRepos.findFloor("EUR", T, Limit.of(1))).thenReturn(List.of(eur(T)));
+        when(currencyRepos.findFloor("GBP", T, Limit.of(1))).thenReturn(List.of(gbp(T)));
+
+        CurrencyExchangeRateDto cross = crossRateService.getCrossRateAtTime("EUR", "GBP", T);
+
+        assertEquals("EUR", cross.getBaseCurrency());
+        assertEquals("GBP", cross.getQuoteCurrency());
+        assertEquals(T.toString(), cross.getCloseTime());
+        // selling EUR for GBP: EUR bid over GBP ask, buying EUR with GBP: EUR ask over GBP bid
+        assertEquals(new BigDecimal("0.859375"), new BigDecimal(cross.getAverageBid()));
+        assertEquals(new BigDecimal("0.896"), new BigDecimal(cross.getAverageAsk()));
+        // the widest range the legs allow
+        assertEquals(0, new BigDecimal(cross.getHighBid()).compareTo(new BigDecimal("1.20").divide(new BigDecimal("1.26"), MathContext.DECIMAL64)));
+        assertEquals(0, new BigDecimal(cross.getLowAsk()).compareTo(new BigDecimal("1.02").divide(new BigDecimal("1.30"), MathContext.DECIMAL64)));
+    }
+
+    @Test
+    void getCrossRateAtTime_usdSides() {
+        when(currencyRepos.findFloor("EUR", T, Limit.of(1))).thenReturn(List.of(eur(T)));
+
+        CurrencyExchangeRateDto direct = crossRateService.getCrossRateAtTime("EUR", "USD", T);
+        CurrencyExchangeRateDto inverse = crossRateService.getCrossRateAtTime("USD", "EUR", T);
+
+        assertEquals(new BigDecimal("1.1"), new BigDecimal(direct.getAverageBid()));
+        // 1 / EUR ask
+        assertEquals(0, new BigDecimal(inverse.getAverageBid()).compareTo(BigDecimal.ONE.divide(new BigDecimal("1.12"), MathContext.DECIMAL64)));
+        verify(currencyRepos, never()).findFloor(eq("USD"), any(), any());
+    }
+
+    @Test
+    void getCrossRateAtTime_legsAtDifferentTimes_usesEachLegAsOfTheTime() {
+        when(currencyRepos.findFloor("EUR", T.plusMinutes(5), Limit.of(1))).thenReturn(List.of(eur(T.plusMinutes(4))));
+        when(currencyRepos.findFloor("GBP", T.plusMinutes(5), Limit.of(1))).thenReturn(List.of(gbp(T.plusMinutes(1))));
+
+        CurrencyExchangeRateDto cross = crossRateService.getCrossRateAtTime("EUR", "GBP", T.plusMinutes(5));
+
+        assertEquals(new BigDecimal("0.859375"), new BigDecimal(cross.getAverageBid()));
+        // as old as its older leg
+        assertEquals(T.plusMinutes(1).toString(), cross.getCloseTime());
+    }
+
+    @Test
+    void getCrossRateAtTime_legWithoutEarlierRate_returnsNull() {
+        when(currencyRepos.findFloor("EUR", T, Limit.of(1))).thenReturn(List.of(eur(T)));
+        when(currencyRepos.findFloor("GBP", T, Limit.of(1))).thenReturn(List.of());
+
+        assertNull(crossRateService.getCrossRateAtTime("EUR", "GBP", T));
+    }
+
+    @Test
+    void getCrossRateAtTime_samePair_throws() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> crossRateService.getCrossRateAtTime("EUR", "EUR", T));
+        assertEquals("crossRateSamePair", ex.getMessage());
+    }
+
+    private List<CurrencyExchangeRateDto> crossRates(String base, String quote, LocalDateTime from, LocalDateTime to) {
+        List<CurrencyExchangeRateDto> series = new ArrayList<>();
+        crossRateService.forEachCrossRate(base, quote, from, to, series::add);
+        return series;
+    }
+
+    @Test
+    void forEachCrossRate_mergeJoinsTheLegStreamsOnEqualTimes() {
+        when(currencyRepos.streamRange(eq("EUR"), eq(T), any()))
+                .thenReturn(Stream.of(eur(T), eur(T.plusMinutes(1)), eur(T.plusMinutes(3)), eur(T.plusMinutes(4))));
+        when(currencyRepos.streamRange(eq("GBP"), eq(T), any()))
+                .thenReturn(Stream.of(gbp(T.plusMinutes(1)), gbp(T.plusMinutes(2)), gbp(T.plusMinutes(4)), gbp(T.plusMinutes(5))));
+
+        List<CurrencyExchangeRateDto> series = crossRates("EUR", "GBP", T, null);
+
+        assertEquals(List.of(T.plusMinutes(1).toString(), T.plusMinutes(4).toString()),
+                series.stream().map(CurrencyExchangeRateDto::getCloseTime).toList());
+        // one range stream per leg, no per-row lookups, every row detached once passed
+        verify(currencyRepos, times(2)).streamRange(anyString(), any(), any());
+        verifyNoMoreInteractions(currencyRepos);
+        verify(entityManager, times(7)).detach(any());
+    }
+
+    @Test
+    void forEachCrossRate_rowAtWindowEnd_excluded() {
+        when(currencyRepos.streamRange("EUR", T, T.plusMinutes(1))).thenReturn(Stream.of(eur(T), eur(T.plusMinutes(1))));
+        when(currencyRepos.streamRange("GBP", T, T.plusMinutes(1))).thenReturn(Stream.of(gbp(T), gbp(T.plusMinutes(1))));
+
+        assertEquals(List.of(T.toString()),
+                crossRates("EUR", "GBP", T, T.plusMinutes(1)).stream().map(CurrencyExchangeRateDto::getCloseTime).toList());
+    }
+
+    @Test
+    void forEachCrossRate_againstUsd_mapsTheSingleLeg() {
+        when(currencyRepos.streamRange(eq("EUR"), any(), any())).thenReturn(Stream.of(eur(T), eur(T.plusMinutes(1))));
+
+        List<CurrencyExchangeRateDto> series = crossRates("USD", "EUR", null, null);
+
+        assertEquals(2, series.size());
+        assertEquals("USD", series.get(0).getBaseCurrency());
+        assertEquals("EUR", series.get(0).getQuoteCurrency());
+    }
+
+    @Test
+    void getLatestMatrix_crossesConfiguredCurrenciesAndUsd_andIsCached() {
+        crossRateService.currencies = List.of("EUR", "GBP", "JPY");
+        when(currencyRepos.findLatestByCurrencyCodes(any())).thenReturn(List.of(eur(T.plusHours(1)), gbp(T)));
+
+        CrossRateMatrixResponse matrix = crossRateService.getLatestMatrix();
+
+        // JPY has no rate and is left out
+        assertEquals(List.of("EUR", "GBP", "USD"), matrix.getCurrencies());
+        assertEquals(2, matrix.getRates().get("EUR").size());
+        assertEquals(new BigDecimal("0.859375"), new BigDecimal(matrix.getRates().get("EUR").get("GBP").getAverageBid()));
+        // the cell is as old as its older leg
+        assertEquals(T.toString(), matrix.getRates().get("EUR").get("GBP").getCloseTime());
+        assertEquals(T.plusHours(1).toString(), matrix.getRates().get("USD").get("EUR").getCloseTime());
+
+        assertSame(matrix, crossRateService.getLatestMatrix());
+        verify(currencyRepos, times(1)).findLatestByCurrencyCodes(any());
+    }
+}
@@ -1,23 +1,41 @@
 package com.example.currency_exchange.service;
 
+import com.example.currency_exchange.cache.FxdsResponseCache;
 import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
 import com.example.currency_exchange.dto.RestClientResponse;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
+import java.net.URI;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,6 +44,9 @@ class CurrencyClientServiceTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Spy
+    private FxdsResponseCache responseCache = new FxdsResponseCache(100, 60);
+
     @InjectMocks
     private CurrencyClientService clientService;
 
@@ -46,5 +67,75 @@ class CurrencyClientServiceTest {
         assertThat(result).hasSize(1);
         assertThat(result.get(0)).isEqualTo(dto);
     }
-}
 
+    private static WebClient stubWebClient(HttpStatus status, String json, AtomicReference<URI> requested) {
+        return WebClient.builder().exchangeFunction(request -> {
+            requested.set(request.url());
+            return Mono.just(ClientResponse.create(status)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body(json)
+                    .build());
+        }).build();
+    }
+
+    @Test
+    void getCurrencyExchangeRatesAsync_decodesResponseWithoutRestTemplate() {
+        AtomicReference<URI> requested = new AtomicReference<>();
+        ReflectionTestUtils.setField(clientService, "webClient", stubWebClient(HttpStatus.OK,
+                "{\"response\":[{\"base_currency\":\"EUR\",\"quote_currency\":\"USD\",\"average_bid\":\"1.08\"}]}",
+                requested));
+
+        List<CurrencyExchangeRateDto> result = clientService
+                .getCurrencyExchangeRatesAsync("EUR", LocalDate.of(2023, 1, 1), LocalDate.of(2023, 1, 2)).join();
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getBaseCurrency()).isEqualTo("EUR");
+        assertThat(result.get(0).getAverageBid()).isEqualTo("1.08");
+        assertThat(requested.get().getQuery())
+                .isEqualTo("base=EUR&quote=USD&data_type=chart&start_date=2023-01-01&end_date=2023-01-02");
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void fetchCurrencyExchangeRates_emptyResponse_returnsEmptyList() {
+        ReflectionTestUtils.setField(clientService, "webClient",
+                stubWebClient(HttpStatus.OK, "{}", new AtomicReference<>()));
+
+        assertThat(clientService.fetchCurrencyExchangeRates("EUR", LocalDate.of(2023, 1, 1), LocalDate.of(2023, 1, 2))
+                .block()).isEmpty();
+    }
+
+    @Test
+    void getCurrencyExchangeRatesAsync_upstreamError_completesExceptionally() {
+        ReflectionTestUtils.setField(clientService, "webClient",
+                stubWebClient(HttpStatus.BAD_GATEWAY, "{}", new AtomicReference<>()));
+
+        CompletableFuture<List<CurrencyExchangeRateDto>> future =
+                clientService.getCurrencyExchangeRatesAsync("EUR", LocalDate.of(2023, 1, 1), LocalDate.of(2023, 1, 2));
+
+        assertThatThrownBy(future::join).hasCauseInstanceOf(WebClientResponseException.class);
+    }
+
+    @Test
+    void getCurrencyExchangeRatesAsync_concurrentIdenticalCallsShareOneUpstreamRequest() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        ReflectionTestUtils.setField(clientService, "webClient", WebClient.builder().exchangeFunction(request -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body("{\"response\":[{\"base_currency\":\"EUR\"}]}")
+                    .build()).delayElement(Duration.ofMillis(100));
+        }).build());
+        LocalDate start = LocalDate.of(2023, 1, 1);
+        LocalDate end = LocalDate.of(2023, 1, 2);
+
+        List<CompletableFuture<List<CurrencyExchangeRateDto>>> callers = IntStream.range(0, 8)
+                .mapToObj(i -> clientService.getCurrencyExchangeRatesAsync("EUR", start, end)).toList();
+
+        callers.forEach(caller -> assertThat(caller.join()).hasSize(1));
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+
+        clientService.getCurrencyExchangeRatesAsync("EUR", start, end.plusDays(1)).join();
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+}
@@ -1,24 +1,36 @@
 package com.example.currency_exchange.service;
 
+import com.example.currency_exchange.cache.ColumnarRateStore;
+import com.example.currency_exchange.cache.LatestRateIndex;
+import com.example.currency_exchange.cache.RateCache;
 import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
 import com.example.currency_exchange.dto.RateDto;
+import com.example.currency_exchange.dto.RatePageResponse;
 import com.example.currency_exchange.entity.CurrencyExchangeRate;
 import com.example.currency_exchange.mapper.CurrencyMapper;
+import com.example.currency_exchange.mapper.CurrencyMapperImpl;
 import com.example.currency_exchange.repo.CurrencyRepos;
+import com.example.currency_exchange.util.Downsampler;
+import com.example.currency_exchange.util.FixedPoint;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.MessageSource;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -27,8 +39,7 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class CurrencyServiceTest {
 
-    private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss");
-    private static final String TIME = "2025/01/02 03:04:05";
+    private static final LocalDateTime TIME = LocalDateTime.of(2025, 1, 2, 3, 4, 5);
 
     @Mock
     CurrencyRepos currencyRepos;
@@ -36,6 +47,16 @@ class CurrencyServiceTest {
     MessageSource messageSource;
     @Mock
     CurrencyMapper mapper;
+    @Mock
+    EntityManager entityManager;
+    @Mock
+    RollupService rollupService;
+    @Mock
+    LatestRateIndex latestRateIndex;
+    @Mock
+    ColumnarRateStore columnarRateStore;
+    @Spy
+    RateCache rateCache = new RateCache(100, 1000, 60);
 
     @InjectMocks
     CurrencyService currencyService;
@@ -64,13 +85,13 @@ class CurrencyServiceTest {
         CurrencyExchangeRate saved = captor.getValue();
         assertEquals("EUR", saved.getBaseCurrency());
         assertEquals("USD", saved.getQuoteCurrency());
-        assertEquals(LocalDateTime.parse(TIME, FMT), saved.getUpdateTime());
-        assertEquals(BigDecimal.valueOf(1.1), saved.getHighBid());
-        assertEquals(BigDecimal.valueOf(1.0), saved.getLowBid());
-        assertEquals(BigDecimal.valueOf(1.2), saved.getHighAsk());
-        assertEquals(BigDecimal.valueOf(0.9), saved.getLowAsk());
-        assertEquals(BigDecimal.valueOf(1.15), saved.getAverageAsk());
-        assertEquals(BigDecimal.valueOf(1.05), saved.getAverageBid());
+        assertEquals(TIME, saved.getUpdateTime());
+        assertEquals(FixedPoint.parse("1.1"), saved.getHighBid());
+        assertEquals(FixedPoint.parse("1.0"), saved.getLowBid());
+        assertEquals(FixedPoint.parse("1.2"), saved.getHighAsk());
+        assertEquals(FixedPoint.parse("0.9"), saved.getLowAsk());
+        assertEquals(FixedPoint.parse("1.15"), saved.getAverageAsk());
+        assertEquals(FixedPoint.parse("1.05"), saved.getAverageBid());
     }
 
     @Test
@@ -151,8 +172,10 @@ class CurrencyServiceTest {
         CurrencyExchangeRate result = currencyService.updateExchangeRate("EUR", TIME, rate);
         assertSame(saved, result);
         verify(currencyRepos).save(entity);
-        assertEquals(BigDecimal.valueOf(2.1), entity.getHighBid());
-        assertEquals(BigDecimal.valueOf(2.0), entity.getLowBid());
+        verify(latestRateIndex).offer(saved);
+        assertEquals(FixedPoint.parse("2.1"), entity.getHighBid());
+        assertEquals(FixedPoint.parse("2.0"), entity.getLowBid());
+        verify(rollupService).refresh("EUR", List.of(TIME));
     }
 
     @Test
@@ -171,13 +194,513 @@ class CurrencyServiceTest {
     void deleteExchangeRate_callsRepo() {
         currencyService.deleteExchangeRate("EUR");
         verify(currencyRepos).deleteByBaseCurrency("EUR");
+        verify(rollupService).deleteCurrency("EUR");
+        verify(latestRateIndex).removedCurrency("EUR");
+        verify(columnarRateStore).removedCurrency("EUR");
     }
 
     @Test
-    void deleteExchangeRateAtTime_callsRepoWithParsedTime() {
+    void deleteExchangeRateAtTime_callsRepoWithTime() {
         currencyService.deleteExchangeRateAtTime("EUR", TIME);
         ArgumentCaptor<LocalDateTime> captor = ArgumentCaptor.forClass(LocalDateTime.class);
         verify(currencyRepos).deleteByBaseCurrencyAndUpdateTime(eq("EUR"), captor.capture());
-        assertEquals(LocalDateTime.parse(TIME, FMT), captor.getValue());
+        assertEquals(TIME, captor.getValue());
+        verify(rollupService).refresh("EUR", List.of(TIME));
+        verify(latestRateIndex).removed("EUR", TIME);
+        verify(columnarRateStore).removed("EUR", TIME);
+    }
+
+    @Test
+    void getExchangeRate_secondCall_servedFromCache() {
+        CurrencyExchangeRate entity = new CurrencyExchangeRate();
+        when(currencyRepos.findByCurrencyCode("EUR")).thenReturn(List.of(entity));
+        when(mapper.toDto(entity)).thenReturn(new CurrencyExchangeRateDto());
+
+        List<CurrencyExchangeRateDto> first = currencyService.getExchangeRate("EUR");
+        List<CurrencyExchangeRateDto> second = currencyService.getExchangeRate("EUR");
+
+        assertSame(first, second);
+        verify(currencyRepos, times(1)).findByCurrencyCode("EUR");
+        assertEquals(1, currencyService.getCacheStats().getRateSeries().getHitCount());
+    }
+
+    @Test
+    void addExchangeRate_invalidatesCachedSeries() {
+        CurrencyExchangeRate entity = new CurrencyExchangeRate();
+        when(currencyRepos.findByCurrencyCode("EUR")).thenReturn(List.of(entity));
+        when(mapper.toDto(any())).thenReturn(null);
+        when(mapper.toDto(entity)).thenReturn(new CurrencyExchangeRateDto());
+        currencyService.getExchangeRate("EUR");
+
+        currencyService.addExchangeRate("EUR", TIME, new RateDto());
+        currencyService.getExchangeRate("EUR");
+
+        verify(currencyRepos, times(2)).findByCurrencyCode("EUR");
+    }
+
+    @Test
+    void getExchangeRateAtTime_cachedUntilUpdated() {
+        CurrencyExchangeRate entity = new CurrencyExchangeRate();
+        when(currencyRepos.findByCurrencyCodeAndUpdateTime(eq("EUR"), any(LocalDateTime.class))).thenReturn(entity);
+        when(mapper.toDto(entity)).thenReturn(new CurrencyExchangeRateDto());
+
+        currencyService.getExchangeRateAtTime("EUR", TIME);
+        currencyService.getExchangeRateAtTime("EUR", TIME);
+        verify(currencyRepos, times(1)).findByCurrencyCodeAndUpdateTime(eq("EUR"), any(LocalDateTime.class));
+
+        currencyService.updateExchangeRate("EUR", TIME, new RateDto());
+        currencyService.getExchangeRateAtTime("EUR", TIME);
+        verify(currencyRepos, times(3)).findByCurrencyCodeAndUpdateTime(eq("EUR"), any(LocalDateTime.class));
+    }
+
+    @Test
+    void addExchangeRates_skipsExistingAndRepeatedRows() {
+        LocalDateTime t1 = TIME;
+        LocalDateTime t2 = t1.plusMinutes(1);
+        CurrencyExchangeRate existing = new CurrencyExchangeRate();
+        existing.setBaseCurrency("EUR");
+        existing.setUpdateTime(t1);
+        when(currencyRepos.findByCurrencyCodesAndUpdateTimes(anyCollection(), anyCollection())).thenReturn(List.of(existing));
+
+        RateDto rate = new RateDto();
+        int inserted = currencyService.addExchangeRates(List.of(
+                CurrencyService.getCurrencyExchangeRate("EUR", t1, rate),
+                CurrencyService.getCurrencyExchangeRate("EUR", t2, rate),
+                CurrencyService.getCurrencyExchangeRate("EUR", t2, rate),
+                CurrencyService.getCurrencyExchangeRate("VND", t1, rate)));
+
+        assertEquals(2, inserted);
+        ArgumentCaptor<List<CurrencyExchangeRate>> captor = ArgumentCaptor.captor();
+        verify(currencyRepos).saveAll(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertEquals(t2, captor.getValue().get(0).getUpdateTime());
+        assertEquals("VND", captor.getValue().get(1).getBaseCurrency());
+        verify(rollupService).addRates(captor.getValue());
+        verify(latestRateIndex).offerAll(captor.getValue());
+    }
+
+    @Test
+    void addExchangeRates_emptyList_doesNotQuery() {
+        assertEquals(0, currencyService.addExchangeRates(List.of()));
+        verifyNoInteractions(currencyRepos);
+    }
+
+    @Test
+    void upsertExchangeRates_insertsNewUpdatesChangedAndSkipsUnchanged() {
+        LocalDateTime t1 = TIME;
+        LocalDateTime t2 = t1.plusMinutes(1);
+        LocalDateTime t3 = t1.plusMinutes(2);
+        RateDto oldRate = RateDto.builder().averageBid(new BigDecimal("1.10")).build();
+        CurrencyExchangeRate storedSame = CurrencyService.getCurrencyExchangeRate("EUR", t1, oldRate);
+        CurrencyExchangeRate storedChanged = CurrencyService.getCurrencyExchangeRate("EUR", t2, oldRate);
+        when(currencyRepos.findByCurrencyCodesAndUpdateTimes(anyCollection(), anyCollection()))
+                .thenReturn(List.of(storedSame, storedChanged));
+
+        RateDto newRate = RateDto.builder().averageBid(new BigDecimal("1.2")).build();
+        CurrencyService.UpsertResult result = currencyService.upsertExchangeRates(List.of(
+                CurrencyService.getCurrencyExchangeRate("EUR", t1, RateDto.builder().averageBid(new BigDecimal("1.1000")).build()),
+                CurrencyService.getCurrencyExchangeRate("EUR", t2, newRate),
+                CurrencyService.getCurrencyExchangeRate("EUR", t3, newRate)));
+
+        assertEquals(new CurrencyService.UpsertResult(1, 1, 1), result);
+        assertEquals(FixedPoint.parse("1.2"), storedChanged.getAverageBid());
+        assertEquals(FixedPoint.parse("1.10"), storedSame.getAverageBid());
+        ArgumentCaptor<List<CurrencyExchangeRate>> captor = ArgumentCaptor.captor();
+        verify(currencyRepos).saveAll(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals(t3, captor.getValue().get(0).getUpdateTime());
+        // the new row is merged into its buckets, only the changed row's buckets are recomputed
+        verify(rollupService).addRates(captor.getValue());
+        verify(rollupService).refresh("EUR", List.of(t2));
+        verify(latestRateIndex).offerAll(captor.getValue());
+        verify(latestRateIndex).offerAll(List.of(storedChanged));
+    }
+
+    private static CurrencyExchangeRate rowAt(LocalDateTime time, String bid, String ask) {
+        CurrencyExchangeRate row = new CurrencyExchangeRate();
+        row.setBaseCurrency("EUR");
+        row.setQuoteCurrency("USD");
+        row.setUpdateTime(time);
+        row.setAverageBid(bid == null ? null : FixedPoint.parse(bid));
+        row.setAverageAsk(ask == null ? null : FixedPoint.parse(ask));
+        return row;
+    }
+
+    // maps rows the way CurrencyMapper does for the fields used here
+    private void mapRows() {
+        when(mapper.toDto(any())).thenAnswer(inv -> {
+            CurrencyExchangeRate row = inv.getArgument(0);
+            return row == null ? null : CurrencyExchangeRateDto.builder()
+                    .baseCurrency(row.getBaseCurrency()).quoteCurrency(row.getQuoteCurrency())
+                    .closeTime(row.getUpdateTime().toString())
+                    .averageBid(row.getAverageBid() == null ? null : FixedPoint.format(row.getAverageBid()))
+                    .averageAsk(row.getAverageAsk() == null ? null : FixedPoint.format(row.getAverageAsk()))
+                    .build();
+        });
+    }
+
+    @Test
+    void getExchangeRateAsOf_coldCurrency_seeksTheIndexOnce() {
+        mapRows();
+        when(currencyRepos.findFloor("EUR", TIME, Limit.of(1))).thenReturn(List.of(rowAt(TIME.minusMinutes(1), "1", "2")));
+        when(currencyRepos.findCeiling("EUR", TIME, Limit.of(1))).thenReturn(List.of(rowAt(TIME.plusMinutes(1), "3", "4")));
+
+        assertEquals(TIME.minusMinutes(1).toString(),
+                currencyService.getExchangeRateAsOf("EUR", TIME, CurrencyService.AsOfMode.FLOOR).getCloseTime());
+        assertEquals(TIME.plusMinutes(1).toString(),
+                currencyService.getExchangeRateAsOf("EUR", TIME, CurrencyService.AsOfMode.CEILING).getCloseTime());
+        verify(currencyRepos, never()).findByCurrencyCodeAndUpdateTime(any(), any());
+    }
+
+    // holds the rows in a real columnar store, loaded through its own repository so query counts stay clean
+    private ColumnarRateStore holdInColumns(CurrencyExchangeRate... rows) {
+        CurrencyRepos loader = mock(CurrencyRepos.class);
+        when(loader.findPage(eq("EUR"), any(), any(), any())).thenReturn(List.of(rows));
+        ColumnarRateStore store = new ColumnarRateStore(loader, List.of("EUR"), false);
+        store.afterPropertiesSet();
+        when(columnarRateStore.acquire("EUR")).thenAnswer(inv -> store.acquire("EUR"));
+        return store;
+    }
+
+    private static CurrencyExchangeRate storedRowAt(LocalDateTime time, String bid) {
+        CurrencyExchangeRate row = rowAt(time, bid, bid);
+        row.setHighBid(FixedPoint.parse("0.0000000004"));
+        return row;
+    }
+
+    @Test
+    void columnarCurrency_readsMatchMapperWithoutQueries() {
+        CurrencyExchangeRate first = storedRowAt(TIME, "1.5");
+        CurrencyExchangeRate second = storedRowAt(TIME.plusMinutes(10), "26000.25");
+        holdInColumns(first, second);
+        CurrencyMapperImpl realMapper = new CurrencyMapperImpl();
+
+        assertEquals(realMapper.toDto(first), currencyService.getExchangeRateAtTime("EUR", TIME));
+        assertNull(currencyService.getExchangeRateAtTime("EUR", TIME.plusMinutes(1)));
+        assertEquals(List.of(realMapper.toDto(first), realMapper.toDto(second)), currencyService.getExchangeRate("EUR"));
+        List<CurrencyExchangeRateDto> streamed = new ArrayList<>();
+        currencyService.forEachExchangeRate("EUR", streamed::add);
+        assertEquals(2, streamed.size());
+        verifyNoInteractions(currencyRepos, mapper);
+    }
+
+    @Test
+    void fxdsRow_printsLikeStoredRow() {
+        CurrencyExchangeRate ingested = CurrencyService.getCurrencyExchangeRate(CurrencyExchangeRateDto.builder()
+                .baseCurrency("EUR").closeTime("2025-01-02T03:04:05Z")
+                .averageBid("1.01").averageAsk("1.02").highBid("1.03").highAsk("1.04").lowBid("1").lowAsk("0.99")
+                .build());
+        CurrencyExchangeRate stored = new CurrencyExchangeRate();
+        stored.setAverageBid(FixedPoint.valueOf(new BigDecimal("1.0100000000")));
+
+        CurrencyMapperImpl realMapper = new CurrencyMapperImpl();
+        assertEquals("1.0100000000", realMapper.toDto(ingested).getAverageBid());
+        assertEquals(realMapper.toDto(stored).getAverageBid(), realMapper.toDto(ingested).getAverageBid());
+        assertEquals("1.0000000000", realMapper.toDto(ingested).getLowBid());
+    }
+
+    @Test
+    void columnarCurrency_dtoListBuiltOncePerSnapshot() {
+        ColumnarRateStore store = holdInColumns(storedRowAt(TIME, "1"));
+
+        List<CurrencyExchangeRateDto> first = currencyService.getExchangeRate("EUR");
+        assertSame(first, currencyService.getExchangeRate("EUR"));
+
+        store.offerAll(List.of(storedRowAt(TIME.plusMinutes(10), "2")));
+        List<CurrencyExchangeRateDto> next = currencyService.getExchangeRate("EUR");
+        assertEquals(2, next.size());
+        assertSame(next, currencyService.getExchangeRate("EUR"));
+        assertEquals(1, first.size());
+    }
+
+    @Test
+    void columnarCurrency_asOfByBinarySearch() {
+        holdInColumns(storedRowAt(TIME, "1"), storedRowAt(TIME.plusMinutes(10), "2"));
+
+        assertEquals("1.0000000000", currencyService.getExchangeRateAsOf("EUR", TIME.plusMinutes(5), CurrencyService.AsOfMode.FLOOR).getAverageBid());
+        assertEquals("2.0000000000", currencyService.getExchangeRateAsOf("EUR", TIME.plusNanos(1), CurrencyService.AsOfMode.CEILING).getAverageBid());
+        assertEquals("1.5000000000", currencyService.getExchangeRateAsOf("EUR", TIME.plusMinutes(5), CurrencyService.AsOfMode.INTERPOLATE).getAverageBid());
+        assertEquals("1.0000000000", currencyService.getExchangeRateAsOf("EUR", TIME, CurrencyService.AsOfMode.INTERPOLATE).getAverageBid());
+        assertNull(currencyService.getExchangeRateAsOf("EUR", TIME.minusNanos(1), CurrencyService.AsOfMode.FLOOR));
+        assertNull(currencyService.getExchangeRateAsOf("EUR", TIME.plusMinutes(11), CurrencyService.AsOfMode.CEILING));
+
+        List<CurrencyExchangeRateDto> batch = currencyService.getExchangeRatesAsOf(List.of(
+                new CurrencyService.AsOfKey("EUR", TIME.plusMinutes(11)),
+                new CurrencyService.AsOfKey("EUR", TIME.minusMinutes(1))), CurrencyService.AsOfMode.FLOOR);
+        assertEquals("2.0000000000", batch.get(0).getAverageBid());
+        assertNull(batch.get(1));
+        verifyNoInteractions(currencyRepos);
+    }
+
+    @Test
+    void columnarCurrency_pagesWithCursor() {
+        holdInColumns(storedRowAt(TIME, "1"), storedRowAt(TIME.plusMinutes(1), "2"),
+                storedRowAt(TIME.plusMinutes(2), "3"), storedRowAt(TIME.plusMinutes(3), "4"));
+
+        RatePageResponse first = currencyService.getExchangeRatePage("EUR", TIME.plusNanos(1), TIME.plusMinutes(3), 1, null);
+        assertEquals(List.of(TIME.plusMinutes(1).toString()),
+                first.getItems().stream().map(CurrencyExchangeRateDto::getCloseTime).toList());
+        RatePageResponse second = currencyService.getExchangeRatePage("EUR", null, TIME.plusMinutes(3), 1, first.getNextCursor());
+        assertEquals(List.of(TIME.plusMinutes(2).toString()),
+                second.getItems().stream().map(CurrencyExchangeRateDto::getCloseTime).toList());
+        assertNull(second.getNextCursor());
+        verifyNoInteractions(currencyRepos);
+    }
+
+    @Test
+    void writes_reachColumnarStore() {
+        CurrencyExchangeRate rate = rowAt(TIME, "1", "2");
+
+        currencyService.addExchangeRates(List.of(rate));
+
+        verify(columnarRateStore).offerAll(List.of(rate));
+    }
+
+    @Test
+    void getExchangeRateAsOf_interpolate_blendsNeighboursByTime() {
+        mapRows();
+        when(currencyRepos.findFloor("EUR", TIME, Limit.of(1))).thenReturn(List.of(rowAt(TIME.minusMinutes(1), "1.0", "2")));
+        when(currencyRepos.findCeiling("EUR", TIME, Limit.of(1))).thenReturn(List.of(rowAt(TIME.plusMinutes(3), "2.0", null)));
+
+        CurrencyExchangeRateDto blended = currencyService.getExchangeRateAsOf("EUR", TIME, CurrencyService.AsOfMode.INTERPOLATE);
+
+        assertEquals(TIME.toString(), blended.getCloseTime());
+        assertEquals("1.2500000000", blended.getAverageBid());
+        assertNull(blended.getAverageAsk());
+        assertEquals("EUR", blended.getBaseCurrency());
+    }
+
+    @Test
+    void getExchangeRateAsOf_interpolate_exactOrOneSided() {
+        mapRows();
+        when(currencyRepos.findFloor(eq("EUR"), any(), eq(Limit.of(1)))).thenReturn(List.of(rowAt(TIME, "1", "2")));
+
+        assertEquals("1.0000000000", currencyService.getExchangeRateAsOf("EUR", TIME, CurrencyService.AsOfMode.INTERPOLATE).getAverageBid());
+        verify(currencyRepos, never()).findCeiling(any(), any(), any());
+
+        when(currencyRepos.findCeiling("EUR", TIME.plusDays(1), Limit.of(1))).thenReturn(List.of());
+        assertNull(currencyService.getExchangeRateAsOf("EUR", TIME.plusDays(1), CurrencyService.AsOfMode.INTERPOLATE));
+    }
+
+    @Test
+    void getExchangeRatesAsOf_oneRangeScanPerCurrency_resultsInInputOrder() {
+        mapRows();
+        // EUR rows at 0, 10 and 20 minutes past TIME
+        when(currencyRepos.findFloor("EUR", TIME.plusMinutes(5), Limit.of(1))).thenReturn(List.of(rowAt(TIME, "1", "1")));
+        when(currencyRepos.findCeiling("EUR", TIME.plusMinutes(25), Limit.of(1))).thenReturn(List.of());
+        when(currencyRepos.streamRange("EUR", TIME, TIME.plusMinutes(25))).thenReturn(Stream.of(
+                rowAt(TIME, "1", "1"), rowAt(TIME.plusMinutes(10), "2", "2"), rowAt(TIME.plusMinutes(20), "3", "3")));
+        when(currencyRepos.findFloor("VND", TIME, Limit.of(1))).thenReturn(List.of());
+        when(currencyRepos.findCeiling("VND", TIME, Limit.of(1))).thenReturn(List.of());
+        when(currencyRepos.streamRange("VND", TIME, TIME)).thenReturn(Stream.empty());
+        List<CurrencyService.AsOfKey> keys = List.of(
+                new CurrencyService.AsOfKey("EUR", TIME.plusMinutes(25)),
+                new CurrencyService.AsOfKey("VND", TIME),
+                new CurrencyService.AsOfKey("EUR", TIME.plusMinutes(10)),
+                new CurrencyService.AsOfKey("EUR", TIME.plusMinutes(5)));
+
+        List<CurrencyExchangeRateDto> rates = currencyService.getExchangeRatesAsOf(keys, CurrencyService.AsOfMode.INTERPOLATE);
+
+        assertEquals(4, rates.size());
+        assertNull(rates.get(0));
+        assertNull(rates.get(1));
+        assertEquals("2.0000000000", rates.get(2).getAverageBid());
+        assertEquals("1.5000000000", rates.get(3).getAverageBid());
+        verify(currencyRepos, times(2)).streamRange(any(), any(), any());
+        verify(currencyRepos, never()).findByCurrencyCodeAndUpdateTime(any(), any());
+        // rows passed by the scan are detached, only the two rows a lookup returns or blends are mapped
+        verify(entityManager, times(2)).detach(any());
+        verify(mapper, times(2)).toDto(any());
+    }
+
+    @Test
+    void getExchangeRatesAsOf_floorAndCeilingMatchSingleLookups() {
+        mapRows();
+        List<CurrencyExchangeRate> rows = List.of(rowAt(TIME, "1", "1"), rowAt(TIME.plusMinutes(10), "2", "2"));
+        when(currencyRepos.findFloor("EUR", TIME.minusMinutes(1), Limit.of(1))).thenReturn(List.of());
+        when(currencyRepos.streamRange("EUR", TIME.minusMinutes(1), TIME.plusMinutes(11))).thenAnswer(inv -> rows.stream());
+        when(currencyRepos.findCeiling("EUR", TIME.plusMinutes(11), Limit.of(1))).thenReturn(List.of());
+        List<CurrencyService.AsOfKey> keys = List.of(
+                new CurrencyService.AsOfKey("EUR", TIME.minusMinutes(1)),
+                new CurrencyService.AsOfKey("EUR", TIME),
+                new CurrencyService.AsOfKey("EUR", TIME.plusMinutes(5)),
+                new CurrencyService.AsOfKey("EUR", TIME.plusMinutes(11)));
+
+        List<CurrencyExchangeRateDto> floor = currencyService.getExchangeRatesAsOf(keys, CurrencyService.AsOfMode.FLOOR);
+        List<CurrencyExchangeRateDto> ceiling = currencyService.getExchangeRatesAsOf(keys, CurrencyService.AsOfMode.CEILING);
+
+        assertEquals(Arrays.asList(null, "1.0000000000", "1.0000000000", "2.0000000000"),
+                floor.stream().map(r -> r == null ? null : r.getAverageBid()).toList());
+        assertEquals(Arrays.asList("1.0000000000", "1.0000000000", "2.0000000000", null),
+                ceiling.stream().map(r -> r == null ? null : r.getAverageBid()).toList());
+    }
+
+    @Test
+    void getExchangeRatesAsOf_tooManyLookups_throws() {
+        currencyService.maxAsOfBatchSize = 1;
+        List<CurrencyService.AsOfKey> keys = List.of(new CurrencyService.AsOfKey("EUR", TIME),
+                new CurrencyService.AsOfKey("EUR", TIME));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> currencyService.getExchangeRatesAsOf(keys, CurrencyService.AsOfMode.FLOOR));
+        assertEquals("asOfBatchTooLarge", ex.getMessage());
+        verifyNoInteractions(currencyRepos);
+    }
+
+    @Test
+    void getLatestExchangeRate_servedFromIndexWithoutQuery() {
+        CurrencyExchangeRateDto latest = new CurrencyExchangeRateDto();
+        when(latestRateIndex.get("EUR")).thenReturn(latest);
+
+        assertSame(latest, currencyService.getLatestExchangeRate("EUR"));
+        assertThrows(UnsupportedOperationException.class, () -> currencyService.getLatestExchangeRate("XXX"));
+        verifyNoInteractions(currencyRepos);
+    }
+
+    @Test
+    void forEachExchangeRate_mapsEachRowAndDetachesIt() {
+        CurrencyExchangeRate first = new CurrencyExchangeRate();
+        first.setUpdateTime(TIME);
+        CurrencyExchangeRate second = new CurrencyExchangeRate();
+        second.setUpdateTime(first.getUpdateTime().plusMinutes(1));
+        CurrencyExchangeRateDto firstDto = new CurrencyExchangeRateDto();
+        firstDto.setCloseTime("first");
+        CurrencyExchangeRateDto secondDto = new CurrencyExchangeRateDto();
+        secondDto.setCloseTime("second");
+        when(currencyRepos.streamByCurrencyCode("EUR")).thenReturn(Stream.of(first, second));
+        when(mapper.toDto(first)).thenReturn(firstDto);
+        when(mapper.toDto(second)).thenReturn(secondDto);
+
+        List<CurrencyExchangeRateDto> seen = new ArrayList<>();
+        currencyService.forEachExchangeRate("EUR", seen::add);
+
+        assertEquals(List.of(firstDto, secondDto), seen);
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+    }
+
+    @Test
+    void getExchangeRate_withMaxPoints_downsamplesOneStreamingPass() {
+        List<CurrencyExchangeRate> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            CurrencyExchangeRate row = rateAt(TIME.plusMinutes(i));
+            row.setAverageBid((i % 10) * FixedPoint.ONE);
+            rows.add(row);
+        }
+        when(currencyRepos.countByCurrencyCode("EUR")).thenReturn(100L);
+        when(currencyRepos.streamByCurrencyCode("EUR")).thenReturn(rows.stream());
+        when(mapper.toDto(any())).thenAnswer(inv -> CurrencyExchangeRateDto.builder()
+                .closeTime(((CurrencyExchangeRate) inv.getArgument(0)).getUpdateTime().toString()).build());
+
+        List<CurrencyExchangeRateDto> result = currencyService.getExchangeRate("EUR", 10, Downsampler.Mode.LTTB);
+
+        assertEquals(10, result.size());
+        assertEquals(TIME.toString(), result.get(0).getCloseTime());
+        assertEquals(TIME.plusMinutes(99).toString(), result.get(9).getCloseTime());
+        verify(currencyRepos, never()).findByCurrencyCode(any());
+        verify(entityManager, times(100)).detach(any());
+    }
+
+    @Test
+    void getExchangeRate_withMaxPoints_heldCurrencyDownsampledFromColumnsWithoutQueries() {
+        CurrencyExchangeRate[] rows = new CurrencyExchangeRate[100];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = storedRowAt(TIME.plusMinutes(i), String.valueOf(i % 10));
+        }
+        holdInColumns(rows);
+
+        List<CurrencyExchangeRateDto> result = currencyService.getExchangeRate("EUR", 10, Downsampler.Mode.LTTB);
+        List<CurrencyExchangeRateDto> streamed = new ArrayList<>();
+        currencyService.forEachExchangeRate("EUR", 10, Downsampler.Mode.LTTB, streamed::add);
+
+        assertEquals(10, result.size());
+        assertEquals(new CurrencyMapperImpl().toDto(rows[0]), result.get(0));
+        assertEquals(new CurrencyMapperImpl().toDto(rows[99]), result.get(9));
+        assertEquals(result, streamed);
+        verifyNoInteractions(currencyRepos, mapper);
+    }
+
+    @Test
+    void forEachExchangeRate_unknownCurrency_throwsLikeListVariants() {
+        when(currencyRepos.streamByCurrencyCode("XXX")).thenAnswer(inv -> Stream.empty());
+        List<CurrencyExchangeRateDto> seen = new ArrayList<>();
+
+        assertThrows(UnsupportedOperationException.class, () -> currencyService.forEachExchangeRate("XXX", seen::add));
+        assertThrows(UnsupportedOperationException.class,
+                () -> currencyService.forEachExchangeRate("XXX", 10, Downsampler.Mode.LTTB, seen::add));
+        assertTrue(seen.isEmpty());
+    }
+
+    @Test
+    void getExchangeRate_withMaxPointsAboveCount_returnsCachedFullSeries() {
+        CurrencyExchangeRate row = rateAt(TIME);
+        when(currencyRepos.countByCurrencyCode("EUR")).thenReturn(1L);
+        when(currencyRepos.findByCurrencyCode("EUR")).thenReturn(List.of(row));
+        when(mapper.toDto(row)).thenReturn(new CurrencyExchangeRateDto());
+
+        assertEquals(1, currencyService.getExchangeRate("EUR", 1000, Downsampler.Mode.MIN_MAX).size());
+        verify(currencyRepos, never()).streamByCurrencyCode(any());
+    }
+
+    @Test
+    void getExchangeRate_withMaxPointsUnknownCurrency_throws() {
+        when(currencyRepos.countByCurrencyCode("XXX")).thenReturn(0L);
+
+        assertThrows(UnsupportedOperationException.class,
+                () -> currencyService.getExchangeRate("XXX", 10, Downsampler.Mode.LTTB));
+    }
+
+    private static CurrencyExchangeRate rateAt(LocalDateTime time) {
+        CurrencyExchangeRate rate = new CurrencyExchangeRate();
+        rate.setBaseCurrency("EUR");
+        rate.setUpdateTime(time);
+        return rate;
+    }
+
+    @Test
+    void getExchangeRatePage_returnsCursorThatSeeksPastLastRow() {
+        LocalDateTime t0 = TIME;
+        LocalDateTime to = t0.plusDays(1);
+        when(mapper.toDto(any())).thenAnswer(inv -> new CurrencyExchangeRateDto());
+        when(currencyRepos.findPage("EUR", t0, to, Limit.of(3)))
+                .thenReturn(List.of(rateAt(t0), rateAt(t0.plusMinutes(1)), rateAt(t0.plusMinutes(2))));
+
+        RatePageResponse first = currencyService.getExchangeRatePage("EUR", t0, to, 2, null);
+
+        assertEquals(2, first.getItems().size());
+        assertNotNull(first.getNextCursor());
+
+        when(currencyRepos.findPageAfter("EUR", t0.plusMinutes(1), to, Limit.of(3)))
+                .thenReturn(List.of(rateAt(t0.plusMinutes(2))));
+        RatePageResponse second = currencyService.getExchangeRatePage("EUR", t0, to, 2, first.getNextCursor());
+
+        assertEquals(1, second.getItems().size());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void getExchangeRatePage_openWindowAndLimitClampedToMax() {
+        currencyService.maxPageSize = 10;
+        when(currencyRepos.findPage(eq("EUR"), any(), any(), any())).thenReturn(List.of());
+
+        RatePageResponse page = currencyService.getExchangeRatePage("EUR", null, null, 5000, null);
+
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+        verify(currencyRepos).findPage(eq("EUR"), notNull(), notNull(), eq(Limit.of(11)));
+    }
+
+    @Test
+    void getExchangeRatePage_rejectsCursorOfOtherCurrencyOrGarbage() {
+        LocalDateTime t0 = TIME;
+        when(mapper.toDto(any())).thenAnswer(inv -> new CurrencyExchangeRateDto());
+        when(currencyRepos.findPage(eq("EUR"), any(), any(), any())).thenReturn(List.of(rateAt(t0), rateAt(t0.plusMinutes(1))));
+        String eurCursor = currencyService.getExchangeRatePage("EUR", null, null, 1, null).getNextCursor();
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> currencyService.getExchangeRatePage("VND", null, null, 1, eurCursor));
+        assertEquals("invalidCursor", ex.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> currencyService.getExchangeRatePage("EUR", null, null, 1, "not a cursor!"));
     }
 }
@@ -1,22 +1,29 @@
 package com.example.currency_exchange.service;
 
 import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
-import com.example.currency_exchange.dto.RateDto;
+import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.entity.CurrencySyncCheckpoint;
+import com.example.currency_exchange.repo.CurrencySyncCheckpointRepos;
+import com.example.currency_exchange.util.FixedPoint;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
-import java.math.BigDecimal;
-import java.time.Instant;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -29,77 +36,169 @@ class CurrencySyncServiceTest {
     @Mock
     private CurrencyService currencyService;
 
+    @Mock
+    private CurrencySyncCheckpointRepos checkpointRepos;
+
+    @Mock
+    private FxdsRateService fxdsRateService;
+
     @InjectMocks
     private CurrencySyncService syncService;
 
-    @Test
-    void syncCurrencyByDay_callsAddExchangeRate_forEachDtoFromClient() {
-        // prepare DTOs for VND and EUR
-        CurrencyExchangeRateDto vndDto = CurrencyExchangeRateDto.builder()
-                .baseCurrency("VND")
+    @BeforeEach
+    void setUp() {
+        lenient().when(currencyService.upsertExchangeRates(anyList()))
+                .thenAnswer(inv -> new CurrencyService.UpsertResult(((List<?>) inv.getArgument(0)).size(), 0, 0));
+    }
+
+    private static CurrencyExchangeRateDto dto(String base, String closeTime, String averageBid) {
+        return CurrencyExchangeRateDto.builder()
+                .baseCurrency(base)
                 .quoteCurrency("USD")
-                .closeTime("2025-11-06T23:59:59Z")
-                .averageBid("1.01")
+                .closeTime(closeTime)
+                .averageBid(averageBid)
                 .averageAsk("1.02")
                 .highBid("1.05")
                 .highAsk("1.06")
                 .lowBid("0.99")
                 .lowAsk("0.98")
                 .build();
+    }
 
-        CurrencyExchangeRateDto eurDto = CurrencyExchangeRateDto.builder()
-                .baseCurrency("EUR")
-                .quoteCurrency("USD")
-                .closeTime("2025-11-06T12:30:00Z")
-                .averageBid("0.90")
-                .averageAsk("0.91")
-                .highBid("0.95")
-                .highAsk("0.96")
-                .lowBid("0.85")
-                .lowAsk("0.84")
-                .build();
+    @Test
+    void syncCurrencyByDay_persistsEachCurrencyInOneBatch() {
+        CurrencyExchangeRateDto vndDto = dto("VND", "2025-11-06T23:59:59Z", "1.01");
+        CurrencyExchangeRateDto eurDto = dto("EUR", "2025-11-06T12:30:00Z", "0.90");
+        CurrencyExchangeRateDto eurDto2 = dto("EUR", "2025-11-06T12:31:00Z", "0.91");
 
         when(clientService.getCurrencyExchangeRates(eq("VND"), any(), any())).thenReturn(List.of(vndDto));
-        when(clientService.getCurrencyExchangeRates(eq("EUR"), any(), any())).thenReturn(List.of(eurDto));
+        when(clientService.getCurrencyExchangeRates(eq("EUR"), any(), any())).thenReturn(List.of(eurDto, eurDto2));
 
         syncService.syncCurrencyByDay();
 
-        ArgumentCaptor<String> baseCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> timeCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<RateDto> rateCaptor = ArgumentCaptor.forClass(RateDto.class);
-
-        verify(currencyService, times(2)).addExchangeRate(baseCaptor.capture(), timeCaptor.capture(), rateCaptor.capture());
-
-        List<String> bases = baseCaptor.getAllValues();
-        List<String> times = timeCaptor.getAllValues();
-        List<RateDto> rates = rateCaptor.getAllValues();
-
-        assertTrue(bases.contains("VND"));
-        assertTrue(bases.contains("EUR"));
-
-        DateTimeFormatter OUT_FMT = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss").withZone(ZoneId.of("UTC"));
-        String expectedVndTime = OUT_FMT.format(Instant.parse(vndDto.getCloseTime()));
-        String expectedEurTime = OUT_FMT.format(Instant.parse(eurDto.getCloseTime()));
-        assertTrue(times.contains(expectedVndTime));
-        assertTrue(times.contains(expectedEurTime));
-
-        RateDto vndRate = rates.stream().filter(r -> r.getAverageBid().equals(new BigDecimal("1.01"))).findFirst().orElse(null);
-        assertNotNull(vndRate);
-        assertEquals(new BigDecimal("1.01"), vndRate.getAverageBid());
-        assertEquals(new BigDecimal("1.02"), vndRate.getAverageAsk());
-        assertEquals(new BigDecimal("1.05"), vndRate.getHighBid());
-        assertEquals(new BigDecimal("1.06"), vndRate.getHighAsk());
-        assertEquals(new BigDecimal("0.99"), vndRate.getLowBid());
-        assertEquals(new BigDecimal("0.98"), vndRate.getLowAsk());
-
-        RateDto eurRate = rates.stream().filter(r -> r.getAverageBid().equals(new BigDecimal("0.90"))).findFirst().orElse(null);
-        assertNotNull(eurRate);
-        assertEquals(new BigDecimal("0.90"), eurRate.getAverageBid());
-        assertEquals(new BigDecimal("0.91"), eurRate.getAverageAsk());
-        assertEquals(new BigDecimal("0.95"), eurRate.getHighBid());
-        assertEquals(new BigDecimal("0.96"), eurRate.getHighAsk());
-        assertEquals(new BigDecimal("0.85"), eurRate.getLowBid());
-        assertEquals(new BigDecimal("0.84"), eurRate.getLowAsk());
+        ArgumentCaptor<List<CurrencyExchangeRate>> captor = ArgumentCaptor.captor();
+        verify(currencyService, times(2)).upsertExchangeRates(captor.capture());
+
+        List<CurrencyExchangeRate> vnd = captor.getAllValues().stream()
+                .filter(batch -> batch.get(0).getBaseCurrency().equals("VND")).findFirst().orElseThrow();
+        List<CurrencyExchangeRate> eur = captor.getAllValues().stream()
+                .filter(batch -> batch.get(0).getBaseCurrency().equals("EUR")).findFirst().orElseThrow();
+        assertEquals(1, vnd.size());
+        assertEquals(2, eur.size());
+
+        CurrencyExchangeRate vndRate = vnd.get(0);
+        assertEquals("USD", vndRate.getQuoteCurrency());
+        assertEquals(LocalDateTime.of(2025, 11, 6, 23, 59, 59), vndRate.getUpdateTime());
+        assertEquals(FixedPoint.parse("1.01"), vndRate.getAverageBid());
+        assertEquals(FixedPoint.parse("1.02"), vndRate.getAverageAsk());
+        assertEquals(FixedPoint.parse("1.05"), vndRate.getHighBid());
+        assertEquals(FixedPoint.parse("1.06"), vndRate.getHighAsk());
+        assertEquals(FixedPoint.parse("0.99"), vndRate.getLowBid());
+        assertEquals(FixedPoint.parse("0.98"), vndRate.getLowAsk());
+
+        assertEquals(LocalDateTime.of(2025, 11, 6, 12, 30), eur.get(0).getUpdateTime());
+        assertEquals(FixedPoint.parse("0.91"), eur.get(1).getAverageBid());
+    }
+
+    @Test
+    void syncCurrencyByDay_usesConfiguredCurrencies() {
+        ReflectionTestUtils.setField(syncService, "currencies", List.of("JPY", "GBP", "AUD"));
+        when(clientService.getCurrencyExchangeRates(anyString(), any(), any())).thenReturn(List.of());
+
+        syncService.syncCurrencyByDay();
+
+        verify(clientService).getCurrencyExchangeRates(eq("JPY"), any(), any());
+        verify(clientService).getCurrencyExchangeRates(eq("GBP"), any(), any());
+        verify(clientService).getCurrencyExchangeRates(eq("AUD"), any(), any());
+        verify(clientService, never()).getCurrencyExchangeRates(eq("VND"), any(), any());
+        verify(currencyService, times(3)).upsertExchangeRates(anyList());
+    }
+
+    @Test
+    void syncCurrencyByDay_failingCurrencyDoesNotStopOthers() {
+        when(clientService.getCurrencyExchangeRates(eq("VND"), any(), any())).thenThrow(new IllegalStateException("upstream down"));
+        when(clientService.getCurrencyExchangeRates(eq("EUR"), any(), any()))
+                .thenReturn(List.of(dto("EUR", "2025-11-06T12:30:00Z", "0.90")));
+
+        syncService.syncCurrencyByDay();
+
+        ArgumentCaptor<List<CurrencyExchangeRate>> captor = ArgumentCaptor.captor();
+        verify(currencyService, times(1)).upsertExchangeRates(captor.capture());
+        assertEquals("EUR", captor.getValue().get(0).getBaseCurrency());
     }
-}
 
+    @Test
+    void syncCurrencyByDay_respectsPerHostLimit() {
+        ReflectionTestUtils.setField(syncService, "currencies", List.of("A", "B", "C", "D", "E", "F"));
+        ReflectionTestUtils.setField(syncService, "parallelism", 6);
+        ReflectionTestUtils.setField(syncService, "maxRequestsPerHost", 2);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(clientService.getCurrencyExchangeRates(anyString(), any(), any())).thenAnswer(inv -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            inFlight.decrementAndGet();
+            return List.of();
+        });
+
+        syncService.syncCurrencyByDay();
+
+        assertTrue(maxInFlight.get() <= 2, "at most 2 concurrent upstream calls, saw " + maxInFlight.get());
+        verify(clientService, times(6)).getCurrencyExchangeRates(anyString(), any(), any());
+    }
+
+    @Test
+    void syncCurrencyByDay_withoutCheckpoint_fetchesYesterdayToTodayAndSavesMark() {
+        ReflectionTestUtils.setField(syncService, "currencies", List.of("EUR"));
+        LocalDate today = LocalDate.now();
+        when(clientService.getCurrencyExchangeRates(eq("EUR"), any(), any())).thenReturn(List.of(
+                dto("EUR", "2025-11-06T12:30:00Z", "0.90"), dto("EUR", "2025-11-06T12:31:00Z", "0.91")));
+
+        syncService.syncCurrencyByDay();
+
+        verify(clientService).getCurrencyExchangeRates("EUR", today.minusDays(1), today);
+        ArgumentCaptor<CurrencySyncCheckpoint> captor = ArgumentCaptor.forClass(CurrencySyncCheckpoint.class);
+        verify(checkpointRepos).save(captor.capture());
+        assertEquals("EUR", captor.getValue().getBaseCurrency());
+        assertEquals("USD", captor.getValue().getQuoteCurrency());
+        assertEquals(LocalDateTime.of(2025, 11, 6, 12, 31), captor.getValue().getLastUpdateTime());
+    }
+
+    @Test
+    void syncCurrencyByDay_afterDowntime_catchesUpFromMarkInWindows() {
+        ReflectionTestUtils.setField(syncService, "currencies", List.of("EUR"));
+        ReflectionTestUtils.setField(syncService, "maxDaysPerRequest", 5);
+        LocalDate today = LocalDate.now();
+        LocalDateTime mark = today.minusDays(8).atTime(10, 0);
+        when(checkpointRepos.findById(new CurrencySyncCheckpoint.Key("EUR", "USD")))
+                .thenReturn(Optional.of(new CurrencySyncCheckpoint("EUR", "USD", mark)));
+        when(clientService.getCurrencyExchangeRates(eq("EUR"), any(), any())).thenReturn(List.of());
+
+        syncService.syncCurrencyByDay();
+
+        verify(clientService).getCurrencyExchangeRates("EUR", today.minusDays(8), today.minusDays(3));
+        verify(clientService).getCurrencyExchangeRates("EUR", today.minusDays(3), today);
+        verify(checkpointRepos, never()).save(any());
+        verify(fxdsRateService).markCovered("EUR", today.minusDays(8), today.minusDays(3));
+        verify(fxdsRateService).markCovered("EUR", today.minusDays(3), today);
+    }
+
+    @Test
+    void syncCurrencyByDay_dropsRowsBeforeMark_andKeepsRowsFromMarkOn() {
+        ReflectionTestUtils.setField(syncService, "currencies", List.of("EUR"));
+        LocalDateTime mark = LocalDateTime.of(2025, 11, 6, 12, 30);
+        when(checkpointRepos.findById(any())).thenReturn(Optional.of(new CurrencySyncCheckpoint("EUR", "USD", mark)));
+        when(clientService.getCurrencyExchangeRates(eq("EUR"), any(), any())).thenReturn(List.of(
+                dto("EUR", "2025-11-06T12:29:00Z", "0.89"),
+                dto("EUR", "2025-11-06T12:30:00Z", "0.90"),
+                dto("EUR", "2025-11-06T12:31:00Z", "0.91")));
+
+        syncService.syncCurrencyByDay();
+
+        ArgumentCaptor<List<CurrencyExchangeRate>> captor = ArgumentCaptor.captor();
+        verify(currencyService, atLeastOnce()).upsertExchangeRates(captor.capture());
+        List<CurrencyExchangeRate> first = captor.getAllValues().get(0);
+        assertEquals(2, first.size());
+        assertEquals(mark, first.get(0).getUpdateTime());
+    }
+}
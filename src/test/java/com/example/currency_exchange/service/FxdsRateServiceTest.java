@@ -0,0 +1,200 @@
+package com.example.currency_exchange.service;
+
+import com.example.currency_exchange.dto.CurrencyExchangeRateDto;
+import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.mapper.CurrencyMapper;
+import com.example.currency_exchange.mapper.CurrencyMapperImpl;
+import com.example.currency_exchange.repo.CurrencyRateCoverageRepos;
+import com.example.currency_exchange.repo.CurrencyRepos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FxdsRateServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 11, 20);
+    private static final LocalDate D1 = LocalDate.of(2025, 11, 10);
+
+    @Mock
+    private CurrencyClientService clientService;
+
+    @Mock
+    private CurrencyService currencyService;
+
+    @Mock
+    private CurrencyRepos currencyRepos;
+
+    @Mock
+    private CurrencyRateCoverageRepos coverageRepos;
+
+    @Mock
+    private CurrencyMapper mapper;
+
+    @InjectMocks
+    private FxdsRateService fxdsRateService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fxdsRateService, "executor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(fxdsRateService, "clock",
+                Clock.fixed(TODAY.atTime(12, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        lenient().when(mapper.toDto(any())).thenAnswer(inv -> {
+            CurrencyExchangeRateDto dto = new CurrencyExchangeRateDto();
+            dto.setCloseTime(((CurrencyExchangeRate) inv.getArgument(0)).getUpdateTime().toString());
+            return dto;
+        });
+    }
+
+    private static CurrencyExchangeRate row(LocalDateTime time) {
+        CurrencyExchangeRate rate = new CurrencyExchangeRate();
+        rate.setBaseCurrency("EUR");
+        rate.setUpdateTime(time);
+        return rate;
+    }
+
+    private static CurrencyExchangeRateDto upstream(String closeTime) {
+        return CurrencyExchangeRateDto.builder().baseCurrency("EUR").quoteCurrency("USD").closeTime(closeTime)
+                .averageBid("1.08").averageAsk("1.09").highBid("1.1").highAsk("1.11").lowBid("1.07").lowAsk("1.075")
+                .build();
+    }
+
+    @Test
+    void getExchangeRates_fullyCovered_servesFromDatabaseWithoutUpstream() {
+        when(coverageRepos.findCoveredDays("EUR", "USD", D1, D1.plusDays(2))).thenReturn(List.of(D1, D1.plusDays(1)));
+        when(currencyRepos.findPage("EUR", D1.atStartOfDay(), D1.plusDays(2).atStartOfDay(), Limit.unlimited()))
+                .thenReturn(List.of(row(D1.atTime(10, 0)), row(D1.plusDays(1).atTime(10, 0))));
+
+        List<CurrencyExchangeRateDto> result = fxdsRateService.getExchangeRates("EUR", D1, D1.plusDays(2)).join();
+
+        assertEquals(2, result.size());
+        verifyNoInteractions(clientService, currencyService);
+    }
+
+    @Test
+    void getExchangeRates_localHit_printedLikeUpstreamResponse() {
+        ReflectionTestUtils.setField(fxdsRateService, "mapper", new CurrencyMapperImpl());
+        List<CurrencyExchangeRateDto> fetched = List.of(upstream("2025-11-10T00:00:00Z"), upstream("2025-11-10T23:59:59Z"));
+        when(coverageRepos.findCoveredDays("EUR", "USD", D1, D1.plusDays(1))).thenReturn(List.of(D1));
+        when(currencyRepos.findPage("EUR", D1.atStartOfDay(), D1.plusDays(1).atStartOfDay(), Limit.unlimited()))
+                .thenReturn(fetched.stream().map(CurrencyService::getCurrencyExchangeRate).toList());
+
+        List<CurrencyExchangeRateDto> local = fxdsRateService.getExchangeRates("EUR", D1, D1.plusDays(1)).join();
+
+        assertEquals(fetched.size(), local.size());
+        for (int i = 0; i < fetched.size(); i++) {
+            CurrencyExchangeRateDto upstream = fetched.get(i);
+            CurrencyExchangeRateDto stored = local.get(i);
+            assertEquals(upstream.getCloseTime(), stored.getCloseTime());
+            assertEquals(upstream.getBaseCurrency(), stored.getBaseCurrency());
+            assertEquals(upstream.getQuoteCurrency(), stored.getQuoteCurrency());
+            assertEquals(0, new BigDecimal(upstream.getAverageBid()).compareTo(new BigDecimal(stored.getAverageBid())));
+            assertEquals(0, new BigDecimal(upstream.getLowAsk()).compareTo(new BigDecimal(stored.getLowAsk())));
+        }
+        verifyNoInteractions(clientService);
+    }
+
+    @Test
+    void getExchangeRates_fetchesOnlyMissingRanges_storesAndMarksThem() {
+        // D1 and D1+2 covered, D1+1 and D1+3..D1+4 missing
+        when(coverageRepos.findCoveredDays("EUR", "USD", D1, D1.plusDays(5))).thenReturn(List.of(D1, D1.plusDays(2)));
+        when(clientService.getCurrencyExchangeRatesAsync(eq("EUR"), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(List.of(upstream("2025-11-11T12:00:00Z"))));
+        when(currencyRepos.findPage(eq("EUR"), any(), any(), any())).thenReturn(List.of(row(D1.atTime(1, 0))));
+
+        List<CurrencyExchangeRateDto> result = fxdsRateService.getExchangeRates("EUR", D1, D1.plusDays(5)).join();
+
+        verify(clientService).getCurrencyExchangeRatesAsync("EUR", D1.plusDays(1), D1.plusDays(2));
+        verify(clientService).getCurrencyExchangeRatesAsync("EUR", D1.plusDays(3), D1.plusDays(5));
+        verifyNoMoreInteractions(clientService);
+
+        ArgumentCaptor<List<CurrencyExchangeRate>> stored = ArgumentCaptor.captor();
+        verify(currencyService, times(2)).upsertExchangeRates(stored.capture());
+        assertEquals(LocalDateTime.of(2025, 11, 11, 12, 0), stored.getValue().get(0).getUpdateTime());
+
+        verify(coverageRepos).markCovered("EUR", "USD", D1.plusDays(1));
+        verify(coverageRepos).markCovered("EUR", "USD", D1.plusDays(3));
+        verify(coverageRepos).markCovered("EUR", "USD", D1.plusDays(4));
+        verify(coverageRepos, times(3)).markCovered(any(), any(), any());
+
+        // merged series comes from the database window
+        verify(currencyRepos).findPage("EUR", D1.atStartOfDay(), D1.plusDays(5).atStartOfDay(), Limit.unlimited());
+        assertEquals(1, result.size());
+    }
+
+    @Test
+    void getExchangeRates_todayIsFetchedButNeverMarkedCovered() {
+        when(coverageRepos.findCoveredDays(any(), any(), any(), any())).thenReturn(List.of());
+        when(clientService.getCurrencyExchangeRatesAsync("EUR", TODAY.minusDays(1), TODAY.plusDays(1)))
+                .thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        fxdsRateService.getExchangeRates("EUR", TODAY.minusDays(1), TODAY.plusDays(1)).join();
+
+        verify(coverageRepos).markCovered("EUR", "USD", TODAY.minusDays(1));
+        verify(coverageRepos, times(1)).markCovered(any(), any(), any());
+    }
+
+    @Test
+    void getExchangeRates_concurrentStoreConflict_stillServesFromDatabase() {
+        when(coverageRepos.findCoveredDays(any(), any(), any(), any())).thenReturn(List.of());
+        when(clientService.getCurrencyExchangeRatesAsync(eq("EUR"), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(List.of(upstream("2025-11-10T12:00:00Z"))));
+        when(currencyService.upsertExchangeRates(anyList())).thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(currencyRepos.findPage(eq("EUR"), any(), any(), any())).thenReturn(List.of(row(D1.atTime(12, 0))));
+
+        List<CurrencyExchangeRateDto> result = fxdsRateService.getExchangeRates("EUR", D1, D1.plusDays(1)).join();
+
+        assertEquals(1, result.size());
+        verify(coverageRepos, never()).markCovered(any(), any(), any());
+    }
+
+    @Test
+    void getExchangeRates_coverageMarkedConcurrently_stillServesFromDatabase() {
+        when(coverageRepos.findCoveredDays(any(), any(), any(), any())).thenReturn(List.of());
+        when(clientService.getCurrencyExchangeRatesAsync(eq("EUR"), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(List.of(upstream("2025-11-10T12:00:00Z"))));
+        doThrow(new DataIntegrityViolationException("duplicate")).when(coverageRepos).markCovered("EUR", "USD", D1);
+        when(currencyRepos.findPage(eq("EUR"), any(), any(), any())).thenReturn(List.of(row(D1.atTime(12, 0))));
+
+        List<CurrencyExchangeRateDto> result = fxdsRateService.getExchangeRates("EUR", D1, D1.plusDays(2)).join();
+
+        assertEquals(1, result.size());
+        // the conflict on one day does not stop the next from being marked
+        verify(coverageRepos).markCovered("EUR", "USD", D1.plusDays(1));
+    }
+
+    @Test
+    void getExchangeRates_upstreamFailure_propagates() {
+        when(coverageRepos.findCoveredDays(any(), any(), any(), any())).thenReturn(List.of());
+        when(clientService.getCurrencyExchangeRatesAsync(eq("EUR"), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("upstream down")));
+
+        CompletableFuture<List<CurrencyExchangeRateDto>> result = fxdsRateService.getExchangeRates("EUR", D1, D1.plusDays(1));
+
+        assertThrows(Exception.class, result::join);
+        verifyNoInteractions(currencyService);
+        verify(coverageRepos, never()).markCovered(any(), any(), any());
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.currency_exchange.service;
+
+import com.example.currency_exchange.dto.RateDto;
+import com.example.currency_exchange.dto.RateRollupDto;
+import com.example.currency_exchange.entity.CurrencyExchangeRate;
+import com.example.currency_exchange.entity.CurrencyRateRollup;
+import com.example.currency_exchange.entity.CurrencyRateRollupPending;
+import com.example.currency_exchange.entity.RollupResolution;
+import com.example.currency_exchange.repo.CurrencyRateRollupPendingRepos;
+import com.example.currency_exchange.repo.CurrencyRateRollupRepos;
+import com.example.currency_exchange.repo.CurrencyRepos;
+import com.example.currency_exchange.util.FixedPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the rollup maintenance against the Flyway schema. Buckets are refreshed after commit, so the writes here commit
+ * instead of running in a rolled back test transaction, and the tables are emptied after each test.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@Import(RollupService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RollupServiceTest {
+
+    // a Wednesday
+    private static final LocalDateTime T = LocalDateTime.of(2025, 11, 12, 10, 15);
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private CurrencyRepos currencyRepos;
+
+    @Autowired
+    private CurrencyRateRollupRepos rollupRepos;
+
+    @Autowired
+    private CurrencyRateRollupPendingRepos pendingRepos;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        pendingRepos.deleteAll();
+        rollupRepos.deleteAll();
+        currencyRepos.deleteAll();
+    }
+
+    private static CurrencyExchangeRate rate(LocalDateTime time, String average, String low, String high) {
+        return CurrencyService.getCurrencyExchangeRate("EUR", time, RateDto.builder()
+                .averageBid(new BigDecimal(average)).averageAsk(new BigDecimal(average).add(BigDecimal.ONE))
+                .lowBid(new BigDecimal(low)).lowAsk(new BigDecimal(low))
+                .highBid(new BigDecimal(high)).highAsk(new BigDecimal(high))
+                .build());
+    }
+
+    // the write path of CurrencyService: rates and their rollup refresh in one transaction
+    private void insert(CurrencyExchangeRate... rates) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<CurrencyExchangeRate> rows = List.of(rates);
+            currencyRepos.saveAll(rows);
+            rollupService.addRates(rows);
+        });
+    }
+
+    private CurrencyRateRollup rollup(RollupResolution resolution, LocalDateTime bucketStart) {
+        return rollupRepos.findById(new CurrencyRateRollup.Key("EUR", "USD", resolution, bucketStart)).orElse(null);
+    }
+
+    @Test
+    void addRates_mergesIntoHourDayAndMondayWeekBuckets() {
+        insert(rate(T.plusMinutes(10), "1.20", "1.10", "1.30"), rate(T, "1.00", "0.90", "1.05"));
+        insert(rate(T.plusMinutes(20), "1.60", "1.50", "1.70"), rate(T.plusHours(1), "2.00", "1.90", "2.10"));
+
+        CurrencyRateRollup hour = rollup(RollupResolution.HOUR, T.withMinute(0));
+        assertThat(hour.getRowCount()).isEqualTo(3);
+        assertThat(hour.getOpenTime()).isEqualTo(T);
+        assertThat(hour.getOpenBid()).isEqualTo(FixedPoint.parse("1.00"));
+        assertThat(hour.getCloseTime()).isEqualTo(T.plusMinutes(20));
+        assertThat(hour.getCloseBid()).isEqualTo(FixedPoint.parse("1.60"));
+        assertThat(hour.getLowBid()).isEqualTo(FixedPoint.parse("0.90"));
+        assertThat(hour.getHighBid()).isEqualTo(FixedPoint.parse("1.70"));
+        assertThat(hour.getSumAverageBid()).isEqualByComparingTo("3.80");
+
+        assertThat(rollup(RollupResolution.HOUR, T.withMinute(0).plusHours(1)).getRowCount()).isEqualTo(1);
+        assertThat(rollup(RollupResolution.DAY, T.toLocalDate().atStartOfDay()).getRowCount()).isEqualTo(4);
+        CurrencyRateRollup week = rollup(RollupResolution.WEEK, LocalDateTime.of(2025, 11, 10, 0, 0));
+        assertThat(week.getRowCount()).isEqualTo(4);
+        assertThat(week.getCloseBid()).isEqualTo(FixedPoint.parse("2.00"));
+    }
+
+    @Test
+    void addRates_bucketsRefreshedOnlyOnceWriteCommits() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            CurrencyExchangeRate row = rate(T, "1.00", "0.90", "1.05");
+            currencyRepos.save(row);
+            rollupService.addRates(List.of(row));
+            assertThat(rollup(RollupResolution.HOUR, T.withMinute(0))).isNull();
+        });
+
+        assertThat(rollup(RollupResolution.HOUR, T.withMinute(0)).getRowCount()).isEqualTo(1);
+    }
+
+    @Test
+    void addRates_writeRolledBack_bucketsUntouched() {
+        insert(rate(T, "1.00", "0.90", "1.05"));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            CurrencyExchangeRate row = rate(T.plusMinutes(10), "2.00", "1.90", "2.10");
+            currencyRepos.save(row);
+            rollupService.addRates(List.of(row));
+            status.setRollbackOnly();
+        });
+
+        CurrencyRateRollup hour = rollup(RollupResolution.HOUR, T.withMinute(0));
+        assertThat(hour.getRowCount()).isEqualTo(1);
+        assertThat(hour.getCloseBid()).isEqualTo(FixedPoint.parse("1.00"));
+    }
+
+    @Test
+    void addRates_concurrentWritersOfOneBucket_allRatesStoredAndCounted() {
+        int writers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            LocalDateTime time = T.withMinute(i);
+            writes.add(CompletableFuture.runAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                insert(rate(time, "1.00", "0.90", "1.05"));
+            }, pool));
+        }
+        start.countDown();
+        CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+        pool.shutdown();
+
+        assertThat(currencyRepos.count()).isEqualTo(writers);
+        CurrencyRateRollup hour = rollup(RollupResolution.HOUR, T.withMinute(0));
+        assertThat(hour.getRowCount()).isEqualTo(writers);
+        assertThat(hour.getCloseTime()).isEqualTo(T.withMinute(writers - 1));
+        assertThat(rollup(RollupResolution.WEEK, LocalDateTime.of(2025, 11, 10, 0, 0)).getRowCount()).isEqualTo(writers);
+    }
+
+    @Test
+    void refresh_afterUpdateAndDelete_matchesRecompute() {
+        insert(rate(T, "1.00", "0.90", "1.05"), rate(T.plusMinutes(10), "1.20", "0.50", "1.30"),
+                rate(T.plusMinutes(20), "1.60", "1.50", "1.70"));
+
+        // lowering the high of the bucket's extreme row cannot be merged, the bucket is recomputed
+        CurrencyExchangeRate last = currencyRepos.findByCurrencyCodeAndUpdateTime("EUR", T.plusMinutes(20));
+        last.setHighBid(FixedPoint.parse("1.40"));
+        currencyRepos.save(last);
+        currencyRepos.deleteByBaseCurrencyAndUpdateTime("EUR", T.plusMinutes(10));
+        rollupService.refresh("EUR", List.of(T.plusMinutes(20), T.plusMinutes(10)));
+
+        CurrencyRateRollup hour = rollup(RollupResolution.HOUR, T.withMinute(0));
+        assertThat(hour.getRowCount()).isEqualTo(2);
+        assertThat(hour.getLowBid()).isEqualTo(FixedPoint.parse("0.90"));
+        assertThat(hour.getHighBid()).isEqualTo(FixedPoint.parse("1.40"));
+        assertThat(hour.getSumAverageBid()).isEqualByComparingTo("2.60");
+        assertThat(hour.getCloseTime()).isEqualTo(T.plusMinutes(20));
+        assertThat(hour.getCloseBid()).isEqualTo(FixedPoint.parse("1.60"));
+    }
+
+    @Test
+    void refresh_lastRowOfBucketDeleted_dropsBucket() {
+        insert(rate(T, "1.00", "0.90", "1.05"), rate(T.plusDays(1), "1.10", "1.00", "1.20"));
+
+        currencyRepos.deleteByBaseCurrencyAndUpdateTime("EUR", T);
+        rollupService.refresh("EUR", List.of(T));
+
+        assertThat(rollup(RollupResolution.HOUR, T.withMinute(0))).isNull();
+        assertThat(rollup(RollupResolution.DAY, T.toLocalDate().atStartOfDay())).isNull();
+        assertThat(rollup(RollupResolution.WEEK, LocalDateTime.of(2025, 11, 10, 0, 0)).getRowCount()).isEqualTo(1);
+    }
+
+    @Test
+    void refresh_weekRebuiltFromDaysAcrossTheWeek() {
+        // Monday and the following Sunday of T's week
+        LocalDateTime monday = LocalDateTime.of(2025, 11, 10, 9, 0);
+        insert(rate(monday, "1.00", "0.80", "1.05"), rate(T, "2.00", "1.90", "2.50"),
+                rate(monday.plusDays(6).withHour(23), "3.00", "2.90", "3.10"));
+
+        CurrencyRateRollup week = rollup(RollupResolution.WEEK, monday.withHour(0));
+        assertThat(week.getRowCount()).isEqualTo(3);
+        assertThat(week.getOpenTime()).isEqualTo(monday);
+        assertThat(week.getOpenBid()).isEqualTo(FixedPoint.parse("1.00"));
+        assertThat(week.getCloseBid()).isEqualTo(FixedPoint.parse("3.00"));
+        assertThat(week.getLowBid()).isEqualTo(FixedPoint.parse("0.80"));
+        assertThat(week.getHighBid()).isEqualTo(FixedPoint.parse("3.10"));
+        assertThat(week.getSumAverageBid()).isEqualByComparingTo("6.00");
+        assertThat(rollup(RollupResolution.WEEK, monday.withHour(0).plusWeeks(1))).isNull();
+    }
+
+    @Test
+    void addRates_refreshedWrite_leavesNoPendingHours() {
+        insert(rate(T, "1.00", "0.90", "1.05"), rate(T.plusHours(2), "1.10", "1.00", "1.20"));
+
+        assertThat(pendingRepos.count()).isZero();
+    }
+
+    @Test
+    void reconcile_refreshesHoursWhoseRefreshNeverRan() {
+        insert(rate(T, "1.00", "0.90", "1.05"));
+        // a write whose after-commit refresh was lost: the rate and its pending hour are committed, the buckets are not
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            currencyRepos.save(rate(T.plusMinutes(10), "2.00", "1.90", "2.10"));
+            pendingRepos.markPending("EUR", T.withMinute(0), "lost-write", T);
+        });
+        assertThat(rollup(RollupResolution.HOUR, T.withMinute(0)).getRowCount()).isEqualTo(1);
+
+        assertThat(rollupService.reconcile(T)).isZero();
+        assertThat(rollupService.reconcile(T.plusSeconds(1))).isEqualTo(1);
+
+        CurrencyRateRollup hour = rollup(RollupResolution.HOUR, T.withMinute(0));
+        assertThat(hour.getRowCount()).isEqualTo(2);
+        assertThat(hour.getCloseBid()).isEqualTo(FixedPoint.parse("2.00"));
+        assertThat(rollup(RollupResolution.DAY, T.toLocalDate().atStartOfDay()).getRowCount()).isEqualTo(2);
+        assertThat(rollup(RollupResolution.WEEK, LocalDateTime.of(2025, 11, 10, 0, 0)).getRowCount()).isEqualTo(2);
+        assertThat(pendingRepos.count()).isZero();
+    }
+
+    @Test
+    void getRollups_returnsBucketsOverlappingWindowWithMeans() {
+        insert(rate(T, "1.00", "0.90", "1.05"), rate(T.plusMinutes(30), "2.00", "1.90", "2.10"),
+                rate(T.plusDays(1), "3.00", "2.90", "3.10"), rate(T.plusDays(2), "4.00", "3.90", "4.10"));
+
+        // from falls inside the first day, which is still returned
+        List<RateRollupDto> days = rollupService.getRollups("EUR", RollupResolution.DAY, T.plusHours(1),
+                T.toLocalDate().plusDays(2).atStartOfDay());
+
+        assertThat(days).extracting(RateRollupDto::getBucketStart)
+                .containsExactly("2025-11-12T00:00", "2025-11-13T00:00");
+        RateRollupDto first = days.get(0);
+        assertThat(first.getCount()).isEqualTo(2);
+        assertThat(new BigDecimal(first.getAverageBid())).isEqualByComparingTo("1.50");
+        assertThat(new BigDecimal(first.getAverageAsk())).isEqualByComparingTo("2.50");
+        assertThat(new BigDecimal(first.getOpenBid())).isEqualByComparingTo("1.00");
+        assertThat(new BigDecimal(first.getCloseBid())).isEqualByComparingTo("2.00");
+        assertThat(rollupService.getRollups("EUR", RollupResolution.WEEK, null, null)).hasSize(1);
+    }
+
+    @Test
+    void deleteCurrency_removesItsRollupsOnly() {
+        insert(rate(T, "1.00", "0.90", "1.05"));
+        CurrencyExchangeRate vnd = rate(T, "1.00", "0.90", "1.05");
+        vnd.setBaseCurrency("VND");
+        insert(vnd);
+
+        pendingRepos.markPending("EUR", T.withMinute(0), "eur-write", T);
+        pendingRepos.markPending("VND", T.withMinute(0), "vnd-write", T);
+
+        rollupService.deleteCurrency("EUR");
+
+        assertThat(rollupService.getRollups("EUR", RollupResolution.HOUR, null, null)).isEmpty();
+        assertThat(rollupService.getRollups("VND", RollupResolution.HOUR, null, null)).hasSize(1);
+        assertThat(pendingRepos.findAll()).extracting(CurrencyRateRollupPending::getBaseCurrency).containsExactly("VND");
+    }
+}
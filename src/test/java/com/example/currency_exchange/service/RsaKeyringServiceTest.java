@@ -0,0 +1,120 @@
+package com.example.currency_exchange.service;
+
+import com.example.currency_exchange.util.RSAUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.MessageSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RsaKeyringServiceTest {
+
+    private final MessageSource messageSource = mock(MessageSource.class);
+    private RsaKeyringService keyring;
+
+    private RsaKeyringService keyring(int poolSize, long ttlSeconds) {
+        when(messageSource.getMessage(anyString(), any(), any())).thenAnswer(inv -> inv.getArgument(0));
+        keyring = new RsaKeyringService(messageSource, 1024, poolSize, ttlSeconds, 100);
+        return keyring;
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (keyring != null) {
+            keyring.destroy();
+        }
+    }
+
+    private static void awaitAvailable(RsaKeyringService keyring, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (keyring.getAvailable() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, keyring.getAvailable());
+    }
+
+    @Test
+    void issue_thenDecryptByKeyId_roundTrips() {
+        RsaKeyringService keyring = keyring(2, 60);
+
+        RsaKeyringService.IssuedKey key = keyring.issue();
+        String cipher = RSAUtil.encrypt("EUR", RSAUtil.publicKeyFromBase64(key.publicKeyBase64()));
+
+        assertEquals("EUR", keyring.decrypt(key.keyId(), cipher));
+    }
+
+    @Test
+    void issue_servesFromPreGeneratedPool() throws InterruptedException {
+        RsaKeyringService keyring = keyring(3, 60);
+        awaitAvailable(keyring, 3);
+
+        keyring.issue();
+        keyring.issue();
+
+        assertEquals(0, keyring.getPoolMisses());
+    }
+
+    @Test
+    void keysIssuedToDifferentClients_doNotOverwriteEachOther() {
+        RsaKeyringService keyring = keyring(2, 60);
+        RsaKeyringService.IssuedKey first = keyring.issue();
+        RsaKeyringService.IssuedKey second = keyring.issue();
+        String firstCipher = RSAUtil.encrypt("VND", RSAUtil.publicKeyFromBase64(first.publicKeyBase64()));
+        String secondCipher = RSAUtil.encrypt("EUR", RSAUtil.publicKeyFromBase64(second.publicKeyBase64()));
+
+        assertNotEquals(first.keyId(), second.keyId());
+        assertEquals("VND", keyring.decrypt(first.keyId(), firstCipher));
+        assertEquals("EUR", keyring.decrypt(second.keyId(), secondCipher));
+        assertThrows(RuntimeException.class, () -> keyring.decrypt(second.keyId(), firstCipher));
+    }
+
+    @Test
+    void decrypt_unknownOrMissingKeyId_throws() {
+        RsaKeyringService keyring = keyring(1, 60);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> keyring.decrypt("nope", "x"));
+        assertEquals("rsaKeyNotFound", ex.getMessage());
+        assertEquals("rsaKeyIdRequired", assertThrows(IllegalArgumentException.class, () -> keyring.decrypt(null, "x")).getMessage());
+        assertEquals("rsaKeyIdRequired", assertThrows(IllegalArgumentException.class, () -> keyring.decrypt(" ", "x")).getMessage());
+    }
+
+    @Test
+    void decrypt_expiredKey_throws() {
+        RsaKeyringService keyring = keyring(1, 0);
+        RsaKeyringService.IssuedKey key = keyring.issue();
+        String cipher = RSAUtil.encrypt("EUR", RSAUtil.publicKeyFromBase64(key.publicKeyBase64()));
+
+        assertThrows(IllegalArgumentException.class, () -> keyring.decrypt(key.keyId(), cipher));
+    }
+
+    @Test
+    void issue_concurrently_givesDistinctIds() throws Exception {
+        RsaKeyringService keyring = keyring(4, 60);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<RsaKeyringService.IssuedKey>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(keyring::issue));
+            }
+            Set<String> ids = new HashSet<>();
+            for (Future<RsaKeyringService.IssuedKey> future : futures) {
+                ids.add(future.get().keyId());
+            }
+            assertEquals(8, ids.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
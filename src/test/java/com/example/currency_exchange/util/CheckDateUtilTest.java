@@ -50,6 +50,27 @@ class CheckDateUtilTest {
         assertTrue(CheckDateUtil.isValid("2024/02/29 12:34:56"));
     }
 
+    @Test
+    void parseOrNull_returnsValueForValidInput() {
+        assertEquals(LocalDateTime.of(2025, 12, 31, 23, 59, 59), CheckDateUtil.parseOrNull("2025/12/31 23:59:59"));
+        assertEquals(LocalDateTime.of(2000, 2, 29, 0, 0), CheckDateUtil.parseOrNull("2000/02/29 00:00:00"));
+    }
+
+    @Test
+    void parseOrNull_returnsNullInsteadOfThrowing() {
+        assertNull(CheckDateUtil.parseOrNull(null));
+        assertNull(CheckDateUtil.parseOrNull("2025/11/01 00:00:0")); // too short
+        assertNull(CheckDateUtil.parseOrNull("2025/11/01 00:00:000")); // too long
+        assertNull(CheckDateUtil.parseOrNull("2025/1a/01 00:00:00")); // not a digit
+        assertNull(CheckDateUtil.parseOrNull("+025/11/01 00:00:00")); // sign instead of digit
+        assertNull(CheckDateUtil.parseOrNull("2025/13/01 00:00:00")); // month 13
+        assertNull(CheckDateUtil.parseOrNull("2025/00/01 00:00:00")); // month 0
+        assertNull(CheckDateUtil.parseOrNull("2025/04/31 00:00:00")); // April has 30 days
+        assertNull(CheckDateUtil.parseOrNull("1900/02/29 00:00:00")); // century, not leap
+        assertNull(CheckDateUtil.parseOrNull("2025/11/01 12:60:00")); // minute 60
+        assertNull(CheckDateUtil.parseOrNull("2025/11/01 12:00:60")); // second 60
+    }
+
     @Test
     void parse_throwsForInvalid() {
         assertThrows(DateTimeParseException.class, () -> CheckDateUtil.parse("invalid-date"));
@@ -0,0 +1,172 @@
+package com.example.currency_exchange.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownsamplerTest {
+
+    private record Point(int x, double y) {
+    }
+
+    private static List<Point> series(int n) {
+        List<Point> points = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            points.add(new Point(i, Math.sin(i / 50.0)));
+        }
+        return points;
+    }
+
+    private static List<Point> run(Downsampler.Mode mode, long total, int maxPoints, List<Point> points) {
+        List<Point> kept = new ArrayList<>();
+        Downsampler<Point> downsampler = Downsampler.of(mode, total, maxPoints, Point::x, Point::y, kept::add);
+        points.forEach(downsampler);
+        downsampler.finish();
+        return kept;
+    }
+
+    private static void assertIncreasingX(List<Point> points) {
+        for (int i = 1; i < points.size(); i++) {
+            assertTrue(points.get(i - 1).x() < points.get(i).x(), "out of order at " + i);
+        }
+    }
+
+    @Test
+    void lttb_keepsExactlyMaxPointsIncludingFirstAndLast() {
+        List<Point> points = series(10_000);
+
+        List<Point> kept = run(Downsampler.Mode.LTTB, points.size(), 100, points);
+
+        assertEquals(100, kept.size());
+        assertEquals(points.get(0), kept.get(0));
+        assertEquals(points.get(9_999), kept.get(99));
+        assertIncreasingX(kept);
+    }
+
+    @Test
+    void lttb_keepsIsolatedSpike() {
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            points.add(new Point(i, i == 537 ? 100 : 1));
+        }
+
+        List<Point> kept = run(Downsampler.Mode.LTTB, points.size(), 20, points);
+
+        assertTrue(kept.contains(points.get(537)));
+    }
+
+    @Test
+    void lttb_prefersRealValuesOverNaN() {
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            points.add(new Point(i, i % 2 == 0 ? Double.NaN : i));
+        }
+
+        List<Point> kept = run(Downsampler.Mode.LTTB, points.size(), 10, points);
+
+        assertTrue(kept.subList(1, kept.size() - 1).stream().noneMatch(p -> Double.isNaN(p.y())));
+    }
+
+    @Test
+    void lttb_matchesScanOfWholeBuckets() {
+        Random random = new Random(42);
+        List<Point> points = new ArrayList<>();
+        double value = 1;
+        for (int i = 0; i < 20_000; i++) {
+            value += random.nextGaussian() * 0.01;
+            points.add(new Point(i, value));
+        }
+
+        assertEquals(referenceLttb(points, 150), run(Downsampler.Mode.LTTB, points.size(), 150, points));
+    }
+
+    @Test
+    void lttb_strictlyConvexRun_staysWithinLimitAndInOrder() {
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            points.add(new Point(i, (double) i * i));
+        }
+
+        List<Point> kept = run(Downsampler.Mode.LTTB, points.size(), 5, points);
+
+        assertEquals(5, kept.size());
+        assertIncreasingX(kept);
+    }
+
+    @Test
+    void minMax_keepsGlobalExtremesInOrderWithinLimit() {
+        List<Point> points = series(10_000);
+
+        List<Point> kept = run(Downsampler.Mode.MIN_MAX, points.size(), 50, points);
+
+        assertTrue(kept.size() <= 50);
+        assertIncreasingX(kept);
+        double min = points.stream().mapToDouble(Point::y).min().orElseThrow();
+        double max = points.stream().mapToDouble(Point::y).max().orElseThrow();
+        assertEquals(min, kept.stream().mapToDouble(Point::y).min().orElseThrow());
+        assertEquals(max, kept.stream().mapToDouble(Point::y).max().orElseThrow());
+    }
+
+    @Test
+    void moreOrFewerPointsThanAnnounced_stayWithinLimit() {
+        for (Downsampler.Mode mode : Downsampler.Mode.values()) {
+            assertTrue(run(mode, 1_000, 40, series(1_500)).size() <= 40, mode.name());
+            List<Point> fewer = run(mode, 1_000, 40, series(500));
+            assertTrue(fewer.size() <= 40, mode.name());
+            assertIncreasingX(fewer);
+        }
+    }
+
+    @Test
+    void seriesShorterThanLimit_keptWhole() {
+        List<Point> points = series(5);
+
+        assertEquals(points, run(Downsampler.Mode.LTTB, points.size(), 10, points));
+        assertEquals(points, run(Downsampler.Mode.LTTB, points.size(), 5, points));
+    }
+
+    @Test
+    void limitBelowThreePoints_rejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Downsampler.of(Downsampler.Mode.LTTB, 10, 2, Point::x, Point::y, p -> { }));
+    }
+
+    // textbook LTTB holding every bucket in full, bucketed like Downsampler
+    private static List<Point> referenceLttb(List<Point> points, int maxPoints) {
+        int buckets = maxPoints - 2;
+        double bucketSize = (double) (points.size() - 2) / buckets;
+        List<List<Point>> groups = new ArrayList<>();
+        groups.add(List.of(points.get(0)));
+        for (int b = 0; b < buckets; b++) {
+            groups.add(new ArrayList<>());
+        }
+        for (int i = 1; i < points.size() - 1; i++) {
+            groups.get(1 + Math.min(buckets - 1, (int) ((i - 1) / bucketSize))).add(points.get(i));
+        }
+        groups.add(List.of(points.get(points.size() - 1)));
+
+        List<Point> kept = new ArrayList<>();
+        kept.add(points.get(0));
+        for (int b = 1; b <= buckets; b++) {
+            Point a = kept.get(kept.size() - 1);
+            double cx = groups.get(b + 1).stream().mapToDouble(Point::x).average().orElseThrow();
+            double cy = groups.get(b + 1).stream().mapToDouble(Point::y).average().orElseThrow();
+            Point chosen = null;
+            double maxArea = -1;
+            for (Point p : groups.get(b)) {
+                double area = Math.abs((a.x() - cx) * (p.y() - a.y()) - (a.x() - p.x()) * (cy - a.y()));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = p;
+                }
+            }
+            kept.add(chosen);
+        }
+        kept.add(points.get(points.size() - 1));
+        return kept;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.currency_exchange.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointTest {
+
+    private static final String[] DECIMALS = {"0", "1", "-1", "1.08501", "0.5", ".5", "5.", "+2.25", "-0.0000001",
+            "0.0000000004", "0.00000012345", "26000.1234567890", "922337203.6854775807", "-922337203.6854775807",
+            "1.00000000005", "1.00000000004999", "-1.00000000005", "0.000000000049", "1.5E-3"};
+
+    @Test
+    void parse_matchesBigDecimalRoundedToColumnScale() {
+        for (String decimal : DECIMALS) {
+            BigDecimal expected = new BigDecimal(decimal).setScale(FixedPoint.SCALE, RoundingMode.HALF_UP);
+            assertEquals(expected.unscaledValue().longValueExact(), FixedPoint.parse(decimal), decimal);
+        }
+        assertEquals(FixedPoint.ONE, FixedPoint.parse("1"));
+    }
+
+    @Test
+    void parse_rejectsNonDecimalsAndOverflow() {
+        for (String bad : new String[]{"", "-", ".", "1.2.3", "abc", "1,5", " 1"}) {
+            assertThrows(NumberFormatException.class, () -> FixedPoint.parse(bad), bad);
+        }
+        assertThrows(ArithmeticException.class, () -> FixedPoint.parse("922337203.6854775808"));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.parse("10000000000"));
+    }
+
+    @Test
+    void format_printsLikeScaleTenBigDecimal() {
+        long[] values = {0, 1, -1, 4, 45, 999_999, 1_000_000, 1_234_567, 10_000_000_000L, -10_850_100_000L,
+                260_001_234_567_890L, Long.MAX_VALUE, Long.MIN_VALUE, -4, -1_000_000, 9_999, 10_000, -10_000,
+                99_999_999_999L, 100_000_000_000L, 1_000_000_000_000_000L};
+        for (long value : values) {
+            assertEquals(BigDecimal.valueOf(value, FixedPoint.SCALE).toString(), FixedPoint.format(value), Long.toString(value));
+        }
+    }
+
+    @Test
+    void parseThenFormat_roundTripsColumnValues() {
+        assertEquals("1.0850100000", FixedPoint.format(FixedPoint.parse("1.08501")));
+        assertEquals(new BigDecimal("1.0850100000"), FixedPoint.toBigDecimal(FixedPoint.parse("1.08501")));
+        assertEquals(FixedPoint.parse("26000.25"), FixedPoint.valueOf(new BigDecimal("26000.25")));
+    }
+
+    @Test
+    void mean_roundsHalfUpLikeBigDecimalDivide() {
+        long[][] cases = {{10, 4}, {11, 4}, {-10, 4}, {-11, 4}, {15, 10}, {-15, 10}, {7, 3}, {-7, 3}, {0, 5},
+                {30_000_000_000L, 7}, {Long.MAX_VALUE, 2}};
+        for (long[] c : cases) {
+            BigDecimal expected = BigDecimal.valueOf(c[0], FixedPoint.SCALE)
+                    .divide(BigDecimal.valueOf(c[1]), FixedPoint.SCALE, RoundingMode.HALF_UP);
+            assertEquals(expected.unscaledValue().longValueExact(), FixedPoint.mean(c[0], c[1]), c[0] + "/" + c[1]);
+        }
+    }
+}
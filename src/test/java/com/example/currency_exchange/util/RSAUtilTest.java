@@ -2,9 +2,23 @@ package com.example.currency_exchange.util;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyPair;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -40,6 +54,20 @@ class RSAUtilTest {
         assertArrayEquals(priv.getEncoded(), priv2.getEncoded());
     }
 
+    @Test
+    void publicKeyFromBase64OrNull_rejectsMalformedKeys() {
+        KeyPair kp = RSAUtil.generateKeyPair(2048);
+
+        assertArrayEquals(kp.getPublic().getEncoded(),
+                RSAUtil.publicKeyFromBase64OrNull(RSAUtil.publicKeyToBase64(kp.getPublic())).getEncoded());
+        assertNull(RSAUtil.publicKeyFromBase64OrNull(null));
+        assertNull(RSAUtil.publicKeyFromBase64OrNull(""));
+        assertNull(RSAUtil.publicKeyFromBase64OrNull("not base64!"));
+        assertNull(RSAUtil.publicKeyFromBase64OrNull("bm90LWEta2V5"));
+        // a private key is not an X.509 public key
+        assertNull(RSAUtil.publicKeyFromBase64OrNull(RSAUtil.privateKeyToBase64(kp.getPrivate())));
+    }
+
     @Test
     void encryptDecrypt_roundtrip_shouldReturnOriginalPlaintext() {
         KeyPair kp = RSAUtil.generateKeyPair(2048);
@@ -64,4 +92,156 @@ class RSAUtilTest {
         assertThrows(RuntimeException.class, () -> RSAUtil.decrypt(cipher, kp2.getPrivate()));
     }
 
-}
\ No newline at end of file
+    @Test
+    void decrypt_alternatingKeys_eachCallUsesItsKey() {
+        KeyPair kp1 = RSAUtil.generateKeyPair(2048);
+        KeyPair kp2 = RSAUtil.generateKeyPair(2048);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("one-" + i, RSAUtil.decrypt(RSAUtil.encrypt("one-" + i, kp1.getPublic()), kp1.getPrivate()));
+            assertEquals("two-" + i, RSAUtil.decrypt(RSAUtil.encrypt("two-" + i, kp2.getPublic()), kp2.getPrivate()));
+        }
+    }
+
+    @Test
+    void decrypt_afterFailure_sameKeyStillWorks() {
+        KeyPair kp = RSAUtil.generateKeyPair(2048);
+        String cipher = RSAUtil.encrypt("EUR", kp.getPublic());
+        String tampered = RSAUtil.encrypt("EUR", RSAUtil.generateKeyPair(2048).getPublic());
+
+        assertEquals("EUR", RSAUtil.decrypt(cipher, kp.getPrivate()));
+        assertThrows(RuntimeException.class, () -> RSAUtil.decrypt(tampered, kp.getPrivate()));
+        assertEquals("EUR", RSAUtil.decrypt(cipher, kp.getPrivate()));
+    }
+
+    @Test
+    void decrypt_doesNotKeepPrivateKeyReachable() throws Exception {
+        KeyPair kp = RSAUtil.generateKeyPair(2048);
+        String cipher = RSAUtil.encrypt("EUR", kp.getPublic());
+        WeakReference<PrivateKey> privateKey = new WeakReference<>(kp.getPrivate());
+
+        assertEquals("EUR", RSAUtil.decrypt(cipher, privateKey.get()));
+        kp = null;
+
+        for (int i = 0; i < 50 && privateKey.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(privateKey.get());
+    }
+
+    @Test
+    void decrypt_concurrentThreads_eachGetCorrectPlaintext() throws Exception {
+        KeyPair kp = RSAUtil.generateKeyPair(2048);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                String plaintext = "value-" + i;
+                String cipher = RSAUtil.encrypt(plaintext, kp.getPublic());
+                results.add(executor.submit(() -> RSAUtil.decrypt(cipher, kp.getPrivate())));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals("value-" + i, results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void envelope_roundTripsLargePayloadAcrossSegments() {
+        KeyPair kp = RSAUtil.generateKeyPair(2048);
+        byte[] plaintext = new byte[3 * 64 * 1024 + 123];
+        new Random(42).nextBytes(plaintext);
+
+        byte[] envelope = RSAUtil.envelopeEncrypt(plaintext, kp.getPublic());
+
+        assertArrayEquals(plaintext, RSAUtil.envelopeDecrypt(envelope, kp.getPrivate()));
+    }
+
+    @Test
+    void envelope_roundTripsEmptyAndExactSegmentPayloads() {
+        KeyPair kp = RSAUtil.generateKeyPair(2048);
+        byte[] exact = new byte[64 * 1024];
+        Arrays.fill(exact, (byte) 7);
+
+        assertArrayEquals(new byte[0], RSAUtil.envelopeDecrypt(RSAUtil.envelopeEncrypt(new byte[0], kp.getPublic()), kp.getPrivate()));
+        assertArrayEquals(exact, RSAUtil.envelopeDecrypt(RSAUtil.envelopeEncrypt(exact, kp.getPublic()), kp.getPrivate()));
+    }
+
+    @Test
+    void envelope_streamsInSmallWritesAndReads() throws IOException {
+        KeyPair kp = RSAUtil.generateKeyPair(2048);
+        byte[] plaintext = "x".repeat(200_000).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        try (OutputStream out = RSAUtil.envelopeEncrypt(sink, kp.getPublic())) {
+            for (int i = 0; i < plaintext.length; i += 1000) {
+                out.write(plaintext, i, Math.min(1000, plaintext.length - i));
+            }
+        }
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (InputStream in = RSAUtil.envelopeDecrypt(new ByteArrayInputStream(sink.toByteArray()), kp.getPrivate())) {
+            byte[] chunk = new byte[777];
+            int n;
+            while ((n = in.read(chunk)) != -1) {
+                result.write(chunk, 0, n);
+            }
+        }
+        assertArrayEquals(plaintext, result.toByteArray());
+    }
+
+    @Test
+    void envelope_singleByteWritesAndReadsAcrossSegmentBoundary() throws IOException {
+        KeyPair kp = RSAUtil.generateKeyPair(2048);
+        byte[] plaintext = new byte[64 * 1024 + 10];
+        new Random(7).nextBytes(plaintext);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        try (OutputStream out = RSAUtil.envelopeEncrypt(sink, kp.getPublic())) {
+            for (byte b : plaintext) {
+                out.write(b);
+            }
+            assertThrows(IOException.class, () -> {
+                out.close();
+                out.write(1);
+            });
+        }
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (InputStream in = RSAUtil.envelopeDecrypt(new ByteArrayInputStream(sink.toByteArray()), kp.getPrivate())) {
+            for (int b = in.read(); b != -1; b = in.read()) {
+                result.write(b);
+            }
+            assertEquals(-1, in.read());
+        }
+        assertArrayEquals(plaintext, result.toByteArray());
+    }
+
+    @Test
+    void envelope_tamperedByte_failsAuthentication() {
+        KeyPair kp = RSAUtil.generateKeyPair(2048);
+        byte[] envelope = RSAUtil.envelopeEncrypt(new byte[1000], kp.getPublic());
+        envelope[envelope.length - 20] ^= 1;
+
+        assertThrows(RuntimeException.class, () -> RSAUtil.envelopeDecrypt(envelope, kp.getPrivate()));
+    }
+
+    @Test
+    void envelope_droppedLastSegment_detectedAsTruncated() {
+        KeyPair kp = RSAUtil.generateKeyPair(2048);
+        byte[] envelope = RSAUtil.envelopeEncrypt(new byte[64 * 1024 + 10], kp.getPublic());
+        // the last segment is its 4-byte header plus 10 bytes of ciphertext and the 16-byte tag
+        byte[] truncated = Arrays.copyOf(envelope, envelope.length - (4 + 10 + 16));
+
+        assertThrows(RuntimeException.class, () -> RSAUtil.envelopeDecrypt(truncated, kp.getPrivate()));
+    }
+
+    @Test
+    void envelope_wrongPrivateKey_throws() {
+        byte[] envelope = RSAUtil.envelopeEncrypt(new byte[10], RSAUtil.generateKeyPair(2048).getPublic());
+
+        assertThrows(RuntimeException.class,
+                () -> RSAUtil.envelopeDecrypt(envelope, RSAUtil.generateKeyPair(2048).getPrivate()));
+    }
+}